@@ -0,0 +1,119 @@
+package dev.marketplace.marketplace.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.jackson.io.JacksonDeserializer;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifying a request's token the way JwtUtil did before claims caching (a parser built and the
+ * signature checked on every call) against parseVerifiedClaims. The threaded pair compares cache
+ * hits on the synchronized LRU map the claims cache briefly used with the current Caffeine cache,
+ * with eight request threads reading a working set of tokens. Both hash the token into the key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "dGVzdC1zZWNyZXQtZm9yLWp3dC10b2tlbi1nZW5lcmF0aW9uLWFuZC12ZXJpZmljYXRpb24=";
+    private static final int TOKENS = 1024;
+
+    private JwtUtil jwtUtil;
+    private String[] tokens;
+    private Map<String, Claims> synchronizedLru;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        jwtUtil.init();
+
+        tokens = new String[TOKENS];
+        synchronizedLru = Collections.synchronizedMap(new LinkedHashMap<String, Claims>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+                return size() > 10000;
+            }
+        });
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = jwtUtil.generateToken("user" + i + "@example.com", "HAS_ACCOUNT", UUID.randomUUID());
+            Claims claims = jwtUtil.parseVerifiedClaims(tokens[i]);
+            synchronizedLru.put(sha256(tokens[i]), claims);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int advance() {
+            next = (next + 1) & (TOKENS - 1);
+            return next;
+        }
+    }
+
+    @Benchmark
+    public Claims parseEveryCall(Cursor cursor) {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parser()
+                .verifyWith(key)
+                .json(new JacksonDeserializer<>())
+                .build()
+                .parseSignedClaims(tokens[cursor.advance()])
+                .getPayload();
+    }
+
+    @Benchmark
+    public Claims parseVerifiedClaims(Cursor cursor) {
+        return jwtUtil.parseVerifiedClaims(tokens[cursor.advance()]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Claims synchronizedLruHit(Cursor cursor) {
+        return synchronizedLru.get(sha256(tokens[cursor.advance()]));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Claims parseVerifiedClaimsContended(Cursor cursor) {
+        return jwtUtil.parseVerifiedClaims(tokens[cursor.advance()]);
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
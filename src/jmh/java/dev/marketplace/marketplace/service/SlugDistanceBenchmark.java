@@ -0,0 +1,90 @@
+package dev.marketplace.marketplace.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-matrix Levenshtein against the two-row banded kernel, for slug pairs of realistic
+ * lengths. The bounded variant uses the limit the similarity check derives from a 0.85
+ * threshold, which is what the BK-tree search pays per visited node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlugDistanceBenchmark {
+
+    private static final double THRESHOLD = 0.85;
+
+    // candidate:reserved pairs; close misspellings, same-length unrelated slugs and long names
+    @Param({
+            "takealott:takealot",
+            "my-brand-123:microsoft",
+            "pick-n-pey-online:pick-n-pay",
+            "cape-town-second-hand-furniture:cape-town-vintage-furniture-co"
+    })
+    public String pair;
+
+    private String candidate;
+    private String reserved;
+    private int limit;
+
+    @Setup
+    public void setUp() {
+        String[] parts = pair.split(":");
+        candidate = parts[0];
+        reserved = parts[1];
+        limit = (int) Math.floor((1 - THRESHOLD) * Math.max(candidate.length(), reserved.length()));
+    }
+
+    @Benchmark
+    public int fullMatrix() {
+        return fullMatrixDistance(candidate, reserved);
+    }
+
+    @Benchmark
+    public int twoRow() {
+        return SlugSimilarityIndex.distance(candidate, reserved);
+    }
+
+    @Benchmark
+    public int twoRowBounded() {
+        return SlugSimilarityIndex.boundedDistance(candidate, reserved, limit);
+    }
+
+    // The implementation boundedDistance replaced
+    private static int fullMatrixDistance(String s1, String s2) {
+        int len1 = s1.length();
+        int len2 = s2.length();
+        int[][] dp = new int[len1 + 1][len2 + 1];
+        for (int i = 0; i <= len1; i++) {
+            dp[i][0] = i;
+        }
+        for (int j = 0; j <= len2; j++) {
+            dp[0][j] = j;
+        }
+        for (int i = 1; i <= len1; i++) {
+            for (int j = 1; j <= len2; j++) {
+                int cost = s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1;
+                dp[i][j] = Math.min(Math.min(
+                        dp[i - 1][j] + 1,
+                        dp[i][j - 1] + 1),
+                        dp[i - 1][j - 1] + cost);
+            }
+        }
+        return dp[len1][len2];
+    }
+}
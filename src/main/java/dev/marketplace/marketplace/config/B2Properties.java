@@ -12,6 +12,7 @@ import org.springframework.stereotype.Component;
 public class B2Properties {
     private Application application;
     private Bucket bucket;
+    private Upload upload = new Upload();
 
     @Setter
     @Getter
@@ -37,4 +38,16 @@ public class B2Properties {
 
     }
 
+    @Setter
+    @Getter
+    public static class Upload {
+        // Files of at least this many bytes are uploaded as B2 large files, in parts
+        private long largeFileThreshold = 10 * 1024 * 1024;
+        // Concurrent file uploads across all requests
+        private int parallelism = 4;
+        // Concurrent part uploads across all large files
+        private int largeFileThreads = 4;
+
+    }
+
 }
@@ -0,0 +1,43 @@
+package dev.marketplace.marketplace.config;
+
+import dev.marketplace.marketplace.model.Category;
+import dev.marketplace.marketplace.service.CategoryService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Drops the cached category tree whenever a category is created, updated or deleted through JPA.
+ * The tree is dropped again once the transaction completes, so a reader that rebuilt it from
+ * the pre-commit state in the meantime does not keep serving that state.
+ * CategoryService is looked up lazily because it depends on the repository that owns this listener.
+ */
+@Component
+public class CategoryTreeListener {
+
+    private final ObjectProvider<CategoryService> categoryService;
+
+    public CategoryTreeListener(ObjectProvider<CategoryService> categoryService) {
+        this.categoryService = categoryService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void invalidate(Category category) {
+        CategoryService service = categoryService.getObject();
+        service.invalidateCategoryTree();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    service.invalidateCategoryTree();
+                }
+            });
+        }
+    }
+}
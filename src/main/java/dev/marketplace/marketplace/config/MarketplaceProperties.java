@@ -12,6 +12,7 @@ public class MarketplaceProperties {
     private Security security = new Security();
     private Storage storage = new Storage();
     private Listing listing = new Listing();
+    private Graphql graphql = new Graphql();
     
     @Data
     public static class Security {
@@ -37,4 +38,13 @@ public class MarketplaceProperties {
         private int maxTitleLength = 100;
         private int maxDescriptionLength = 1000;
     }
+
+    @Data
+    public static class Graphql {
+        // Operations whose estimated cost or depth exceed these are rejected before execution
+        private int maxCost = 1000;
+        private int maxDepth = 10;
+        // Assumed size of list fields that have no limit/first/size argument of their own
+        private int defaultListSize = 20;
+    }
 } 
\ No newline at end of file
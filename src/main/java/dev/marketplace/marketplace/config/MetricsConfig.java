@@ -0,0 +1,20 @@
+package dev.marketplace.marketplace.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics wiring that auto-configuration does not cover. GraphQL request and data fetcher
+ * timings, repository invocations, HTTP server/client requests and Hikari pool metrics come
+ * from Spring Boot Actuator; histogram settings are in application.yml under management.metrics.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer(SqlStatementCounter statementCounter) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+}
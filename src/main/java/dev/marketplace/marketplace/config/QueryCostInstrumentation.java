@@ -0,0 +1,218 @@
+package dev.marketplace.marketplace.config;
+
+import graphql.ExecutionResult;
+import graphql.analysis.QueryTraverser;
+import graphql.analysis.QueryVisitorFieldEnvironment;
+import graphql.analysis.QueryVisitorStub;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.CoercedVariables;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.language.Document;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds what a single GraphQL operation may cost before it runs, so one deeply nested query
+ * cannot hold the shared connection pool.
+ *
+ * The estimate is taken from the schema: each object field costs 1 plus the cost of its
+ * selection, and a list field charges that for every element of the page it will return, so a
+ * large page is expensive even when only scalars are selected. The page size is the list's
+ * limit, first or size argument, else the one on the field that returned it
+ * (getListings(limit) -> listings), else marketplace.graphql.default-list-size. Scalar fields are
+ * free, as is introspection. Operations over marketplace.graphql.max-cost or max-depth are rejected; the estimate and
+ * the number of resolver calls actually made are recorded per operation.
+ */
+@Component
+@Slf4j
+public class QueryCostInstrumentation extends SimplePerformantInstrumentation {
+
+    private static final List<String> SIZE_ARGUMENTS = List.of("limit", "first", "size");
+    private static final long MAX_FIELD_COST = 1_000_000_000L;
+
+    private final MarketplaceProperties.Graphql limits;
+    private final MeterRegistry meterRegistry;
+
+    public QueryCostInstrumentation(MarketplaceProperties properties, MeterRegistry meterRegistry) {
+        this.limits = properties.getGraphql();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new CostState();
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecution(InstrumentationExecutionParameters parameters,
+                                                                  InstrumentationState state) {
+        CostState cost = (CostState) state;
+        return SimpleInstrumentationContext.whenCompleted((result, failure) -> {
+            if (cost.operationType == null) {
+                // Rejected, or failed before execution
+                return;
+            }
+            meterRegistry.summary("marketplace.graphql.cost.estimated", "operation", cost.operationType)
+                    .record(cost.estimatedCost);
+            meterRegistry.summary("marketplace.graphql.cost.actual", "operation", cost.operationType)
+                    .record(cost.resolverCalls.get());
+        });
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        ExecutionContext context = parameters.getExecutionContext();
+        QueryCost estimate = estimate(context.getGraphQLSchema(), context.getDocument(),
+                context.getExecutionInput().getOperationName(), context.getCoercedVariables(), limits.getDefaultListSize());
+
+        if (estimate.depth() > limits.getMaxDepth()) {
+            meterRegistry.counter("marketplace.graphql.rejected", "reason", "depth").increment();
+            log.warn("Rejected GraphQL operation {}: depth {} exceeds {}",
+                    context.getExecutionInput().getOperationName(), estimate.depth(), limits.getMaxDepth());
+            throw new AbortExecutionException("Query depth " + estimate.depth() + " exceeds the maximum of " + limits.getMaxDepth());
+        }
+        if (estimate.cost() > limits.getMaxCost()) {
+            meterRegistry.counter("marketplace.graphql.rejected", "reason", "cost").increment();
+            log.warn("Rejected GraphQL operation {}: estimated cost {} exceeds {}",
+                    context.getExecutionInput().getOperationName(), estimate.cost(), limits.getMaxCost());
+            throw new AbortExecutionException("Query cost " + estimate.cost() + " exceeds the maximum of " + limits.getMaxCost()
+                    + "; request smaller pages or fewer nested fields");
+        }
+
+        CostState cost = (CostState) state;
+        cost.estimatedCost = estimate.cost();
+        cost.operationType = context.getOperationDefinition().getOperation().name().toLowerCase();
+        return super.beginExecuteOperation(parameters, state);
+    }
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher, InstrumentationFieldFetchParameters parameters,
+                                                InstrumentationState state) {
+        if (parameters.isTrivialDataFetcher()) {
+            return dataFetcher;
+        }
+        AtomicInteger resolverCalls = ((CostState) state).resolverCalls;
+        return environment -> {
+            resolverCalls.incrementAndGet();
+            return dataFetcher.get(environment);
+        };
+    }
+
+    /**
+     * Estimated cost and depth of the operation to be executed.
+     */
+    static QueryCost estimate(GraphQLSchema schema, Document document, String operationName,
+                              CoercedVariables variables, int defaultListSize) {
+        QueryTraverser traverser = QueryTraverser.newQueryTraverser()
+                .schema(schema)
+                .document(document)
+                .operationName(operationName)
+                .coercedVariables(variables)
+                .build();
+
+        // Post-order: a field's selection is complete by the time the field itself is visited.
+        // Keyed by response path, since visitor environments of a fragment spread in two places can
+        // be equal; a field repeated at one path takes only the selection visited since the last one
+        Map<String, Long> selectionCost = new HashMap<>();
+        long[] cost = new long[1];
+        int[] depth = new int[1];
+        traverser.visitPostOrder(new QueryVisitorStub() {
+            @Override
+            public void visitField(QueryVisitorFieldEnvironment env) {
+                if (isIntrospection(env)) {
+                    return;
+                }
+                QueryVisitorFieldEnvironment parent = env.getParentEnvironment();
+                Long selection = selectionCost.remove(path(env));
+                long fieldCost = fieldCost(env, selection != null ? selection : 0L, defaultListSize);
+                if (parent == null) {
+                    cost[0] += fieldCost;
+                } else {
+                    selectionCost.merge(path(parent), fieldCost, Long::sum);
+                }
+                depth[0] = Math.max(depth[0], depth(env));
+            }
+        });
+        return new QueryCost(cost[0], depth[0]);
+    }
+
+    private static long fieldCost(QueryVisitorFieldEnvironment env, long selectionCost, int defaultListSize) {
+        GraphQLType type = env.getFieldDefinition().getType();
+        if (GraphQLTypeUtil.isLeaf(GraphQLTypeUtil.unwrapAll(type))) {
+            return 0;
+        }
+        if (!GraphQLTypeUtil.isList(GraphQLTypeUtil.unwrapNonNull(type))) {
+            return 1 + selectionCost;
+        }
+        Integer size = sizeArgument(env.getArguments());
+        if (size == null && env.getParentEnvironment() != null) {
+            size = sizeArgument(env.getParentEnvironment().getArguments());
+        }
+        // Capped so absurd page sizes cannot overflow the sum; anything this large is rejected anyway
+        return Math.min((long) (size != null ? Math.max(size, 0) : defaultListSize) * (1 + selectionCost), MAX_FIELD_COST);
+    }
+
+    private static Integer sizeArgument(Map<String, Object> arguments) {
+        for (String name : SIZE_ARGUMENTS) {
+            if (arguments.get(name) instanceof Number size) {
+                return size.intValue();
+            }
+        }
+        return null;
+    }
+
+    // __typename and schema introspection (GraphiQL, codegen) are served from memory
+    private static boolean isIntrospection(QueryVisitorFieldEnvironment env) {
+        for (QueryVisitorFieldEnvironment current = env; current != null; current = current.getParentEnvironment()) {
+            if (current.getField().getName().startsWith("__")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Response keys (aliases where given) from the operation root down to the field
+    private static String path(QueryVisitorFieldEnvironment env) {
+        StringBuilder path = new StringBuilder();
+        for (QueryVisitorFieldEnvironment current = env; current != null; current = current.getParentEnvironment()) {
+            path.insert(0, current.getField().getResultKey()).insert(0, '/');
+        }
+        return path.toString();
+    }
+
+    private static int depth(QueryVisitorFieldEnvironment env) {
+        int depth = 0;
+        for (QueryVisitorFieldEnvironment current = env; current != null; current = current.getParentEnvironment()) {
+            depth++;
+        }
+        return depth;
+    }
+
+    record QueryCost(long cost, int depth) {
+    }
+
+    private static final class CostState implements InstrumentationState {
+        private final AtomicInteger resolverCalls = new AtomicInteger();
+        private volatile long estimatedCost;
+        private volatile String operationType;
+    }
+}
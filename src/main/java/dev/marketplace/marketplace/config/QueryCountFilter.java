@@ -0,0 +1,54 @@
+package dev.marketplace.marketplace.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records how many SQL statements each HTTP request issued, per method and matched route,
+ * as the marketplace.request.queries distribution.
+ */
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final SqlStatementCounter statementCounter;
+    private final MeterRegistry meterRegistry;
+
+    public QueryCountFilter(SqlStatementCounter statementCounter, MeterRegistry meterRegistry) {
+        this.statementCounter = statementCounter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        statementCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statements = statementCounter.stop();
+            // The matched pattern keeps path variables out of the tag values
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("marketplace.request.queries")
+                    .description("SQL statements issued by Hibernate per HTTP request")
+                    .baseUnit("statements")
+                    .tag("method", request.getMethod())
+                    .tag("uri", route != null ? route.toString() : "UNKNOWN")
+                    .register(meterRegistry)
+                    .record(statements);
+        }
+    }
+}
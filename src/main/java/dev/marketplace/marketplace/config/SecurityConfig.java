@@ -9,6 +9,7 @@ import dev.marketplace.marketplace.service.B2StorageService;
 import dev.marketplace.marketplace.service.PasswordValidationService;
 import dev.marketplace.marketplace.service.UserService;
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -80,6 +81,9 @@ public class SecurityConfig {
                     ).permitAll();
                     auth.requestMatchers("/graphql/**").permitAll();
                     auth.requestMatchers("/api/auth/**").permitAll();
+                    // Actuator is served only on the management port, bound to an internal interface
+                    // (management.server.*), so health checks and Prometheus scrapes need no token
+                    auth.requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll();
                     auth.anyRequest().authenticated();
                 })
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -0,0 +1,37 @@
+package dev.marketplace.marketplace.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a count is active.
+ * Registered as Hibernate's statement inspector by MetricsConfig; QueryCountFilter opens and
+ * closes a count around each HTTP request. Statements issued through JdbcTemplate are not seen.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector {
+
+    private final ThreadLocal<int[]> count = new ThreadLocal<>();
+
+    public void start() {
+        count.set(new int[1]);
+    }
+
+    /**
+     * Ends the count on the current thread and returns the number of statements seen.
+     */
+    public int stop() {
+        int[] current = count.get();
+        count.remove();
+        return current != null ? current[0] : 0;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] current = count.get();
+        if (current != null) {
+            current[0]++;
+        }
+        return sql;
+    }
+}
@@ -1,5 +1,6 @@
 package dev.marketplace.marketplace.controllers;
 
+import dev.marketplace.marketplace.service.ListingCleanupService;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -9,12 +10,19 @@ import java.util.Map;
 @RestController
 public class HealthController {
 
+    private final ListingCleanupService listingCleanupService;
+
+    public HealthController(ListingCleanupService listingCleanupService) {
+        this.listingCleanupService = listingCleanupService;
+    }
+
     @GetMapping("/health")
     public Map<String, Object> health() {
         Map<String, Object> response = new HashMap<>();
         response.put("status", "UP");
         response.put("message", "Marketplace API is running");
         response.put("timestamp", System.currentTimeMillis());
+        response.put("archivedListingCleanup", listingCleanupService.getCleanupStats());
         return response;
     }
 
@@ -2,6 +2,7 @@ package dev.marketplace.marketplace.controllers;
 
 import com.backblaze.b2.client.exceptions.B2Exception;
 import dev.marketplace.marketplace.service.B2StorageService;
+import dev.marketplace.marketplace.service.ListingImageService;
 import dev.marketplace.marketplace.service.ListingService;
 import dev.marketplace.marketplace.model.Listing;
 import org.springframework.http.HttpStatus;
@@ -20,10 +21,13 @@ public class ListingFileUploadController {
 
     private final B2StorageService b2StorageService;
     private final ListingService listingService;
+    private final ListingImageService listingImageService;
 
-    public ListingFileUploadController(B2StorageService b2StorageService, ListingService listingService) {
+    public ListingFileUploadController(B2StorageService b2StorageService, ListingService listingService,
+                                       ListingImageService listingImageService) {
         this.b2StorageService = b2StorageService;
         this.listingService = listingService;
+        this.listingImageService = listingImageService;
     }
 
     @PostMapping("/upload-images")
@@ -33,10 +37,14 @@ public class ListingFileUploadController {
         }
         List<String> uploadedUrls = new ArrayList<>();
         try {
-            for (int i = 0; i < images.length; i++) {
-                MultipartFile image = images[i];
+            // Each image is streamed to B2 from the request; the images upload concurrently and
+            // their thumbnails are generated in the background
+            List<B2StorageService.ImageUpload> uploads = new ArrayList<>();
+            for (MultipartFile image : images) {
                 String fileName = "listings/temp/" + System.currentTimeMillis() + "_" + image.getOriginalFilename();
-                String uploadedFileName = b2StorageService.uploadImage(fileName, image.getBytes());
+                uploads.add(new B2StorageService.ImageUpload(fileName, image));
+            }
+            for (String uploadedFileName : listingImageService.uploadListingImages(uploads)) {
                 String preSignedUrl = b2StorageService.generatePreSignedUrl(uploadedFileName);
                 uploadedUrls.add(preSignedUrl);
             }
@@ -53,14 +61,15 @@ public class ListingFileUploadController {
         if (images == null || images.length == 0) {
             return ResponseEntity.badRequest().body("No images uploaded!");
         }
-        List<String> uploadedUrls = new ArrayList<>();
+        List<String> uploadedUrls;
 
         try {
+            // Use the service, service returns the full URL; the images upload concurrently
+            List<B2StorageService.ImageUpload> uploads = new ArrayList<>();
             for (MultipartFile image : images) {
-                // Use the service, service returns the full URL
-                String publicUrl = b2StorageService.uploadPublicImage("listings/" + listingId, image);
-                uploadedUrls.add(publicUrl); // Store URL directly or also store filename if needed
+                uploads.add(new B2StorageService.ImageUpload(b2StorageService.publicImagePath("listings/" + listingId, image), image));
             }
+            uploadedUrls = listingImageService.uploadListingImages(uploads);
 
             // Optionally update listing with filenames if your DB stores them
             Listing listing = listingService.getListingByIdRaw(listingId);
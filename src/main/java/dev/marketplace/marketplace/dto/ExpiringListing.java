@@ -0,0 +1,9 @@
+package dev.marketplace.marketplace.dto;
+
+import java.util.UUID;
+
+/**
+ * A listing entry in a seller's expiration warning digest.
+ */
+public record ExpiringListing(UUID id, String title, int daysRemaining) {
+}
@@ -0,0 +1,57 @@
+package dev.marketplace.marketplace.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset cursor for listing connections: the value of the sort column
+ * (createdAt or price) of the last row on a page plus its id as tie-breaker.
+ */
+public record ListingCursor(String sortField, String value, UUID id) {
+
+    public static final String CREATED_AT = "createdAt";
+    public static final String PRICE = "price";
+
+    public static ListingCursor of(ListingDTO listing, String sortField) {
+        String value = PRICE.equals(sortField)
+                ? Double.toString(listing.price())
+                : listing.createdAt().toString();
+        return new ListingCursor(sortField, value, listing.id());
+    }
+
+    public String encode() {
+        String raw = sortField + "|" + value + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ListingCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || !(CREATED_AT.equals(parts[0]) || PRICE.equals(parts[0]))) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            ListingCursor decoded = new ListingCursor(parts[0], parts[1], UUID.fromString(parts[2]));
+            // Parse the value now, so a tampered cursor fails here rather than when the query is built
+            if (CREATED_AT.equals(decoded.sortField())) {
+                decoded.createdAtValue();
+            } else {
+                decoded.priceValue();
+            }
+            return decoded;
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    public LocalDateTime createdAtValue() {
+        return LocalDateTime.parse(value);
+    }
+
+    public double priceValue() {
+        return Double.parseDouble(value);
+    }
+}
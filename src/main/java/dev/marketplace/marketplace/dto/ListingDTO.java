@@ -15,6 +15,8 @@ public record ListingDTO(
         String title,
         String description,
         List<String> images,
+        List<String> thumbnailUrls,
+        List<String> mediumUrls,
         Category category,
         double price,
         int quantity,
@@ -0,0 +1,6 @@
+package dev.marketplace.marketplace.dto;
+
+public record ListingEdge(
+        String cursor,
+        ListingDTO node
+) {}
@@ -10,11 +10,20 @@ import java.util.List;
 public class ListingPageResponse {
     private List<ListingDTO> listings;
     private int totalCount;
+    // Only populated for cursor (first/after) requests
+    private List<ListingEdge> edges;
+    private PageInfo pageInfo;
 
     public ListingPageResponse(List<ListingDTO> listings, int totalCount) {
         this.listings = listings;
         this.totalCount = totalCount;
     }
 
-}
+    public ListingPageResponse(List<ListingEdge> edges, PageInfo pageInfo, int totalCount) {
+        this.listings = edges.stream().map(ListingEdge::node).toList();
+        this.edges = edges;
+        this.pageInfo = pageInfo;
+        this.totalCount = totalCount;
+    }
 
+}
@@ -0,0 +1,8 @@
+package dev.marketplace.marketplace.dto;
+
+import java.util.List;
+
+public record ReviewConnection(
+        List<ReviewEdge> edges,
+        PageInfo pageInfo
+) {}
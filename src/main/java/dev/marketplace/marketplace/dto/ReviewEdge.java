@@ -0,0 +1,8 @@
+package dev.marketplace.marketplace.dto;
+
+import dev.marketplace.marketplace.model.Review;
+
+public record ReviewEdge(
+        String cursor,
+        Review node
+) {}
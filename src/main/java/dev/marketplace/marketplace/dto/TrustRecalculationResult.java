@@ -0,0 +1,7 @@
+package dev.marketplace.marketplace.dto;
+
+/**
+ * Outcome of a bulk trust rating recalculation.
+ */
+public record TrustRecalculationResult(int usersUpdated, int businessesUpdated, long durationMs) {
+}
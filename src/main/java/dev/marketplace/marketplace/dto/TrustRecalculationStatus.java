@@ -0,0 +1,11 @@
+package dev.marketplace.marketplace.dto;
+
+/**
+ * State of the background bulk trust rating recalculation.
+ *
+ * @param started    whether this request started a new run
+ * @param running    whether a run is in progress
+ * @param lastResult outcome of the most recent completed run, or null if none has completed
+ */
+public record TrustRecalculationStatus(boolean started, boolean running, TrustRecalculationResult lastResult) {
+}
@@ -58,6 +58,16 @@ public class BusinessTrustRating {
     @Builder.Default
     private int successfulTransactions = 0;
 
+    // Running sum of received review ratings; divided by totalReviews it gives the average
+    @Column(name = "review_rating_sum", nullable = false, precision = 12, scale = 1)
+    @Builder.Default
+    private BigDecimal reviewRatingSum = BigDecimal.ZERO;
+
+    // False until the review and transaction counters have been seeded by a full recalculation
+    @Column(name = "aggregates_initialized", nullable = false)
+    @Builder.Default
+    private boolean aggregatesInitialized = false;
+
     @Column(name = "last_calculated")
     private LocalDateTime lastCalculated;
 
@@ -1,5 +1,6 @@
 package dev.marketplace.marketplace.model;
 
+import dev.marketplace.marketplace.config.CategoryTreeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -9,6 +10,7 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity
+@EntityListeners(CategoryTreeListener.class)
 @Table(name = "category", schema = "public", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"name", "parent_id"}, name = "unique_category_name_per_parent")
 })
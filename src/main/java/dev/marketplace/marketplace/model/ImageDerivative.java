@@ -0,0 +1,29 @@
+package dev.marketplace.marketplace.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records that every variant of an uploaded original has been stored, so readers only point
+ * at variants once they exist and serve the original until then.
+ */
+@Entity
+@Table(name = "image_derivative")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageDerivative {
+
+    @Id
+    @Column(name = "original_key", length = 1024, updatable = false, nullable = false)
+    private String originalKey;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
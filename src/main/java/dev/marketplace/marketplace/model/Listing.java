@@ -6,6 +6,7 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,8 +16,30 @@ import java.util.UUID;
 @Setter
 @Entity
 @Table(name = "listing")
+@NamedEntityGraph(
+        name = Listing.DETAILS_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode(value = "user", subgraph = "listingUser"),
+                @NamedAttributeNode("category"),
+                @NamedAttributeNode("city"),
+                // storeBranding is a mappedBy one-to-one, which Hibernate loads eagerly unless fetched here
+                @NamedAttributeNode(value = "business", subgraph = "listingBusiness"),
+                @NamedAttributeNode(value = "createdBy", subgraph = "listingUser")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "listingUser", attributeNodes = @NamedAttributeNode("city")),
+                @NamedSubgraph(name = "listingBusiness", attributeNodes = @NamedAttributeNode("storeBranding"))
+        }
+)
 @NoArgsConstructor
 public class Listing {
+    // Everything ListingDTO reads except images, fetched in the listing query itself.
+    // Images are a collection, so they are batch-loaded instead (see @BatchSize) to keep LIMIT in SQL.
+    public static final String DETAILS_GRAPH = "Listing.details";
+    // How long a listing stays live after it is created or renewed
+    public static final int LISTING_PERIOD_DAYS = 30;
+
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     @Column(columnDefinition = "uuid", updatable = false, nullable = false)
@@ -33,6 +56,7 @@ public class Listing {
     private String description;
 
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(name = "listing_image", joinColumns = @JoinColumn(name = "listing_id"))
     @Column(name = "image")
     private List<String> images;
@@ -57,6 +81,10 @@ public class Listing {
     private LocalDateTime createdAt = LocalDateTime.now();
     private LocalDateTime expiresAt;
 
+    // expiresAt the expiration warning was sent for, so the daily scan warns once per listing period
+    @Column(name = "expiration_warning_sent_for")
+    private LocalDateTime expirationWarningSentFor;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "business_id")
     private Business business;
@@ -66,6 +94,9 @@ public class Listing {
     private User createdBy; // Tracks who created the listing (for audit)
 
     private boolean archived = false; // Archived state for expiry/deletion
+    // When the listing was last archived; the retention purge counts from here, not from createdAt
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt;
     private LocalDateTime soldAt; // Timestamp when listing was sold (nullable)
     private java.math.BigDecimal soldPrice; // Price at which it was sold (nullable)
 
@@ -92,7 +123,16 @@ public class Listing {
 
     @PrePersist
     public void setExpiration() {
-        this.expiresAt = this.createdAt.plusDays(30);
+        this.expiresAt = this.createdAt.plusDays(LISTING_PERIOD_DAYS);
+    }
+
+    public void setArchived(boolean archived) {
+        if (archived && !this.archived) {
+            this.archivedAt = LocalDateTime.now();
+        } else if (!archived) {
+            this.archivedAt = null;
+        }
+        this.archived = archived;
     }
 
     // NSFW Getter Methods
@@ -122,6 +162,7 @@ public class Listing {
         this.business = builder.business;
         this.createdBy = builder.createdBy;
         this.archived = builder.archived;
+        this.archivedAt = builder.archived ? LocalDateTime.now() : null;
         this.soldAt = builder.soldAt;
         this.soldPrice = builder.soldPrice;
         this.sellerMarked18Plus = builder.sellerMarked18Plus;
@@ -302,7 +343,7 @@ public class Listing {
             }
 
             if (this.expiresAt == null) {
-                this.expiresAt = this.createdAt.plusDays(30);
+                this.expiresAt = this.createdAt.plusDays(LISTING_PERIOD_DAYS);
             }
             
             return new Listing(this);
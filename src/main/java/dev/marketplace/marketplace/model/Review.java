@@ -59,7 +59,7 @@ public class Review {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
         if (rating != null) {
-            isPositive = rating.compareTo(BigDecimal.valueOf(3.5)) >= 0;
+            isPositive = isPositiveRating(rating);
         }
     }
     
@@ -68,10 +68,14 @@ public class Review {
         updatedAt = LocalDateTime.now();
 
         if (rating != null) {
-            isPositive = rating.compareTo(BigDecimal.valueOf(3.5)) >= 0;
+            isPositive = isPositiveRating(rating);
         }
     }
 
+    public static boolean isPositiveRating(BigDecimal rating) {
+        return rating.compareTo(BigDecimal.valueOf(3.5)) >= 0;
+    }
+
     public String getStarDisplay() {
         if (rating == null) return "0.0";
         return rating.toString();
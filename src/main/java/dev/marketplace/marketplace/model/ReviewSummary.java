@@ -0,0 +1,96 @@
+package dev.marketplace.marketplace.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Running review totals for a reviewed user or a business. Kept in step with the review table
+ * by ReviewService; a subject without a row has no reviews.
+ */
+@Entity
+@Table(name = "review_summary")
+@IdClass(ReviewSummary.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReviewSummary {
+
+    public enum SubjectType {
+        USER,
+        BUSINESS
+    }
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "subject_type", length = 16, nullable = false)
+    private SubjectType subjectType;
+
+    @Id
+    @Column(name = "subject_id", columnDefinition = "uuid", nullable = false)
+    private UUID subjectId;
+
+    @Column(name = "review_count", nullable = false)
+    private long reviewCount;
+
+    @Column(name = "rating_sum", nullable = false, precision = 12, scale = 1)
+    @Builder.Default
+    private BigDecimal ratingSum = BigDecimal.ZERO;
+
+    @Column(name = "positive_count", nullable = false)
+    private long positiveCount;
+
+    @Column(name = "updated_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    public static ReviewSummary empty(SubjectType subjectType, UUID subjectId) {
+        return ReviewSummary.builder().subjectType(subjectType).subjectId(subjectId).build();
+    }
+
+    /**
+     * Applies one review change: previousRating is null for a new review, rating is null for a
+     * deleted one.
+     */
+    public void apply(BigDecimal previousRating, BigDecimal rating) {
+        if (previousRating != null) {
+            reviewCount--;
+            ratingSum = ratingSum.subtract(previousRating);
+            if (Review.isPositiveRating(previousRating)) {
+                positiveCount--;
+            }
+        }
+        if (rating != null) {
+            reviewCount++;
+            ratingSum = ratingSum.add(rating);
+            if (Review.isPositiveRating(rating)) {
+                positiveCount++;
+            }
+        }
+        updatedAt = LocalDateTime.now();
+    }
+
+    public BigDecimal getAverageRating() {
+        if (reviewCount <= 0) {
+            return BigDecimal.ZERO;
+        }
+        return ratingSum.divide(BigDecimal.valueOf(reviewCount), 2, RoundingMode.HALF_UP);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private SubjectType subjectType;
+        private UUID subjectId;
+    }
+}
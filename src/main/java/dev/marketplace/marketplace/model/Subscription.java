@@ -83,6 +83,10 @@ public class Subscription {
     @Column(name = "payfast_profile_id")
     private String payfastProfileId;
 
+    // currentPeriodEnd the expiration warning was sent for, so the daily scan warns once per period
+    @Column(name = "expiration_warning_sent_for")
+    private LocalDateTime expirationWarningSentFor;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
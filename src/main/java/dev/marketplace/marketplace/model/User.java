@@ -14,8 +14,10 @@ import java.util.List;
 import java.util.UUID;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.JoinColumn;
+import dev.marketplace.marketplace.security.UserDetailsCacheListener;
 @Entity
 @Table(name = "users")
+@EntityListeners(UserDetailsCacheListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
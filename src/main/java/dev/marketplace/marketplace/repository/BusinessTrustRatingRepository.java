@@ -8,6 +8,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
@@ -19,4 +22,8 @@ import java.util.UUID;
 public interface BusinessTrustRatingRepository extends JpaRepository<BusinessTrustRating, UUID> {
     Optional<BusinessTrustRating> findByBusiness(Business business);
     Optional<BusinessTrustRating> findByBusinessId(UUID businessId);
-}
\ No newline at end of file
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT btr FROM BusinessTrustRating btr WHERE btr.business.id = :businessId")
+    Optional<BusinessTrustRating> findByBusinessIdForUpdate(@Param("businessId") UUID businessId);
+}
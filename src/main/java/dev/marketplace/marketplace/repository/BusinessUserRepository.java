@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -23,6 +24,10 @@ public interface BusinessUserRepository extends JpaRepository<BusinessUser, UUID
     List<BusinessUser> findByBusiness(@Param("business") Business business);
 
     List<BusinessUser> findByUser(User user);
+
+    // Memberships for several users with the business and its branding, for batched GraphQL resolution
+    @Query("SELECT bu FROM BusinessUser bu JOIN FETCH bu.business b LEFT JOIN FETCH b.storeBranding WHERE bu.user.id IN :userIds")
+    List<BusinessUser> findWithBusinessByUserIdIn(@Param("userIds") Collection<UUID> userIds);
     
     @Query("SELECT bu FROM BusinessUser bu WHERE bu.business = :business AND bu.role = :role")
     List<BusinessUser> findByBusinessAndRole(@Param("business") Business business, @Param("role") BusinessUserRole role);
@@ -0,0 +1,91 @@
+package dev.marketplace.marketplace.repository;
+
+import dev.marketplace.marketplace.model.EmailOutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, UUID> {
+
+    /**
+     * Locks due messages for delivery, skipping rows another instance has already locked
+     * (lock timeout -2 is Hibernate's SKIP LOCKED).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM EmailOutboxMessage m WHERE m.status IN :statuses AND m.nextAttemptAt <= :now ORDER BY m.nextAttemptAt")
+    List<EmailOutboxMessage> findDueForUpdate(@Param("statuses") Collection<EmailOutboxMessage.Status> statuses,
+                                              @Param("now") LocalDateTime now,
+                                              Pageable pageable);
+
+    /**
+     * Records a delivery, clearing the body, but only while the message is still SENDING under the
+     * lease it was claimed with. If the lease expired and another poller claimed the message, nothing
+     * is updated and 0 is returned. markFailed and scheduleRetry apply the same condition.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE email_outbox
+            SET status = 'SENT', attempts = :attempts, sent_at = :sentAt, last_error = NULL, body = NULL
+            WHERE id = :id AND status = 'SENDING' AND next_attempt_at = :leasedUntil
+            """, nativeQuery = true)
+    int markSent(@Param("id") UUID id,
+                 @Param("leasedUntil") LocalDateTime leasedUntil,
+                 @Param("attempts") int attempts,
+                 @Param("sentAt") LocalDateTime sentAt);
+
+    /**
+     * Gives up on a message, clearing the body, if this poller still holds its lease.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE email_outbox
+            SET status = 'FAILED', attempts = :attempts, last_error = :lastError, body = NULL
+            WHERE id = :id AND status = 'SENDING' AND next_attempt_at = :leasedUntil
+            """, nativeQuery = true)
+    int markFailed(@Param("id") UUID id,
+                   @Param("leasedUntil") LocalDateTime leasedUntil,
+                   @Param("attempts") int attempts,
+                   @Param("lastError") String lastError);
+
+    /**
+     * Makes a message due again at nextAttemptAt, if this poller still holds its lease.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE email_outbox
+            SET status = 'PENDING', attempts = :attempts, next_attempt_at = :nextAttemptAt, last_error = :lastError
+            WHERE id = :id AND status = 'SENDING' AND next_attempt_at = :leasedUntil
+            """, nativeQuery = true)
+    int scheduleRetry(@Param("id") UUID id,
+                      @Param("leasedUntil") LocalDateTime leasedUntil,
+                      @Param("attempts") int attempts,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("lastError") String lastError);
+
+    /**
+     * Deletes up to limit delivered or abandoned messages enqueued before the cutoff.
+     * Returns the number of rows deleted.
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM email_outbox WHERE id IN (
+                SELECT id FROM email_outbox
+                WHERE status IN ('SENT', 'FAILED') AND created_at < :cutoff
+                LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
@@ -0,0 +1,18 @@
+package dev.marketplace.marketplace.repository;
+
+import dev.marketplace.marketplace.model.ImageDerivative;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Set;
+
+@Repository
+public interface ImageDerivativeRepository extends JpaRepository<ImageDerivative, String> {
+
+    // The subset of the given originals whose variants have all been stored
+    @Query("SELECT d.originalKey FROM ImageDerivative d WHERE d.originalKey IN :originalKeys")
+    Set<String> findDerivedKeys(@Param("originalKeys") Collection<String> originalKeys);
+}
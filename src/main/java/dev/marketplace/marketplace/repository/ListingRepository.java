@@ -4,9 +4,14 @@ import dev.marketplace.marketplace.enums.Condition;
 import dev.marketplace.marketplace.model.Business;
 import dev.marketplace.marketplace.model.Listing;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,18 +19,58 @@ import org.springframework.stereotype.Repository;
 import jakarta.persistence.LockModeType;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface ListingRepository extends JpaRepository<Listing, UUID> {
+public interface ListingRepository extends JpaRepository<Listing, UUID>, JpaSpecificationExecutor<Listing> {
     @Query("SELECT l FROM Listing l JOIN FETCH l.user WHERE l.user.id = :userId AND (l.sold = false OR l.nsfwApprovalStatus = 'PENDING')")
     List<Listing> findByUserId(UUID userId);
 
+    // Same visibility as findByUserId, for several sellers in one query
+    @EntityGraph(Listing.DETAILS_GRAPH)
+    @Query("SELECT l FROM Listing l WHERE l.user.id IN :userIds AND (l.sold = false OR l.nsfwApprovalStatus = 'PENDING')")
+    List<Listing> findByUserIdIn(@Param("userIds") Collection<UUID> userIds);
+
     @Query("SELECT l FROM Listing l JOIN FETCH l.user WHERE l.user.id = :userId")
     List<Listing> findAllByUserId(UUID userId);
 
+    // Specification reads used by listing search load seller, category, city and business in the same query
+    @Override
+    @EntityGraph(Listing.DETAILS_GRAPH)
+    Page<Listing> findAll(Specification<Listing> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph(Listing.DETAILS_GRAPH)
+    List<Listing> findAll(Specification<Listing> spec, Sort sort);
+
+    // Owner's own listings (same visibility as findByUserId), newest first, for myListings paging
+    @EntityGraph(Listing.DETAILS_GRAPH)
+    @Query(value = "SELECT l FROM Listing l WHERE l.user.id = :userId AND (l.sold = false OR l.nsfwApprovalStatus = 'PENDING') "
+            + "ORDER BY l.createdAt DESC, l.id DESC",
+            countQuery = "SELECT COUNT(l) FROM Listing l WHERE l.user.id = :userId AND (l.sold = false OR l.nsfwApprovalStatus = 'PENDING')")
+    Page<Listing> findOwnListings(@Param("userId") UUID userId, Pageable pageable);
+
+    @EntityGraph(Listing.DETAILS_GRAPH)
+    @Query("SELECT l FROM Listing l WHERE l.user.id = :userId AND (l.sold = false OR l.nsfwApprovalStatus = 'PENDING') "
+            + "ORDER BY l.createdAt DESC, l.id DESC")
+    List<Listing> findOwnListingsFirst(@Param("userId") UUID userId, Limit limit);
+
+    // Seek variant of findOwnListingsFirst: rows after the (createdAt, id) cursor
+    @EntityGraph(Listing.DETAILS_GRAPH)
+    @Query("SELECT l FROM Listing l WHERE l.user.id = :userId AND (l.sold = false OR l.nsfwApprovalStatus = 'PENDING') "
+            + "AND (l.createdAt < :createdAt OR (l.createdAt = :createdAt AND l.id < :id)) "
+            + "ORDER BY l.createdAt DESC, l.id DESC")
+    List<Listing> findOwnListingsAfter(@Param("userId") UUID userId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") UUID id,
+                                       Limit limit);
+
+    @Query("SELECT COUNT(l) FROM Listing l WHERE l.user.id = :userId AND (l.sold = false OR l.nsfwApprovalStatus = 'PENDING')")
+    long countOwnListings(@Param("userId") UUID userId);
+
     @Query("SELECT l FROM Listing l JOIN FETCH l.user WHERE l.category.id = :categoryId AND l.sold = false")
     List<Listing> findByCategoryId(UUID categoryId); // Changed to UUID
 
@@ -77,13 +122,6 @@ public interface ListingRepository extends JpaRepository<Listing, UUID> {
     @Query("SELECT l FROM Listing l WHERE l.createdAt >= :since AND l.sold = false")
     Page<Listing> findRecentListings(@Param("since") LocalDateTime since, Pageable pageable);
 
-    // Search listings by title or description
-    @Query("SELECT l FROM Listing l WHERE "
-            + "(l.title LIKE CONCAT('%', :searchTerm, '%') "
-            + "OR l.description LIKE CONCAT('%', :searchTerm, '%')) "
-            + "AND l.sold = false")
-    Page<Listing> searchListings(@Param("searchTerm") String searchTerm, Pageable pageable);
-
     // Find listings by business and archived status
     List<Listing> findByBusinessAndArchivedFalse(Business business);
     List<Listing> findByBusinessAndArchivedTrue(Business business);
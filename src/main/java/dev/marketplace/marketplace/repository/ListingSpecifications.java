@@ -0,0 +1,178 @@
+package dev.marketplace.marketplace.repository;
+
+import dev.marketplace.marketplace.dto.ListingCursor;
+import dev.marketplace.marketplace.enums.Condition;
+import dev.marketplace.marketplace.enums.ContentApprovalStatus;
+import dev.marketplace.marketplace.model.Listing;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Composable JPA specifications for listing search.
+ * Every factory returns null when its argument is absent, which Specification.where/and
+ * treat as "no restriction", so callers can chain all filters unconditionally.
+ */
+public final class ListingSpecifications {
+
+    private ListingSpecifications() {
+    }
+
+    public static Specification<Listing> inCategories(Collection<UUID> categoryIds) {
+        if (categoryIds == null || categoryIds.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> root.get("category").get("id").in(categoryIds);
+    }
+
+    public static Specification<Listing> minPrice(Double minPrice) {
+        if (minPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    public static Specification<Listing> maxPrice(Double maxPrice) {
+        if (maxPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+
+    public static Specification<Listing> hasCondition(Condition condition) {
+        if (condition == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("condition"), condition);
+    }
+
+    public static Specification<Listing> inCity(UUID cityId) {
+        if (cityId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("city").get("id"), cityId);
+    }
+
+    public static Specification<Listing> ownedByUser(UUID userId) {
+        if (userId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Listing> ownedByBusiness(UUID businessId) {
+        if (businessId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("business").get("id"), businessId);
+    }
+
+    public static Specification<Listing> createdAfter(LocalDateTime minDate) {
+        if (minDate == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), minDate);
+    }
+
+    public static Specification<Listing> createdBefore(LocalDateTime maxDate) {
+        if (maxDate == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("createdAt"), maxDate);
+    }
+
+    /**
+     * Full-text match on the listing's search document (title and description, see
+     * listing_search_document in the migrations), or a case-insensitive substring match
+     * on the title or description for partial words.
+     *
+     * @param orderByRelevance order results by ts_rank, best match first; ignored for count queries
+     */
+    public static Specification<Listing> matchesSearchTerm(String searchTerm, boolean orderByRelevance) {
+        if (searchTerm == null || searchTerm.isBlank()) {
+            return null;
+        }
+        String term = searchTerm.trim();
+        String pattern = "%" + escapeLike(term.toLowerCase()) + "%";
+        return (root, query, cb) -> {
+            Expression<String> title = root.get("title");
+            Expression<String> description = root.get("description");
+            Class<?> resultType = query.getResultType();
+            if (orderByRelevance && resultType != Long.class && resultType != long.class) {
+                query.orderBy(
+                        cb.desc(cb.function("listing_search_rank", Float.class, title, description, cb.literal(term))),
+                        cb.desc(root.get("id"))
+                );
+            }
+            return cb.or(
+                    cb.isTrue(cb.function("listing_search_matches", Boolean.class, title, description, cb.literal(term))),
+                    cb.like(cb.lower(title), pattern, '\\'),
+                    cb.like(cb.lower(description), pattern, '\\')
+            );
+        };
+    }
+
+    /**
+     * SQL form of NSFWContentService.canUserViewListing, plus the owner overrides:
+     * the listing's own user and users of the owning business always see it.
+     *
+     * @param viewerId         id of the current user, or null when anonymous
+     * @param viewerBusinessId business the current user belongs to, or null
+     * @param viewerCanSeeNsfw result of NSFWContentService.canUserViewNSFW for the current user
+     */
+    public static Specification<Listing> visibleTo(UUID viewerId, UUID viewerBusinessId, boolean viewerCanSeeNsfw) {
+        return (root, query, cb) -> {
+            // Normal content: neither flagged by the system nor marked 18+ by the seller
+            var visible = cb.and(
+                    cb.isFalse(root.get("nsfwFlagged")),
+                    cb.isFalse(root.get("sellerMarked18Plus"))
+            );
+            if (viewerCanSeeNsfw) {
+                visible = cb.or(visible, cb.equal(root.get("nsfwApprovalStatus"), ContentApprovalStatus.APPROVED));
+            }
+            if (viewerId != null) {
+                visible = cb.or(visible, cb.equal(root.get("user").get("id"), viewerId));
+            }
+            if (viewerBusinessId != null) {
+                visible = cb.or(visible, cb.equal(root.get("business").get("id"), viewerBusinessId));
+            }
+            return visible;
+        };
+    }
+
+    /**
+     * Seek predicate for keyset pagination: rows strictly after the cursor in
+     * (sort column, id) order, so no OFFSET scan is needed for deep pages.
+     */
+    public static Specification<Listing> after(ListingCursor cursor, Sort.Direction direction) {
+        if (cursor == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Path<UUID> id = root.get("id");
+            if (ListingCursor.PRICE.equals(cursor.sortField())) {
+                return seek(cb, root.<Double>get("price"), cursor.priceValue(), id, cursor.id(), direction);
+            }
+            return seek(cb, root.<LocalDateTime>get("createdAt"), cursor.createdAtValue(), id, cursor.id(), direction);
+        };
+    }
+
+    private static <T extends Comparable<? super T>> Predicate seek(CriteriaBuilder cb, Path<T> key, T value,
+                                                                    Path<UUID> id, UUID lastId, Sort.Direction direction) {
+        if (direction.isDescending()) {
+            return cb.or(cb.lessThan(key, value), cb.and(cb.equal(key, value), cb.lessThan(id, lastId)));
+        }
+        return cb.or(cb.greaterThan(key, value), cb.and(cb.equal(key, value), cb.greaterThan(id, lastId)));
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
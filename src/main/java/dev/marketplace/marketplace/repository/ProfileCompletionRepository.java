@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,6 +17,8 @@ public interface ProfileCompletionRepository extends JpaRepository<ProfileComple
 
     Optional<ProfileCompletion> findByUserId(UUID userId);
 
+    List<ProfileCompletion> findByUserIdIn(Collection<UUID> userIds);
+
     @Query("SELECT pc FROM ProfileCompletion pc WHERE pc.completionPercentage >= :minPercentage")
     List<ProfileCompletion> findByMinimumCompletionPercentage(@Param("minPercentage") BigDecimal minPercentage);
     
@@ -1,12 +1,15 @@
 package dev.marketplace.marketplace.repository;
 
 import dev.marketplace.marketplace.model.Review;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -29,6 +32,10 @@ public interface ReviewRepository extends JpaRepository<Review, UUID> {
     @Query("SELECT AVG(r.rating) FROM Review r WHERE r.reviewedUser.id = :userId")
     BigDecimal getAverageRatingByUserId(@Param("userId") UUID userId);
 
+    // Exact sum of ratings, used to seed running aggregates; AVG x COUNT would round
+    @Query("SELECT SUM(r.rating) FROM Review r WHERE r.reviewedUser.id = :userId")
+    BigDecimal sumRatingByUserId(@Param("userId") UUID userId);
+
     @Query("SELECT COUNT(r) FROM Review r WHERE r.reviewedUser.id = :userId")
     Long countReviewsByUserId(@Param("userId") UUID userId);
 
@@ -39,11 +46,40 @@ public interface ReviewRepository extends JpaRepository<Review, UUID> {
     Optional<Review> findByReviewerIdAndTransactionId(@Param("reviewerId") UUID reviewerId,
                                                       @Param("transactionId") UUID transactionId);
 
-    @Query("SELECT r FROM Review r WHERE r.reviewedUser.id = :userId ORDER BY r.createdAt DESC")
-    List<Review> findRecentReviewsByUserId(@Param("userId") UUID userId);
-
     @Query("SELECT r FROM Review r WHERE r.rating >= :minRating ORDER BY r.createdAt DESC")
     List<Review> findReviewsByMinimumRating(@Param("minRating") BigDecimal minRating);
+
+    // Keyset pages of a user's reviews, newest first; positiveOnly narrows to positive reviews
+    @EntityGraph(attributePaths = {"reviewer", "reviewedUser"})
+    @Query("SELECT r FROM Review r WHERE r.reviewedUser.id = :userId AND (:positiveOnly = false OR r.isPositive = true) "
+            + "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findUserReviewsFirst(@Param("userId") UUID userId,
+                                      @Param("positiveOnly") boolean positiveOnly,
+                                      Limit limit);
+
+    // Seek variant of findUserReviewsFirst: rows after the (createdAt, id) cursor
+    @EntityGraph(attributePaths = {"reviewer", "reviewedUser"})
+    @Query("SELECT r FROM Review r WHERE r.reviewedUser.id = :userId AND (:positiveOnly = false OR r.isPositive = true) "
+            + "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) "
+            + "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findUserReviewsAfter(@Param("userId") UUID userId,
+                                      @Param("positiveOnly") boolean positiveOnly,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") UUID id,
+                                      Limit limit);
+
+    @EntityGraph(attributePaths = {"reviewer", "reviewedUser"})
+    @Query("SELECT r FROM Review r WHERE r.rating >= :minRating ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findReviewsByMinimumRatingFirst(@Param("minRating") BigDecimal minRating, Limit limit);
+
+    @EntityGraph(attributePaths = {"reviewer", "reviewedUser"})
+    @Query("SELECT r FROM Review r WHERE r.rating >= :minRating "
+            + "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) "
+            + "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findReviewsByMinimumRatingAfter(@Param("minRating") BigDecimal minRating,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") UUID id,
+                                                 Limit limit);
     
     boolean existsByReviewerIdAndTransactionId(UUID reviewerId, UUID transactionId);
 
@@ -53,9 +89,15 @@ public interface ReviewRepository extends JpaRepository<Review, UUID> {
     @Query("SELECT AVG(r.rating) FROM Review r WHERE r.business.id = :businessId")
     BigDecimal getAverageRatingByBusinessId(@Param("businessId") UUID businessId);
 
+    @Query("SELECT SUM(r.rating) FROM Review r WHERE r.business.id = :businessId")
+    BigDecimal sumRatingByBusinessId(@Param("businessId") UUID businessId);
+
     @Query("SELECT COUNT(r) FROM Review r WHERE r.business.id = :businessId")
     Long countReviewsByBusinessId(@Param("businessId") UUID businessId);
 
+    @Query("SELECT COUNT(r) FROM Review r WHERE r.business.id = :businessId AND r.isPositive = true")
+    Long countPositiveReviewsByBusinessId(@Param("businessId") UUID businessId);
+
     // Platform-wide average rating (used as prior C in Bayesian weighting)
     @Query("SELECT AVG(r.rating) FROM Review r")
     BigDecimal getGlobalAverageRating();
@@ -0,0 +1,70 @@
+package dev.marketplace.marketplace.repository;
+
+import dev.marketplace.marketplace.model.ReviewSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ReviewSummaryRepository extends JpaRepository<ReviewSummary, ReviewSummary.Key> {
+
+    // Row lock so concurrent review changes apply their deltas one after another
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ReviewSummary s WHERE s.subjectType = :subjectType AND s.subjectId = :subjectId")
+    Optional<ReviewSummary> findForUpdate(@Param("subjectType") ReviewSummary.SubjectType subjectType,
+                                          @Param("subjectId") UUID subjectId);
+
+    /**
+     * Creates an empty summary unless one exists, returning 1 if this call created it. A concurrent
+     * first change waits for the creating transaction instead of failing on the primary key.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO review_summary (subject_type, subject_id, review_count, rating_sum, positive_count, updated_at)
+            VALUES (:subjectType, :subjectId, 0, 0, 0, CURRENT_TIMESTAMP)
+            ON CONFLICT (subject_type, subject_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("subjectType") String subjectType, @Param("subjectId") UUID subjectId);
+
+    // Reviewed users whose summary no longer matches the review table, e.g. after the database
+    // removed reviews by ON DELETE CASCADE from a deleted reviewer or transaction
+    @Query(value = """
+            SELECT s.subject_id FROM review_summary s
+            LEFT JOIN (
+                SELECT reviewed_user_id AS subject_id, COUNT(*) AS review_count,
+                       SUM(rating) AS rating_sum, COUNT(*) FILTER (WHERE is_positive) AS positive_count
+                FROM review
+                GROUP BY reviewed_user_id
+            ) r ON r.subject_id = s.subject_id
+            WHERE s.subject_type = 'USER'
+              AND (s.review_count <> COALESCE(r.review_count, 0)
+                   OR s.rating_sum <> COALESCE(r.rating_sum, 0)
+                   OR s.positive_count <> COALESCE(r.positive_count, 0))
+            """, nativeQuery = true)
+    List<UUID> findDriftedUserSummaries();
+
+    // Businesses whose summary no longer matches the review table
+    @Query(value = """
+            SELECT s.subject_id FROM review_summary s
+            LEFT JOIN (
+                SELECT business_id AS subject_id, COUNT(*) AS review_count,
+                       SUM(rating) AS rating_sum, COUNT(*) FILTER (WHERE is_positive) AS positive_count
+                FROM review
+                WHERE business_id IS NOT NULL
+                GROUP BY business_id
+            ) r ON r.subject_id = s.subject_id
+            WHERE s.subject_type = 'BUSINESS'
+              AND (s.review_count <> COALESCE(r.review_count, 0)
+                   OR s.rating_sum <> COALESCE(r.rating_sum, 0)
+                   OR s.positive_count <> COALESCE(r.positive_count, 0))
+            """, nativeQuery = true)
+    List<UUID> findDriftedBusinessSummaries();
+}
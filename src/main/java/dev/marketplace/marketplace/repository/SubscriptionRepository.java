@@ -1,12 +1,14 @@
 package dev.marketplace.marketplace.repository;
 
 import dev.marketplace.marketplace.model.Subscription;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,6 +19,11 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, UUID
     // Find active subscription for a user
     Optional<Subscription> findByUserIdAndStatusIn(UUID userId, List<Subscription.SubscriptionStatus> statuses);
 
+    // Active subscriptions for several users at once, newest first, for batched GraphQL resolution
+    @Query("SELECT s FROM Subscription s WHERE s.user.id IN :userIds AND s.status IN :statuses ORDER BY s.createdAt DESC")
+    List<Subscription> findByUserIdInAndStatusIn(@Param("userIds") Collection<UUID> userIds,
+                                                 @Param("statuses") List<Subscription.SubscriptionStatus> statuses);
+
     // Find by Stripe subscription ID
     Optional<Subscription> findByStripeSubscriptionId(String stripeSubscriptionId);
     
@@ -31,6 +38,18 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, UUID
     List<Subscription> findExpiringSubscriptions(@Param("startDate") LocalDateTime startDate, 
                                                 @Param("endDate") LocalDateTime endDate);
     
+    // One keyset page of the same, with the user fetched, for the chunked scheduled scan. Seeks past
+    // (afterPeriodEnd, afterId) in the order of idx_subscription_active_period_end, so each page is an
+    // index range scan; the first page passes the start of the range and the smallest id.
+    @Query("SELECT s FROM Subscription s LEFT JOIN FETCH s.user " +
+           "WHERE s.status = 'ACTIVE' AND s.currentPeriodEnd >= :afterPeriodEnd AND s.currentPeriodEnd <= :endDate " +
+           "AND (s.currentPeriodEnd > :afterPeriodEnd OR s.id > :afterId) " +
+           "ORDER BY s.currentPeriodEnd, s.id")
+    List<Subscription> findExpiringSubscriptionsAfter(@Param("afterPeriodEnd") LocalDateTime afterPeriodEnd,
+                                                      @Param("afterId") UUID afterId,
+                                                      @Param("endDate") LocalDateTime endDate,
+                                                      Pageable pageable);
+
     // Find subscriptions that need renewal
     @Query("SELECT s FROM Subscription s WHERE s.currentPeriodEnd <= :date AND s.status = 'ACTIVE'")
     List<Subscription> findSubscriptionsNeedingRenewal(@Param("date") LocalDateTime date);
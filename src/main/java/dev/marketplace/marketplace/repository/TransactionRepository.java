@@ -1,6 +1,7 @@
 package dev.marketplace.marketplace.repository;
 
 import dev.marketplace.marketplace.model.Transaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -58,4 +59,20 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
 
     // Find transactions by multiple listings
     List<Transaction> findByListingIdIn(List<UUID> listingIds);
+
+    // All of a business's transactions, newest sale first
+    List<Transaction> findByBusinessIdOrderBySaleDateDescIdDesc(UUID businessId);
+
+    // Page of a business's transactions, newest sale first
+    List<Transaction> findByBusinessIdOrderBySaleDateDescIdDesc(UUID businessId, Pageable pageable);
+
+    // Transaction count per status for a business
+    @Query("SELECT t.status AS status, COUNT(t) AS count FROM Transaction t WHERE t.business.id = :businessId GROUP BY t.status")
+    List<StatusCount> countByBusinessIdGroupByStatus(@Param("businessId") UUID businessId);
+
+    interface StatusCount {
+        Transaction.TransactionStatus getStatus();
+
+        long getCount();
+    }
 }
@@ -1,12 +1,15 @@
 package dev.marketplace.marketplace.repository;
 
 import dev.marketplace.marketplace.model.TrustRating;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,6 +19,13 @@ public interface TrustRatingRepository extends JpaRepository<TrustRating, UUID>
 
     Optional<TrustRating> findByUserId(UUID userId);
 
+    List<TrustRating> findByUserIdIn(Collection<UUID> userIds);
+
+    // Row lock so concurrent review/transaction events apply their deltas one after another
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT tr FROM TrustRating tr WHERE tr.user.id = :userId")
+    Optional<TrustRating> findByUserIdForUpdate(@Param("userId") UUID userId);
+
     @Query("SELECT tr FROM TrustRating tr WHERE tr.overallScore >= :minScore ORDER BY tr.overallScore DESC")
     List<TrustRating> findByMinimumScore(@Param("minScore") BigDecimal minScore);
     
@@ -14,6 +14,7 @@ import java.util.UUID;
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
+    Optional<User> findByEmailVerificationToken(String emailVerificationTokenHash);
     boolean existsByUsernameAndIdNot(String username, UUID id);
     boolean existsByEmailAndIdNot(String email, UUID id);
     List<User> findByUsernameContainingIgnoreCaseOrEmailContainingIgnoreCase(String username, String email);
@@ -28,6 +28,8 @@ import java.util.UUID;
 @Slf4j
 public class BusinessQueryResolver {
 
+    private static final int DEFAULT_BUSINESS_TRANSACTIONS_LIMIT = 50;
+
     private final BusinessService businessService;
     private final UserService userService;
     private final TransactionService transactionService;
@@ -107,14 +109,16 @@ public class BusinessQueryResolver {
     }
 
     @QueryMapping
-    public List<dev.marketplace.marketplace.model.Transaction> getBusinessTransactions(@Argument UUID businessId) {
-        // Find all listings for the business
-        List<dev.marketplace.marketplace.model.Listing> listings = businessService.getListingsForBusiness(businessId);
-        if (listings == null || listings.isEmpty()) return List.of();
-        // Collect all listing IDs
-        List<UUID> listingIds = listings.stream().map(dev.marketplace.marketplace.model.Listing::getId).toList();
-        // Fetch all transactions for these listings
-        return transactionService.getTransactionsByListingIds(listingIds);
+    public List<dev.marketplace.marketplace.model.Transaction> getBusinessTransactions(@Argument UUID businessId,
+                                                                                      @Argument Integer limit,
+                                                                                      @Argument Integer offset) {
+        // Clients that predate paging pass neither argument and still expect every transaction
+        if (limit == null && offset == null) {
+            return transactionService.getBusinessTransactions(businessId);
+        }
+        return transactionService.getBusinessTransactions(businessId,
+                limit != null ? limit : DEFAULT_BUSINESS_TRANSACTIONS_LIMIT,
+                offset != null ? offset : 0);
     }
 
     @SchemaMapping(typeName = "Business", field = "trustRating")
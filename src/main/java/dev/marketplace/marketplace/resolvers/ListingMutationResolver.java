@@ -64,5 +64,12 @@ public class ListingMutationResolver {
         return listingService.markListingAsSold(id, userId);
     }
 
+    @MutationMapping
+    public Listing renewListing(@Argument UUID listingId,
+                                @AuthenticationPrincipal UserDetails userDetails) {
+        UUID userId = userService.getUserIdByUsername(userDetails.getUsername());
+        return listingService.renewListing(listingId, userId);
+    }
+
 
 }
@@ -5,6 +5,7 @@ import dev.marketplace.marketplace.dto.ListingPageResponse;
 import dev.marketplace.marketplace.service.ListingService;
 import dev.marketplace.marketplace.service.UserService;
 import dev.marketplace.marketplace.service.ListingImageService;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
@@ -20,6 +21,8 @@ import java.util.UUID;
 @CrossOrigin(origins = "http://localhost:3000")
 @Controller
 public class ListingQueryResolver {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
     private final ListingService listingService;
     private final UserService userService;
     private final ListingImageService listingImageService;
@@ -48,12 +51,15 @@ public class ListingQueryResolver {
             @Argument String sortOrder,
             @Argument UUID userId,
             @Argument UUID businessId,
-            @AuthenticationPrincipal UserDetails userDetails  // Add user context
+            @Argument Integer first,
+            @Argument String after,
+            @AuthenticationPrincipal UserDetails userDetails,  // Add user context
+            DataFetchingFieldSelectionSet selectionSet
     ) {
         // ...existing slug resolution code...
         if (categoryId == null && categorySlug != null && !categorySlug.isBlank()) {
             try {
-                categoryId = listingService.getCategoryService().findBySlug(categorySlug).getId();
+                categoryId = listingService.getCategoryService().findIdBySlug(categorySlug);
             } catch (Exception e) {
                 throw new RuntimeException("Category not found with slug: " + categorySlug, e);
             }
@@ -103,9 +109,31 @@ public class ListingQueryResolver {
             currentUser = userService.getUserById(currentUserId);
         }
 
+        if (first != null) {
+            return listingService.getListingsConnection(
+                first,
+                after,
+                categoryId,
+                minPrice,
+                maxPrice,
+                conditionEnum,
+                cityId,
+                searchTerm,
+                minDateTime,
+                maxDateTime,
+                sortBy,
+                sortOrder,
+                userId,
+                businessId,
+                currentUser,
+                selectionSet.contains("totalCount")
+            );
+        }
+
+        // limit/offset became optional when cursor arguments were added; never fall back to an unpaged scan
         return listingService.getListingsWithFilters(
-            limit,
-            offset,
+            limit != null ? limit : DEFAULT_PAGE_SIZE,
+            offset != null ? offset : 0,
             categoryId,
             minPrice,
             maxPrice,
@@ -137,27 +165,25 @@ public class ListingQueryResolver {
     public ListingPageResponse myListings(
             @AuthenticationPrincipal UserDetails userDetails,
             @Argument Integer limit,
-            @Argument Integer offset
+            @Argument Integer offset,
+            @Argument Integer first,
+            @Argument String after,
+            DataFetchingFieldSelectionSet selectionSet
     ) {
         // Use the UserService method that returns the user's UUID to avoid loading the User entity here
         UUID userId = userService.getUserIdByUsername(userDetails.getUsername());
-        List<ListingDTO> allListings = listingService.getListingsByUserId(userId);
-        int totalCount = allListings.size();
-        
+
+        if (first != null) {
+            return listingService.getOwnListingsConnection(userId, first, after, selectionSet.contains("totalCount"));
+        }
+
         // Apply pagination if parameters are provided
         if (limit != null && offset != null) {
-            int startIndex = offset;
-            int endIndex = Math.min(startIndex + limit, allListings.size());
-            
-            if (startIndex >= allListings.size()) {
-                return new ListingPageResponse(List.of(), totalCount); // Return empty list if offset is beyond available items
-            }
-            
-            List<ListingDTO> paginatedListings = allListings.subList(startIndex, endIndex);
-            return new ListingPageResponse(paginatedListings, totalCount);
+            return listingService.getOwnListingsPage(userId, limit, offset);
         }
-        
-        return new ListingPageResponse(allListings, totalCount);
+
+        List<ListingDTO> allListings = listingService.getListingsByUserId(userId);
+        return new ListingPageResponse(allListings, allListings.size());
     }
 
     @QueryMapping
@@ -180,4 +206,26 @@ public class ListingQueryResolver {
         return List.of();
     }
 
+    @SchemaMapping(typeName = "Listing", field = "thumbnailUrls")
+    public List<String> resolveThumbnailUrls(Object listingObj) {
+        if (listingObj instanceof ListingDTO dto) {
+            return dto.thumbnailUrls();
+        } else if (listingObj instanceof dev.marketplace.marketplace.model.Listing listing) {
+            return listingImageService.generateThumbnailUrls(listing.getImages(),
+                    listingImageService.derivedImages(List.of(listing)));
+        }
+        return List.of();
+    }
+
+    @SchemaMapping(typeName = "Listing", field = "mediumUrls")
+    public List<String> resolveMediumUrls(Object listingObj) {
+        if (listingObj instanceof ListingDTO dto) {
+            return dto.mediumUrls();
+        } else if (listingObj instanceof dev.marketplace.marketplace.model.Listing listing) {
+            return listingImageService.generateMediumUrls(listing.getImages(),
+                    listingImageService.derivedImages(List.of(listing)));
+        }
+        return List.of();
+    }
+
 }
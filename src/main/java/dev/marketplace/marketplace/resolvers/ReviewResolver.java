@@ -1,5 +1,6 @@
 package dev.marketplace.marketplace.resolvers;
 
+import dev.marketplace.marketplace.dto.ReviewConnection;
 import dev.marketplace.marketplace.model.Review;
 import dev.marketplace.marketplace.dto.UserDTO;
 import dev.marketplace.marketplace.mapper.UserMapper;
@@ -154,6 +155,27 @@ public class ReviewResolver {
     public List<Review> getReviewsByMinimumRating(@Argument BigDecimal minRating) {
         return reviewService.getReviewsByMinimumRating(minRating);
     }
+    /**
+     * Page of reviews a user received, newest first
+     */
+    @QueryMapping
+    public ReviewConnection getUserReviewsPage(@Argument UUID userId, @Argument int first, @Argument String after) {
+        return reviewService.getUserReviewsConnection(userId, false, first, after);
+    }
+    /**
+     * Page of positive reviews a user received, newest first
+     */
+    @QueryMapping
+    public ReviewConnection getUserPositiveReviewsPage(@Argument UUID userId, @Argument int first, @Argument String after) {
+        return reviewService.getUserReviewsConnection(userId, true, first, after);
+    }
+    /**
+     * Page of reviews with at least the given rating, newest first
+     */
+    @QueryMapping
+    public ReviewConnection getReviewsByMinimumRatingPage(@Argument BigDecimal minRating, @Argument int first, @Argument String after) {
+        return reviewService.getReviewsByMinimumRatingConnection(minRating, first, after);
+    }
     /**
      * Get reviews for a user (reviews they received)
      */
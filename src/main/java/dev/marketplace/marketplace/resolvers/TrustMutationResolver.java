@@ -0,0 +1,25 @@
+package dev.marketplace.marketplace.resolvers;
+
+import dev.marketplace.marketplace.dto.TrustRecalculationStatus;
+import dev.marketplace.marketplace.service.TrustRecalculationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.graphql.data.method.annotation.MutationMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+
+@Controller
+@RequiredArgsConstructor
+public class TrustMutationResolver {
+
+    private final TrustRecalculationService trustRecalculationService;
+
+    /**
+     * Start recomputing every user and business trust rating in the background, e.g. after a
+     * trust model weight change. Poll trustRecalculationStatus for the outcome.
+     */
+    @MutationMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public TrustRecalculationStatus recalculateAllTrustRatings() {
+        return trustRecalculationService.startRecalculation();
+    }
+}
@@ -1,13 +1,16 @@
 package dev.marketplace.marketplace.resolvers;
 
+import dev.marketplace.marketplace.dto.TrustRecalculationStatus;
 import dev.marketplace.marketplace.model.TrustRating;
 import dev.marketplace.marketplace.model.VerificationDocument;
 import dev.marketplace.marketplace.service.TrustRatingService;
+import dev.marketplace.marketplace.service.TrustRecalculationService;
 import dev.marketplace.marketplace.service.VerificationDocumentService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 
 import java.util.List;
@@ -19,6 +22,7 @@ public class TrustQueryResolver {
     
     private final TrustRatingService trustRatingService;
     private final VerificationDocumentService verificationDocumentService;
+    private final TrustRecalculationService trustRecalculationService;
     
     /**
      * Get trust rating for a user
@@ -28,6 +32,15 @@ public class TrustQueryResolver {
         return trustRatingService.getTrustRating(userId);
     }
     
+    /**
+     * Progress of the background bulk trust recalculation (admin only)
+     */
+    @QueryMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public TrustRecalculationStatus trustRecalculationStatus() {
+        return trustRecalculationService.getStatus();
+    }
+
     /**
      * Resolve userId field for TrustRating
      */
@@ -13,14 +13,16 @@ import dev.marketplace.marketplace.service.TrustRatingService;
 import dev.marketplace.marketplace.service.VerificationDocumentService;
 import dev.marketplace.marketplace.service.ListingService;
 import dev.marketplace.marketplace.repository.ProfileCompletionRepository;
-import dev.marketplace.marketplace.repository.StoreBrandingRepository;
-import dev.marketplace.marketplace.repository.BusinessRepository;
+import dev.marketplace.marketplace.repository.BusinessUserRepository;
+import dev.marketplace.marketplace.enums.BusinessUserRole;
+import dev.marketplace.marketplace.model.BusinessUser;
 import dev.marketplace.marketplace.repository.CityRepository;
 import dev.marketplace.marketplace.model.Business;
 import dev.marketplace.marketplace.model.City;
 import dev.marketplace.marketplace.model.Subscription;
 import dev.marketplace.marketplace.service.SubscriptionService;
 import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -31,10 +33,15 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import dev.marketplace.marketplace.model.StoreBranding;
 
 @CrossOrigin(origins = "http://localhost:3000")
@@ -45,9 +52,8 @@ public class UserQueryResolver {
     private final TrustRatingService trustRatingService;
     private final VerificationDocumentService verificationDocumentService;
     private final ProfileCompletionRepository profileCompletionRepository;
-    private final StoreBrandingRepository storeBrandingRepository;
     private final ListingService listingService;
-    private final BusinessRepository businessRepository;
+    private final BusinessUserRepository businessUserRepository;
     private final SubscriptionService subscriptionService;
     private final CityRepository cityRepository;
 
@@ -137,10 +143,16 @@ public class UserQueryResolver {
         return null;
     }
 
-    @SchemaMapping(typeName = "User", field = "trustRating")
-    public TrustRating resolveTrustRating(Object userObj) {
-        UserDTO user = userObj instanceof UserDTO ? (UserDTO) userObj : UserMapper.toDto((User) userObj);
-        return trustRatingService.getTrustRating(user.getId());
+    /*
+     * The batch mappings below receive every User in the current selection at once (sources may be
+     * UserDTO or User) and load the field for all of them with one IN query, returning the values
+     * in the same order as the sources.
+     */
+    @BatchMapping(typeName = "User", field = "trustRating")
+    public List<TrustRating> resolveTrustRating(List<Object> users) {
+        List<UUID> ids = userIds(users);
+        Map<UUID, TrustRating> ratings = trustRatingService.getTrustRatings(new LinkedHashSet<>(ids));
+        return ids.stream().map(ratings::get).toList();
     }
 
     @SchemaMapping(typeName = "User", field = "verificationDocuments")
@@ -149,42 +161,35 @@ public class UserQueryResolver {
         return verificationDocumentService.getUserDocuments(user.getId());
     }
 
-    @SchemaMapping(typeName = "User", field = "profileCompletion")
-    public ProfileCompletion resolveProfileCompletion(Object userObj) {
-        UserDTO user = userObj instanceof UserDTO ? (UserDTO) userObj : UserMapper.toDto((User) userObj);
-        return profileCompletionRepository.findByUserId(user.getId()).orElse(null);
+    @BatchMapping(typeName = "User", field = "profileCompletion")
+    public List<ProfileCompletion> resolveProfileCompletion(List<Object> users) {
+        List<UUID> ids = userIds(users);
+        Map<UUID, ProfileCompletion> completions = new HashMap<>();
+        for (ProfileCompletion completion : profileCompletionRepository.findByUserIdIn(new LinkedHashSet<>(ids))) {
+            completions.put(completion.getUser().getId(), completion);
+        }
+        return ids.stream().map(completions::get).toList();
     }
 
-    @SchemaMapping(typeName = "User", field = "planType")
-    public String resolvePlanType(Object userObj) {
-        UserDTO user = userObj instanceof UserDTO ? (UserDTO) userObj : UserMapper.toDto((User) userObj);
-        Optional<Subscription> activeSub = subscriptionService.getActiveSubscription(user.getId());
-        return activeSub.map(sub -> sub.getPlanType() != null ? sub.getPlanType().name() : null).orElse(null);
+    @BatchMapping(typeName = "User", field = "planType")
+    public List<String> resolvePlanType(List<Object> users) {
+        List<UUID> ids = userIds(users);
+        Map<UUID, Subscription> activeSubs = subscriptionService.getActiveSubscriptionsByUserIds(new LinkedHashSet<>(ids));
+        return ids.stream()
+                .map(id -> Optional.ofNullable(activeSubs.get(id))
+                        .map(sub -> sub.getPlanType() != null ? sub.getPlanType().name() : null)
+                        .orElse(null))
+                .toList();
     }
 
-    @SchemaMapping(typeName = "User", field = "storeBranding")
-    public dev.marketplace.marketplace.model.StoreBranding resolveStoreBranding(Object userObj) {
-        UserDTO user = userObj instanceof UserDTO ? (UserDTO) userObj : UserMapper.toDto((User) userObj);
-        // Fetch User entity to use repository methods that expect User
-        Optional<User> userEntityOpt = userService.findById(user.getId());
-        if (userEntityOpt.isEmpty()) return null;
-        User userEntity = userEntityOpt.get();
-        // Try to find business where user is owner
-        Optional<Business> ownedBusiness = businessRepository.findOwnedByUser(userEntity);
-        Business business = null;
-        if (ownedBusiness.isPresent()) {
-            business = ownedBusiness.get();
-        } else {
-            // Optionally, return first business where user is a team member
-            List<Business> businesses = businessRepository.findByUser(userEntity);
-            if (!businesses.isEmpty()) {
-                business = businesses.get(0);
-            }
-        }
-        if (business != null) {
-            return storeBrandingRepository.findByBusiness(business).orElse(null);
-        }
-        return null;
+    @BatchMapping(typeName = "User", field = "storeBranding")
+    @Transactional(readOnly = true)
+    public List<StoreBranding> resolveStoreBranding(List<Object> users) {
+        List<UUID> ids = userIds(users);
+        Map<UUID, Business> businesses = findBusinessesByUserId(ids);
+        return ids.stream()
+                .map(id -> Optional.ofNullable(businesses.get(id)).map(Business::getStoreBranding).orElse(null))
+                .toList();
     }
 
     @SchemaMapping(typeName = "StoreBranding", field = "storeName")
@@ -192,38 +197,49 @@ public class UserQueryResolver {
         return branding.getStoreName();
     }
 
-    @SchemaMapping(typeName = "User", field = "listings")
-    public List<ListingDTO> getListings(Object userObj) {
-        UserDTO user = userObj instanceof UserDTO ? (UserDTO) userObj : UserMapper.toDto((User) userObj);
-        return listingService.getListingsByUserId(user.getId());
+    @BatchMapping(typeName = "User", field = "listings")
+    public List<List<ListingDTO>> getListings(List<Object> users) {
+        List<UUID> ids = userIds(users);
+        Map<UUID, List<ListingDTO>> listings = listingService.getListingsByUserIds(new LinkedHashSet<>(ids));
+        return ids.stream().map(listings::get).toList();
     }
 
-    @SchemaMapping(typeName = "User", field = "business")
+    @BatchMapping(typeName = "User", field = "business")
     @Transactional(readOnly = true)
-    public Business resolveBusiness(Object userObj) {
-        UserDTO user = userObj instanceof UserDTO ? (UserDTO) userObj : UserMapper.toDto((User) userObj);
-        // Use the user service to find the user with eager loading of businesses
-        Optional<User> userEntityOpt = userService.findById(user.getId());
-        if (userEntityOpt.isEmpty()) {
-            return null;
-        }
-        User userEntity = userEntityOpt.get();
+    public List<Business> resolveBusiness(List<Object> users) {
+        List<UUID> ids = userIds(users);
+        Map<UUID, Business> businesses = findBusinessesByUserId(ids);
+        return ids.stream().map(businesses::get).toList();
+    }
 
-        // Try to find business where user is owner
-        Optional<Business> ownedBusiness = businessRepository.findOwnedByUser(userEntity);
-        if (ownedBusiness.isPresent()) {
-            return ownedBusiness.get();
-        }
+    @BatchMapping(typeName = "User", field = "subscription")
+    public List<Subscription> resolveSubscription(List<Object> users) {
+        List<UUID> ids = userIds(users);
+        Map<UUID, Subscription> activeSubs = subscriptionService.getActiveSubscriptionsByUserIds(new LinkedHashSet<>(ids));
+        return ids.stream().map(activeSubs::get).toList();
+    }
 
-        // Try to find first business where user is a team member
-        List<Business> businesses = businessRepository.findByUser(userEntity);
-        return businesses.isEmpty() ? null : businesses.get(0);
+    /**
+     * Each user's business: the one they own, otherwise the first one they are a member of.
+     * Loaded with its store branding in a single query.
+     */
+    private Map<UUID, Business> findBusinessesByUserId(List<UUID> userIds) {
+        Map<UUID, Business> businesses = new HashMap<>();
+        for (BusinessUser membership : businessUserRepository.findWithBusinessByUserIdIn(new LinkedHashSet<>(userIds))) {
+            UUID userId = membership.getUser().getId();
+            if (membership.getRole() == BusinessUserRole.OWNER) {
+                businesses.put(userId, membership.getBusiness());
+            } else {
+                businesses.putIfAbsent(userId, membership.getBusiness());
+            }
+        }
+        return businesses;
     }
 
-    @SchemaMapping(typeName = "User", field = "subscription")
-    public Subscription resolveSubscription(Object userObj) {
-        UserDTO user = userObj instanceof UserDTO ? (UserDTO) userObj : UserMapper.toDto((User) userObj);
-        return subscriptionService.getActiveSubscription(user.getId()).orElse(null);
+    private static List<UUID> userIds(List<Object> users) {
+        return users.stream()
+                .map(userObj -> userObj instanceof UserDTO ? ((UserDTO) userObj).getId() : ((User) userObj).getId())
+                .toList();
     }
 
     /**
@@ -291,9 +307,8 @@ public class UserQueryResolver {
         TrustRatingService trustRatingService,
         VerificationDocumentService verificationDocumentService,
         ProfileCompletionRepository profileCompletionRepository,
-        StoreBrandingRepository storeBrandingRepository,
         ListingService listingService,
-        BusinessRepository businessRepository,
+        BusinessUserRepository businessUserRepository,
         SubscriptionService subscriptionService,
         CityRepository cityRepository
     ) {
@@ -301,9 +316,8 @@ public class UserQueryResolver {
         this.trustRatingService = trustRatingService;
         this.verificationDocumentService = verificationDocumentService;
         this.profileCompletionRepository = profileCompletionRepository;
-        this.storeBrandingRepository = storeBrandingRepository;
         this.listingService = listingService;
-        this.businessRepository = businessRepository;
+        this.businessUserRepository = businessUserRepository;
         this.subscriptionService = subscriptionService;
         this.cityRepository = cityRepository;
     }
@@ -311,11 +325,18 @@ public class UserQueryResolver {
     /**
      * Resolves User.city so that clients get the full City (id, name, region) when User is returned as UserDTO.
      */
-    @SchemaMapping(typeName = "User", field = "city")
-    public City resolveCity(Object userObj) {
-        UserDTO user = userObj instanceof UserDTO ? (UserDTO) userObj : UserMapper.toDto((User) userObj);
-        if (user.getCityId() == null) return null;
-        return cityRepository.findById(user.getCityId()).orElse(null);
+    @BatchMapping(typeName = "User", field = "city")
+    public List<City> resolveCity(List<Object> users) {
+        List<UUID> cityIds = users.stream()
+                .map(userObj -> userObj instanceof UserDTO ? (UserDTO) userObj : UserMapper.toDto((User) userObj))
+                .map(UserDTO::getCityId)
+                .toList();
+        Set<UUID> distinctCityIds = cityIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<UUID, City> cities = new HashMap<>();
+        if (!distinctCityIds.isEmpty()) {
+            cityRepository.findAllById(distinctCityIds).forEach(city -> cities.put(city.getId(), city));
+        }
+        return cityIds.stream().map(cityId -> cityId == null ? null : cities.get(cityId)).toList();
     }
 
     @QueryMapping
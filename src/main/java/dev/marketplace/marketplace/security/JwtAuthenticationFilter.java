@@ -1,5 +1,6 @@
 package dev.marketplace.marketplace.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -59,7 +60,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         try {
-            String email = jwtUtil.extractEmail(jwt);
+            // Single verification; repeat requests with the same token are served from JwtUtil's claims cache
+            Claims claims = null;
+            try {
+                claims = jwtUtil.parseVerifiedClaims(jwt);
+            } catch (Exception e) {
+                log.warn("Error validating JWT token: {}", e.getMessage());
+            }
+            String email = claims != null ? claims.getSubject() : null;
             log.debug("Extracted email from token: {}", email);
 
             if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
@@ -71,76 +79,67 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     log.warn("UserDetails lookup failed for email '{}': {}", email, e.getMessage());
                 }
 
-                // Validate token first, then build auth. If UserDetails is available use it; otherwise create a lightweight Authentication
-                boolean valid = false;
-                try {
-                    valid = jwtUtil.validateToken(jwt);
-                } catch (Exception e) {
-                    log.warn("Error validating JWT token: {}", e.getMessage());
+                // Token is already verified; if UserDetails is available use it, otherwise create a lightweight Authentication
+                UsernamePasswordAuthenticationToken authToken;
+                if (userDetails != null) {
+                    authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    log.debug("Authenticated using UserDetails for {}", email);
+                } else {
+                    // Fallback: create lightweight principal so security context is populated and resolvers won't see anonymousUser
+                    authToken = new UsernamePasswordAuthenticationToken(email, null,
+                            List.of(new SimpleGrantedAuthority("ROLE_USER")));
+                    log.debug("UserDetails not found; created lightweight auth for {}", email);
                 }
 
-                if (valid) {
-                    UsernamePasswordAuthenticationToken authToken;
-                    if (userDetails != null) {
-                        authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                        log.debug("Authenticated using UserDetails for {}", email);
-                    } else {
-                        // Fallback: create lightweight principal so security context is populated and resolvers won't see anonymousUser
-                        authToken = new UsernamePasswordAuthenticationToken(email, null,
-                                List.of(new SimpleGrantedAuthority("ROLE_USER")));
-                        log.debug("UserDetails not found; created lightweight auth for {}", email);
-                    }
-
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-
-                    // If token came from Authorization header and there's no auth cookie, emit one so browser persists it.
-                    boolean hasAuthCookie = false;
-                    if (request.getCookies() != null) {
-                        for (var c : request.getCookies()) {
-                            if (c == null) continue;
-                            String name = c.getName();
-                            if (name == null) continue;
-                            if ("auth-token".equalsIgnoreCase(name) || "jwt".equalsIgnoreCase(name) || "auth-token-dev".equalsIgnoreCase(name)) {
-                                hasAuthCookie = true;
-                                break;
-                            }
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+
+                // If token came from Authorization header and there's no auth cookie, emit one so browser persists it.
+                boolean hasAuthCookie = false;
+                if (request.getCookies() != null) {
+                    for (var c : request.getCookies()) {
+                        if (c == null) continue;
+                        String name = c.getName();
+                        if (name == null) continue;
+                        if ("auth-token".equalsIgnoreCase(name) || "jwt".equalsIgnoreCase(name) || "auth-token-dev".equalsIgnoreCase(name)) {
+                            hasAuthCookie = true;
+                            break;
                         }
                     }
+                }
 
-                    if (tokenFromAuthHeader && !hasAuthCookie) {
-                        // decide cookie attributes same as other code: don't add Secure on localhost unless request is secure
-                        String host = request.getServerName();
-                        boolean isLocalhost = "localhost".equalsIgnoreCase(host) || "127.0.0.1".equals(host);
-                        boolean isSecure = request.isSecure() || "https".equalsIgnoreCase(request.getHeader("X-Forwarded-Proto"));
-                        boolean addSecure = isSecure && !isLocalhost;
-                        String sameSite = isSecure ? "None" : "Lax";
-
-                        StringBuilder sb = new StringBuilder();
-                        sb.append("auth-token=").append(jwt);
-                        sb.append("; Path=/");
-                        sb.append("; HttpOnly");
-                        if (addSecure) {
-                            sb.append("; Secure");
-                        }
-                        sb.append("; SameSite=").append(sameSite);
-                        // optional: set Max-Age if you want persistent cookie (omitted -> session cookie)
-
-                        String header = sb.toString();
-                        response.addHeader("Set-Cookie", header);
-                        log.debug("Emitted auth cookie from JwtAuthenticationFilter: {}", header);
-
-                        // For local dev, also emit a non-HttpOnly dev cookie and dev header so SPA can persist/send token if browser blocked HttpOnly cookie
-                        if (isLocalhost) {
-                            String devHeaderCookie = "auth-token-dev=" + jwt + "; Path=/; SameSite=Lax";
-                            response.addHeader("Set-Cookie", devHeaderCookie);
-                            response.addHeader("X-DEV-AUTH-TOKEN", jwt);
-                            log.debug("Emitted dev auth cookie and header for localhost: {}", devHeaderCookie);
-                        }
+                if (tokenFromAuthHeader && !hasAuthCookie) {
+                    // decide cookie attributes same as other code: don't add Secure on localhost unless request is secure
+                    String host = request.getServerName();
+                    boolean isLocalhost = "localhost".equalsIgnoreCase(host) || "127.0.0.1".equals(host);
+                    boolean isSecure = request.isSecure() || "https".equalsIgnoreCase(request.getHeader("X-Forwarded-Proto"));
+                    boolean addSecure = isSecure && !isLocalhost;
+                    String sameSite = isSecure ? "None" : "Lax";
+
+                    StringBuilder sb = new StringBuilder();
+                    sb.append("auth-token=").append(jwt);
+                    sb.append("; Path=/");
+                    sb.append("; HttpOnly");
+                    if (addSecure) {
+                        sb.append("; Secure");
+                    }
+                    sb.append("; SameSite=").append(sameSite);
+                    // optional: set Max-Age if you want persistent cookie (omitted -> session cookie)
+
+                    String header = sb.toString();
+                    response.addHeader("Set-Cookie", header);
+                    log.debug("Emitted auth cookie from JwtAuthenticationFilter: {}", header);
+
+                    // For local dev, also emit a non-HttpOnly dev cookie and dev header so SPA can persist/send token if browser blocked HttpOnly cookie
+                    if (isLocalhost) {
+                        String devHeaderCookie = "auth-token-dev=" + jwt + "; Path=/; SameSite=Lax";
+                        response.addHeader("Set-Cookie", devHeaderCookie);
+                        response.addHeader("X-DEV-AUTH-TOKEN", jwt);
+                        log.debug("Emitted dev auth cookie and header for localhost: {}", devHeaderCookie);
                     }
-                } else {
-                    log.debug("JWT not valid for token/email: tokenPresent={}, email={}", jwt != null, email);
                 }
+            } else if (claims == null) {
+                log.debug("JWT not valid for token: tokenPresent={}", jwt != null);
             }
         } catch (Exception e) {
             log.warn("Error processing JWT token: {}", e.getMessage());
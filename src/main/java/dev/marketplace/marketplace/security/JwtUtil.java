@@ -1,15 +1,25 @@
 package dev.marketplace.marketplace.security;
 
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.jackson.io.JacksonSerializer;
 import io.jsonwebtoken.jackson.io.JacksonDeserializer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 import java.util.function.Function;
 import java.util.UUID;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
@@ -26,8 +36,20 @@ public class JwtUtil {
     @Value("${jwt.secret}")
     private String secret;
 
+    // Upper bound on cached verified tokens; once reached, the cache evicts the entries least likely to be reused
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private int claimsCacheMaxSize = 10000;
+
     private static final long EXPIRATION_TIME = 1000 * 60 * 60 * 24;
 
+    // Built once from the secret; both are immutable and thread-safe
+    private volatile SecretKey signingKey;
+    private volatile JwtParser parser;
+
+    // Verified claims keyed by SHA-256 of the token, so repeat requests with the same token skip signature verification.
+    // Reads are lock-free; each entry expires with its token.
+    private volatile Cache<String, CachedClaims> verifiedClaims;
+
     @PostConstruct
     public void init() {
         logger.info("JwtUtil initialized with secret: {}", secret != null ? "NOT NULL" : "NULL");
@@ -39,11 +61,19 @@ public class JwtUtil {
         } else {
             logger.warn("JWT secret is null or too short: {}", secret);
         }
+        verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(Expiry.creating((String key, CachedClaims cached) ->
+                        Duration.ofMillis(Math.max(0, cached.expiresAtMillis() - System.currentTimeMillis()))))
+                .build();
+        if (secret != null && !secret.isBlank()) {
+            // Fail here rather than on the first request if the secret is not usable
+            getParser();
+        }
     }
 
     public String generateToken(String email, String role, UUID userId) {
         logger.debug("Generating JWT token for user: {} (ID: {}, Role: {})", email, userId, role);
-        logger.debug("Using JWT secret: {}", secret);
         try {
             String token = Jwts.builder()
                     .subject(email)
@@ -75,63 +105,113 @@ public class JwtUtil {
 
     // Robustly extract userId: handle String or UUID claim values and return UUID
     public UUID extractUserId(String token) {
-        return extractClaim(token, claims -> {
-            Object val = claims.get("userId");
-            if (val == null) return null;
-            if (val instanceof UUID) {
-                return (UUID) val;
-            }
-            // Most tokens store userId as String
-            if (val instanceof String) {
-                try {
-                    return UUID.fromString((String) val);
-                } catch (IllegalArgumentException e) {
-                    logger.warn("userId claim is a string but not a UUID: {}", val);
-                    return null;
-                }
-            }
-            // Fallback: use toString
+        return extractClaim(token, JwtUtil::userIdOf);
+    }
+
+    /**
+     * Verifies the token's signature and expiry and returns its claims, parsing each distinct
+     * token at most once while it is valid. Callers that need several claims should use this
+     * rather than the individual extract methods.
+     *
+     * @throws JwtException if the token is malformed, tampered with or expired
+     */
+    public Claims parseVerifiedClaims(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("JWT token is empty");
+        }
+        String cacheKey = cacheKey(token);
+        CachedClaims cached = verifiedClaims.getIfPresent(cacheKey);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            return cached.claims();
+        }
+
+        Claims claims = getParser().parseSignedClaims(token).getPayload();
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            verifiedClaims.put(cacheKey, new CachedClaims(claims, expiration.getTime()));
+        }
+        return claims;
+    }
+
+    public static UUID userIdOf(Claims claims) {
+        Object val = claims.get("userId");
+        if (val == null) return null;
+        if (val instanceof UUID) {
+            return (UUID) val;
+        }
+        // Most tokens store userId as String
+        if (val instanceof String) {
             try {
-                return UUID.fromString(val.toString());
-            } catch (Exception e) {
-                logger.warn("Unable to convert userId claim to UUID (value={}): {}", val, e.getMessage());
+                return UUID.fromString((String) val);
+            } catch (IllegalArgumentException e) {
+                logger.warn("userId claim is a string but not a UUID: {}", val);
                 return null;
             }
-        });
+        }
+        // Fallback: use toString
+        try {
+            return UUID.fromString(val.toString());
+        } catch (Exception e) {
+            logger.warn("Unable to convert userId claim to UUID (value={}): {}", val, e.getMessage());
+            return null;
+        }
+    }
+
+    public static String roleOf(Claims claims) {
+        return claims.get("role", String.class);
+    }
+
+    private static String cacheKey(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private JwtParser getParser() {
+        JwtParser current = parser;
+        if (current == null) {
+            current = Jwts.parser()
+                    .verifyWith(getSigningKey())
+                    .json(new JacksonDeserializer<>())
+                    .build();
+            parser = current;
+        }
+        return current;
     }
 
     private SecretKey getSigningKey() {
-        logger.debug("Decoding JWT secret from base64: {}", secret);
+        SecretKey current = signingKey;
+        if (current != null) {
+            return current;
+        }
         try {
             byte[] decodedBytes = Decoders.BASE64.decode(secret);
             logger.debug("Successfully decoded {} bytes from base64", decodedBytes.length);
-            return Keys.hmacShaKeyFor(decodedBytes);
+            current = Keys.hmacShaKeyFor(decodedBytes);
+            signingKey = current;
+            return current;
         } catch (Exception e) {
-            logger.error("Failed to decode JWT secret from base64: {}", secret, e);
+            logger.error("Failed to decode JWT secret from base64", e);
             throw e;
         }
     }
 
     private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .json(new JacksonDeserializer<>())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(parseVerifiedClaims(token));
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .json(new JacksonDeserializer<>())
-                    .build()
-                    .parseSignedClaims(token);
+            parseVerifiedClaims(token);
             return true;
         } catch (Exception e) {
             return false;
         }
     }
+
+    private record CachedClaims(Claims claims, long expiresAtMillis) {
+    }
 }
@@ -0,0 +1,98 @@
+package dev.marketplace.marketplace.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of authenticated principals keyed by the exact login name in the JWT subject,
+ * so an authenticated request does not look the user up again on every call. Keys are not case
+ * folded: the repository lookups behind a miss are case sensitive, so folding could serve one
+ * user's principal for another user's differently cased name.
+ * Entries are evicted whenever the user row changes (see UserDetailsCacheListener);
+ * the TTL only bounds staleness for changes made outside JPA.
+ *
+ * A miss still reads the user row rather than building the principal from the verified token:
+ * the token only carries email, role and id, and stays valid for a day, so a role downgrade or
+ * an NSFW preference change would not take effect until it expired. The row is authoritative
+ * and the listener keeps this cache in step with it.
+ */
+@Component
+public class UserDetailsCache {
+
+    // Lock-free reads; entries expire ttl after they are written and the cache is bounded by maxSize
+    private final Cache<String, UserDetailsImpl> entries;
+    // Names each user is cached under, so evict(userId) does not scan every entry
+    private final Map<UUID, Set<String>> keysByUser = new ConcurrentHashMap<>();
+
+    public UserDetailsCache(@Value("${marketplace.security.user-details-cache.ttl-ms:60000}") long ttlMillis,
+                            @Value("${marketplace.security.user-details-cache.max-size:10000}") int maxSize) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                // Runs atomically with the size or expiry eviction, so the index never loses a live entry
+                .evictionListener((String username, UserDetailsImpl userDetails, RemovalCause cause) -> {
+                    if (username != null && userDetails != null) {
+                        unindex(username, userDetails);
+                    }
+                })
+                .build();
+    }
+
+    public UserDetailsImpl get(String username) {
+        if (username == null) {
+            return null;
+        }
+        return entries.getIfPresent(username);
+    }
+
+    /**
+     * Id of a cached user, or null when the user is not cached.
+     */
+    public UUID getUserId(String username) {
+        UserDetailsImpl userDetails = get(username);
+        return userDetails != null ? userDetails.getId() : null;
+    }
+
+    public void put(String username, UserDetailsImpl userDetails) {
+        // Index before publishing, so a concurrent evict(userId) also drops this entry
+        keysByUser.computeIfAbsent(userDetails.getId(), id -> ConcurrentHashMap.newKeySet()).add(username);
+        UserDetailsImpl previous = entries.asMap().put(username, userDetails);
+        if (previous != null && !previous.getId().equals(userDetails.getId())) {
+            unindex(username, previous);
+        }
+    }
+
+    /**
+     * Drops every entry for the user, whichever name it was cached under.
+     */
+    public void evict(UUID userId) {
+        if (userId == null) {
+            return;
+        }
+        Set<String> keys = keysByUser.remove(userId);
+        if (keys != null) {
+            entries.invalidateAll(keys);
+        }
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+        keysByUser.clear();
+    }
+
+    private void unindex(String username, UserDetailsImpl userDetails) {
+        keysByUser.computeIfPresent(userDetails.getId(), (id, keys) -> {
+            keys.remove(username);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package dev.marketplace.marketplace.security;
+
+import dev.marketplace.marketplace.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts a user's cached principal whenever the row is updated or deleted, which covers
+ * profile edits, role upgrades and downgrades, and NSFW preference changes wherever they happen.
+ * Hibernate obtains this listener from the Spring context, so it can be constructor injected.
+ */
+@Component
+public class UserDetailsCacheListener {
+
+    private final UserDetailsCache userDetailsCache;
+
+    public UserDetailsCacheListener(UserDetailsCache userDetailsCache) {
+        this.userDetailsCache = userDetailsCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void evict(User user) {
+        userDetailsCache.evict(user.getId());
+    }
+}
@@ -1,33 +1,72 @@
 package dev.marketplace.marketplace.security;
 
+import dev.marketplace.marketplace.enums.Role;
 import dev.marketplace.marketplace.model.User;
-import lombok.AllArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
-import java.util.Collection;
-import java.util.Collections;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
 
+/**
+ * Immutable snapshot of the fields authentication and authorization need, so it can be
+ * cached across requests without holding on to a managed User entity.
+ */
 public class UserDetailsImpl implements UserDetails {
-    private final User user;
+    private final UUID id;
+    private final String email;
+    private final String password;
+    private final Role role;
+    private final boolean ageVerified;
+    private final boolean allowsExplicitContent;
 
     public UserDetailsImpl(User user) {
-        this.user = user;
+        this.id = user.getId();
+        this.email = user.getEmail();
+        this.password = user.getPassword();
+        this.role = user.getRole();
+        this.ageVerified = Boolean.TRUE.equals(user.getAgeVerified());
+        this.allowsExplicitContent = Boolean.TRUE.equals(user.getAllowsExplicitContent());
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public boolean isAgeVerified() {
+        return ageVerified;
+    }
+
+    public boolean isAllowsExplicitContent() {
+        return allowsExplicitContent;
+    }
+
+    /**
+     * Same rule as NSFWContentService.canUserViewNSFW.
+     */
+    public boolean canViewNsfw() {
+        return allowsExplicitContent && ageVerified;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.emptyList();
+        return List.of(new SimpleGrantedAuthority(role.name()));
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
     }
 
     @Override
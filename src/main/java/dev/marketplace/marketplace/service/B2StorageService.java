@@ -6,13 +6,35 @@ import com.backblaze.b2.client.contentSources.B2ByteArrayContentSource;
 import com.backblaze.b2.client.contentSources.B2ContentSource;
 import com.backblaze.b2.client.contentSources.B2ContentTypes;
 import com.backblaze.b2.client.exceptions.B2Exception;
+import com.backblaze.b2.client.exceptions.B2NotFoundException;
 import com.backblaze.b2.client.structures.*;
 import dev.marketplace.marketplace.config.B2Properties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class B2StorageService {
@@ -20,8 +42,34 @@ public class B2StorageService {
     private final B2StorageClient client;
     private final String bucketId;
     private final String bucketName;
+    private final long largeFileThreshold;
+    // Bounds concurrent uploads across requests; large-file parts run on their own pool so an
+    // upload never waits on a part queued behind other uploads
+    private final ExecutorService uploadExecutor;
+    private final ExecutorService largeFilePartExecutor;
+    private final MeterRegistry meterRegistry;
 
-    public B2StorageService(B2Properties props) {
+    private static final Logger logger = LoggerFactory.getLogger(B2StorageService.class);
+
+    private static final String LISTINGS_PREFIX = "listings/";
+    // B2 allows up to one week; tokens are requested for a day and replaced after half of that,
+    // so every URL handed out stays valid for at least 12 hours.
+    private static final int DOWNLOAD_AUTH_VALIDITY_SECONDS = 86400;
+    private static final Duration DOWNLOAD_AUTH_CACHE_TTL = Duration.ofHours(12);
+    private static final Duration DOWNLOAD_AUTH_REFRESH_AHEAD = Duration.ofHours(1);
+
+    private volatile CachedAuthorization listingsAuthorization;
+    private final AtomicLong authCacheHits = new AtomicLong();
+    private final AtomicLong authCacheMisses = new AtomicLong();
+    private final AtomicLong authCacheRefreshes = new AtomicLong();
+
+    @Autowired
+    public B2StorageService(B2Properties props, MeterRegistry meterRegistry) {
+        this(props, meterRegistry, null);
+    }
+
+    // A null client is created from the resolved application key
+    B2StorageService(B2Properties props, MeterRegistry meterRegistry, B2StorageClient client) {
         // Prefer values from configuration properties
         String resolvedBucketId = null;
         String resolvedBucketName = null;
@@ -68,11 +116,69 @@ public class B2StorageService {
         this.bucketId = resolvedBucketId;
         this.bucketName = resolvedBucketName;
 
-        this.client = B2StorageClientFactory.createDefaultFactory()
+        B2Properties.Upload upload = props != null && props.getUpload() != null ? props.getUpload() : new B2Properties.Upload();
+        this.largeFileThreshold = upload.getLargeFileThreshold();
+        this.uploadExecutor = Executors.newFixedThreadPool(upload.getParallelism());
+        this.largeFilePartExecutor = Executors.newFixedThreadPool(upload.getLargeFileThreads());
+
+        this.client = client != null ? client : B2StorageClientFactory.createDefaultFactory()
                 .create(appKeyId, appKeySecret, "marketplace-app");
+
+        this.meterRegistry = meterRegistry;
+        FunctionCounter.builder("marketplace.b2.download.authorizations", authCacheHits, AtomicLong::get)
+                .description("Listing download authorization lookups served from the cache")
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("marketplace.b2.download.authorizations", authCacheMisses, AtomicLong::get)
+                .description("Listing download authorization lookups that had to fetch a new token")
+                .tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("marketplace.b2.download.authorizations", authCacheRefreshes, AtomicLong::get)
+                .description("Listing download authorizations renewed ahead of expiry")
+                .tag("result", "refresh").register(meterRegistry);
+    }
+
+    /**
+     * Times a call to Backblaze as marketplace.b2.requests, tagged with the operation and outcome.
+     */
+    private <T> T timed(String operation, B2Call<T> call) throws B2Exception {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = call.execute();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder("marketplace.b2.requests")
+                    .description("Calls to the Backblaze B2 API")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    @FunctionalInterface
+    private interface B2Call<T> {
+        T execute() throws B2Exception;
     }
 
-    private String sanitizeFilename(String originalName) {
+    /**
+     * Sanitizes each segment of a storage key, keeping the "/" separators so folder prefixes such
+     * as listings/ survive. Empty, "." and ".." segments are dropped.
+     */
+    static String sanitizeKey(String key) {
+        if (key == null || key.isBlank()) {
+            return "file";
+        }
+        StringJoiner sanitized = new StringJoiner("/");
+        for (String segment : key.split("/")) {
+            String safe = sanitizeFilename(segment);
+            if (!segment.isBlank() && !safe.equals(".") && !safe.equals("..")) {
+                sanitized.add(safe);
+            }
+        }
+        return sanitized.length() > 0 ? sanitized.toString() : "file";
+    }
+
+    private static String sanitizeFilename(String originalName) {
         if (originalName == null || originalName.isBlank()) {
             return "file";
         }
@@ -83,7 +189,7 @@ public class B2StorageService {
     }
 
     public String uploadImage(String fileName, byte[] imageData) throws B2Exception {
-        String safeFileName = sanitizeFilename(fileName);
+        String safeFileName = sanitizeKey(fileName);
 
         B2ContentSource contentSource = B2ByteArrayContentSource.builder(imageData).build();
 
@@ -91,38 +197,294 @@ public class B2StorageService {
                 .builder(bucketId, safeFileName, B2ContentTypes.B2_AUTO, contentSource)
                 .build();
 
-        B2FileVersion uploadedFile = client.uploadSmallFile(request);
+        B2FileVersion uploadedFile = timed("upload_small_file", () -> client.uploadSmallFile(request));
+
+        return uploadedFile.getFileName();
+    }
+
+    /**
+     * Uploads a multipart file by streaming it from the request instead of buffering it on the heap.
+     * Files at or above the large-file threshold are uploaded in parts, concurrently.
+     */
+    public String uploadImage(String fileName, MultipartFile file) throws B2Exception {
+        String safeFileName = sanitizeKey(fileName);
+
+        B2UploadFileRequest request = B2UploadFileRequest
+                .builder(bucketId, safeFileName, B2ContentTypes.B2_AUTO, new MultipartFileContentSource(file, 0, file.getSize()))
+                .build();
+
+        B2FileVersion uploadedFile = file.getSize() >= largeFileThreshold
+                ? timed("upload_large_file", () -> client.uploadLargeFile(request, largeFilePartExecutor))
+                : timed("upload_small_file", () -> client.uploadSmallFile(request));
 
         return uploadedFile.getFileName();
     }
 
+    /**
+     * Uploads several files concurrently on the shared upload pool. Returns the uploaded file
+     * names in the order given. If any upload fails, the others are allowed to finish (they may
+     * still be reading the request's files), every file that did upload is deleted again, and the
+     * first error is rethrown.
+     */
+    public List<String> uploadImages(List<ImageUpload> uploads) throws B2Exception {
+        List<Future<String>> pending = new ArrayList<>(uploads.size());
+        for (ImageUpload upload : uploads) {
+            pending.add(uploadExecutor.submit(() -> uploadImage(upload.fileName(), upload.file())));
+        }
+        List<String> fileNames = new ArrayList<>(uploads.size());
+        Throwable failure = null;
+        for (Future<String> upload : pending) {
+            try {
+                fileNames.add(upload.get());
+            } catch (InterruptedException e) {
+                pending.forEach(remaining -> remaining.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Image upload interrupted", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure == null) {
+            return fileNames;
+        }
+
+        fileNames.forEach(this::deleteUploaded);
+        if (failure instanceof B2Exception b2Exception) {
+            throw b2Exception;
+        }
+        throw new IllegalStateException("Image upload failed: " + failure.getMessage(), failure);
+    }
+
+    // Best effort: a file left behind here is only an orphan, the upload error is what the caller needs
+    private void deleteUploaded(String fileName) {
+        try {
+            deleteImage(fileName);
+        } catch (B2Exception | RuntimeException e) {
+            logger.warn("Failed to delete {} after a failed multi-image upload: {}", fileName, e.getMessage());
+        }
+    }
+
+    public record ImageUpload(String fileName, MultipartFile file) {
+    }
+
+    @PreDestroy
+    public void shutdownUploads() {
+        uploadExecutor.shutdown();
+        largeFilePartExecutor.shutdown();
+    }
+
     public String generatePreSignedUrl(String fileName) throws B2Exception {
+        if (fileName != null && fileName.startsWith(LISTINGS_PREFIX)) {
+            // Listing images share one prefix-scoped authorization, so building the URL is plain concatenation
+            return buildDownloadUrl(fileName, getListingsAuthorizationToken());
+        }
+
         int validDurationSeconds = 86400;
 
         B2GetDownloadAuthorizationRequest request = B2GetDownloadAuthorizationRequest
                 .builder(bucketId, fileName, validDurationSeconds)
                 .build();
 
-        B2DownloadAuthorization auth = client.getDownloadAuthorization(request);
+        B2DownloadAuthorization auth = timed("get_download_authorization", () -> client.getDownloadAuthorization(request));
 
-        return "https://f003.backblazeb2.com/file/" + bucketName + "/" + fileName + "?Authorization=" + auth.getAuthorizationToken();
+        return buildDownloadUrl(fileName, auth.getAuthorizationToken());
+    }
+
+    private String buildDownloadUrl(String fileName, String authorizationToken) {
+        return "https://f003.backblazeb2.com/file/" + bucketName + "/" + fileName + "?Authorization=" + authorizationToken;
+    }
+
+    /**
+     * Returns the cached download authorization for the listings/ prefix, fetching a new one
+     * only when nothing is cached yet or the cached one has passed its refresh deadline.
+     */
+    private String getListingsAuthorizationToken() throws B2Exception {
+        CachedAuthorization cached = listingsAuthorization;
+        if (cached != null && !cached.isStale()) {
+            authCacheHits.incrementAndGet();
+            return cached.token();
+        }
+        authCacheMisses.incrementAndGet();
+        synchronized (this) {
+            cached = listingsAuthorization;
+            if (cached == null || cached.isStale()) {
+                cached = fetchListingsAuthorization();
+                listingsAuthorization = cached;
+            }
+            return cached.token();
+        }
     }
 
-    public void deleteImage(String fileName) throws B2Exception {
-        B2DeleteFileVersionRequest request = B2DeleteFileVersionRequest
-                .builder(fileName, null)
+    private CachedAuthorization fetchListingsAuthorization() throws B2Exception {
+        B2GetDownloadAuthorizationRequest request = B2GetDownloadAuthorizationRequest
+                .builder(bucketId, LISTINGS_PREFIX, DOWNLOAD_AUTH_VALIDITY_SECONDS)
                 .build();
+        B2DownloadAuthorization auth = timed("get_download_authorization", () -> client.getDownloadAuthorization(request));
+        return new CachedAuthorization(auth.getAuthorizationToken(), Instant.now().plus(DOWNLOAD_AUTH_CACHE_TTL));
+    }
 
+    /**
+     * Renews the listings/ authorization ahead of its refresh deadline so request threads never
+     * block on Backblaze. Does nothing until the first URL has been generated.
+     */
+    @Scheduled(fixedDelay = 15, initialDelay = 15, timeUnit = TimeUnit.MINUTES)
+    public void refreshListingsAuthorization() {
+        CachedAuthorization cached = listingsAuthorization;
+        if (cached == null || Instant.now().isBefore(cached.refreshAfter().minus(DOWNLOAD_AUTH_REFRESH_AHEAD))) {
+            return;
+        }
         try {
-            client.deleteFileVersion(request);
+            CachedAuthorization refreshed = fetchListingsAuthorization();
+            synchronized (this) {
+                listingsAuthorization = refreshed;
+            }
+            authCacheRefreshes.incrementAndGet();
+            logger.info("Refreshed B2 download authorization for prefix {} (hits={}, misses={}, refreshes={})",
+                    LISTINGS_PREFIX, authCacheHits.get(), authCacheMisses.get(), authCacheRefreshes.get());
         } catch (B2Exception e) {
-            System.err.println("Failed to delete file from B2: " + fileName + ", error: " + e.getMessage());
+            // The current token is still valid until its refresh deadline; the next run retries
+            logger.warn("Failed to refresh B2 download authorization for prefix {}: {}", LISTINGS_PREFIX, e.getMessage());
+        }
+    }
+
+    public DownloadAuthorizationStats getDownloadAuthorizationStats() {
+        return new DownloadAuthorizationStats(authCacheHits.get(), authCacheMisses.get(), authCacheRefreshes.get());
+    }
+
+    public record DownloadAuthorizationStats(long hits, long misses, long refreshes) {
+    }
+
+    private record CachedAuthorization(String token, Instant refreshAfter) {
+        boolean isStale() {
+            return !Instant.now().isBefore(refreshAfter);
+        }
+    }
+
+    /**
+     * Deletes the current version of a stored file. B2 deletes by file id, so the name is
+     * resolved first. Returns false when no file has that name; other failures are thrown.
+     */
+    public boolean deleteImage(String fileName) throws B2Exception {
+        B2FileVersion version;
+        try {
+            version = timed("get_file_info_by_name", () -> client.getFileInfoByName(bucketName, fileName));
+        } catch (B2NotFoundException e) {
+            return false;
+        }
+        timed("delete_file_version", () -> client.deleteFileVersion(version));
+        return true;
+    }
+
+    public String uploadPublicImage(String folder, MultipartFile file) throws B2Exception {
+        return uploadImage(publicImagePath(folder, file), file);
+    }
+
+    public String publicImagePath(String folder, MultipartFile file) {
+        return folder + "/" + UUID.randomUUID() + "_" + sanitizeFilename(file.getOriginalFilename());
+    }
+
+    /**
+     * Content source reading a byte range of a multipart file straight from the request part
+     * (Tomcat spools parts to disk). Each call opens a new stream, so the SDK can retry, and
+     * large-file uploads get one source per part.
+     */
+    private static final class MultipartFileContentSource implements B2ContentSource {
+
+        private final MultipartFile file;
+        private final long start;
+        private final long length;
+
+        MultipartFileContentSource(MultipartFile file, long start, long length) {
+            this.file = file;
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        public long getContentLength() {
+            return length;
+        }
+
+        @Override
+        public String getSrcSha1OrNull() {
+            // Unknown up front; the SDK computes it while streaming
+            return null;
+        }
+
+        @Override
+        public Long getSrcLastModifiedMillisOrNull() {
+            return null;
+        }
+
+        @Override
+        public InputStream createInputStream() throws IOException {
+            InputStream in = file.getInputStream();
+            if (start == 0 && length == file.getSize()) {
+                return in;
+            }
+            in.skipNBytes(start);
+            return new RangeInputStream(in, length);
+        }
+
+        @Override
+        public B2ContentSource createContentSourceWithRangeOrNull(long start, long length) {
+            return new MultipartFileContentSource(file, this.start + start, length);
         }
     }
 
-    public String uploadPublicImage(String folder, MultipartFile file) throws B2Exception, IOException {
-        String safeFileName = sanitizeFilename(file.getOriginalFilename());
-        String filePath = folder + "/" + UUID.randomUUID() + "_" + safeFileName;
-        return uploadImage(filePath, file.getBytes());
+    /**
+     * Reads at most {@code remaining} bytes from the wrapped stream.
+     */
+    private static final class RangeInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        RangeInputStream(InputStream in, long remaining) {
+            super(in);
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
     }
 }
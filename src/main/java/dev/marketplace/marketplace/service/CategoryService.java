@@ -2,17 +2,34 @@ package dev.marketplace.marketplace.service;
 
 import dev.marketplace.marketplace.model.Category;
 import dev.marketplace.marketplace.repository.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
 public class CategoryService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CategoryService.class);
+
     private final CategoryRepository categoryRepository;
 
+    // Immutable view of the whole category tree; replaced wholesale on refresh, never mutated
+    private volatile CategoryTree tree;
+    // Bumped by every invalidation, so a rebuild that started before a write does not get installed
+    private long generation;
+
     public CategoryService(CategoryRepository categoryRepository) {
         this.categoryRepository = categoryRepository;
     }
@@ -31,17 +48,102 @@ public class CategoryService {
                 .orElseThrow(() -> new RuntimeException("Category not found: " + slug));
     }
 
+    /**
+     * Resolves a category slug to its id from the cached tree, without a database query.
+     * Unknown slugs are answered from the tree too; category writes invalidate it (see
+     * CategoryTreeListener), so a miss never has to go back to the database.
+     */
+    public UUID findIdBySlug(String slug) {
+        UUID id = currentTree().idsBySlug().get(slug.toLowerCase(Locale.ROOT));
+        if (id == null) {
+            throw new RuntimeException("Category not found: " + slug);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the category and all of its descendants, precomputed in the cached tree.
+     */
     public List<UUID> getAllDescendantCategoryIds(UUID parentId) {
-        Category parent = findById(parentId);
-        List<UUID> ids = new ArrayList<>();
-        collectDescendantIds(parent, ids);
+        List<UUID> ids = currentTree().descendantIds().get(parentId);
+        if (ids == null) {
+            throw new RuntimeException("Category not found: " + parentId);
+        }
         return ids;
     }
 
-    private void collectDescendantIds(Category category, List<UUID> ids) {
-        ids.add(category.getId());
-        for (Category child : category.getChildren()) {
-            collectDescendantIds(child, ids);
+    /**
+     * Builds the tree at startup and rebuilds it periodically to pick up changes made elsewhere.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${marketplace.category-cache.refresh-interval-ms:300000}",
+            initialDelayString = "${marketplace.category-cache.refresh-interval-ms:300000}")
+    public void reloadCategoryTree() {
+        refreshCategoryTree();
+    }
+
+    /**
+     * Rebuilds the tree from the database with a single query and swaps it in atomically.
+     */
+    public CategoryTree refreshCategoryTree() {
+        long startedAt;
+        synchronized (this) {
+            startedAt = generation;
+        }
+        CategoryTree rebuilt = CategoryTree.build(categoryRepository.findAll());
+        synchronized (this) {
+            if (generation == startedAt) {
+                tree = rebuilt;
+            }
+        }
+        logger.debug("Category tree refreshed with {} categories", rebuilt.idsBySlug().size());
+        return rebuilt;
+    }
+
+    /**
+     * Drops the cached tree so the next read rebuilds it. Called by CategoryTreeListener
+     * when categories are written.
+     */
+    public synchronized void invalidateCategoryTree() {
+        generation++;
+        tree = null;
+    }
+
+    private CategoryTree currentTree() {
+        CategoryTree current = tree;
+        return current != null ? current : refreshCategoryTree();
+    }
+
+    /**
+     * Snapshot of the category hierarchy: slug to id, and each id to itself plus all descendants.
+     */
+    public record CategoryTree(Map<String, UUID> idsBySlug, Map<UUID, List<UUID>> descendantIds) {
+
+        static CategoryTree build(List<Category> categories) {
+            Map<String, UUID> idsBySlug = new HashMap<>();
+            Map<UUID, List<UUID>> childrenByParent = new HashMap<>();
+            for (Category category : categories) {
+                idsBySlug.put(category.getSlug().toLowerCase(Locale.ROOT), category.getId());
+                // getParentId reads the proxy's identifier, so no parent rows are loaded
+                UUID parentId = category.getParentId();
+                if (parentId != null) {
+                    childrenByParent.computeIfAbsent(parentId, k -> new ArrayList<>()).add(category.getId());
+                }
+            }
+
+            Map<UUID, List<UUID>> descendantIds = new HashMap<>();
+            for (Category category : categories) {
+                List<UUID> ids = new ArrayList<>();
+                Deque<UUID> pending = new ArrayDeque<>();
+                pending.push(category.getId());
+                while (!pending.isEmpty()) {
+                    UUID id = pending.pop();
+                    ids.add(id);
+                    childrenByParent.getOrDefault(id, List.of()).forEach(pending::push);
+                }
+                descendantIds.put(category.getId(), List.copyOf(ids));
+            }
+            return new CategoryTree(Map.copyOf(idsBySlug), Map.copyOf(descendantIds));
         }
     }
 }
@@ -0,0 +1,216 @@
+package dev.marketplace.marketplace.service;
+
+import dev.marketplace.marketplace.model.EmailOutboxMessage;
+import dev.marketplace.marketplace.repository.EmailOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers queued emails from the email_outbox table.
+ *
+ * Each poll claims a batch of due messages (rows locked with SKIP LOCKED, so several instances
+ * can poll safely) and marks them SENDING with a lease. The batch is split into groups that are
+ * sent concurrently, each group over one SMTP connection. Failed messages are retried with
+ * exponential backoff until they run out of attempts; a message whose lease expires without a
+ * result (e.g. the instance died mid-send) becomes due again.
+ *
+ * Results are written with conditional updates that only apply while the row still carries this
+ * poller's lease, so a send that outlives its lease cannot overwrite another poller's outcome.
+ *
+ * SENT and FAILED rows lose their body (which may hold verification or reset links) and are kept
+ * for the retention period, then purged nightly in chunks so the table and its indexes do not
+ * grow with every email ever sent.
+ */
+@Service
+@Slf4j
+public class EmailOutboxProcessor {
+
+    private static final List<EmailOutboxMessage.Status> CLAIMABLE =
+            List.of(EmailOutboxMessage.Status.PENDING, EmailOutboxMessage.Status.SENDING);
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int connections;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration sendLease;
+    private final Duration retention;
+    private final int purgeBatchSize;
+    // SMTP delivery is blocking I/O; concurrency is bounded by the number of groups per batch
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public EmailOutboxProcessor(EmailOutboxRepository emailOutboxRepository,
+                                EmailService emailService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${marketplace.mail.outbox.enabled:true}") boolean enabled,
+                                @Value("${marketplace.mail.outbox.batch-size:50}") int batchSize,
+                                @Value("${marketplace.mail.outbox.connections:4}") int connections,
+                                @Value("${marketplace.mail.outbox.max-attempts:6}") int maxAttempts,
+                                @Value("${marketplace.mail.outbox.initial-backoff:PT1M}") Duration initialBackoff,
+                                @Value("${marketplace.mail.outbox.max-backoff:PT2H}") Duration maxBackoff,
+                                @Value("${marketplace.mail.outbox.send-lease:PT5M}") Duration sendLease,
+                                @Value("${marketplace.mail.outbox.retention:P30D}") Duration retention,
+                                @Value("${marketplace.mail.outbox.purge-batch-size:1000}") int purgeBatchSize) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.connections = connections;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.sendLease = sendLease;
+        this.retention = retention;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${marketplace.mail.outbox.poll-interval-ms:2000}")
+    public void processOutbox() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (true) {
+                List<EmailOutboxMessage> claimed = transactionTemplate.execute(status -> claimDueMessages());
+                if (claimed == null || claimed.isEmpty()) {
+                    break;
+                }
+                deliver(claimed);
+                if (claimed.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error processing email outbox", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Runs every day at 3:30am
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeFinishedMessages() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int purged = 0;
+        while (true) {
+            Integer deleted = transactionTemplate.execute(
+                    status -> emailOutboxRepository.deleteFinishedBefore(cutoff, purgeBatchSize));
+            if (deleted == null || deleted == 0) {
+                break;
+            }
+            purged += deleted;
+            if (deleted < purgeBatchSize) {
+                break;
+            }
+        }
+        log.info("Email outbox purge: deleted {} messages enqueued before {}", purged, cutoff);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private List<EmailOutboxMessage> claimDueMessages() {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutboxMessage> due = emailOutboxRepository.findDueForUpdate(CLAIMABLE, now, PageRequest.of(0, batchSize));
+        for (EmailOutboxMessage message : due) {
+            message.setStatus(EmailOutboxMessage.Status.SENDING);
+            // Truncated to the column's precision, so recordResults can match the stored lease exactly
+            message.setNextAttemptAt(now.plus(sendLease).truncatedTo(ChronoUnit.MICROS));
+        }
+        return emailOutboxRepository.saveAll(due);
+    }
+
+    private void deliver(List<EmailOutboxMessage> messages) {
+        int groupSize = Math.max(1, (messages.size() + connections - 1) / connections);
+        List<Future<Map<UUID, String>>> groups = new ArrayList<>();
+        for (int from = 0; from < messages.size(); from += groupSize) {
+            List<EmailOutboxMessage> group = messages.subList(from, Math.min(messages.size(), from + groupSize));
+            groups.add(executor.submit(() -> emailService.deliver(group)));
+        }
+
+        Map<UUID, String> failures = new HashMap<>();
+        for (int i = 0; i < groups.size(); i++) {
+            try {
+                failures.putAll(groups.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // Leave the rest SENDING; they become due again when the lease expires
+                return;
+            } catch (ExecutionException e) {
+                int from = i * groupSize;
+                messages.subList(from, Math.min(messages.size(), from + groupSize))
+                        .forEach(message -> failures.put(message.getId(), String.valueOf(e.getCause().getMessage())));
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> recordResults(messages, failures));
+        log.info("Email outbox: sent {}, failed {}", messages.size() - failures.size(), failures.size());
+    }
+
+    private void recordResults(List<EmailOutboxMessage> messages, Map<UUID, String> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        int leaseLost = 0;
+        for (EmailOutboxMessage message : messages) {
+            // nextAttemptAt still holds the lease this poller claimed the message with
+            LocalDateTime leasedUntil = message.getNextAttemptAt();
+            int attempts = message.getAttempts() + 1;
+            String error = failures.get(message.getId());
+            int updated;
+            if (error == null) {
+                updated = emailOutboxRepository.markSent(message.getId(), leasedUntil, attempts, now);
+            } else if (attempts >= maxAttempts) {
+                updated = emailOutboxRepository.markFailed(message.getId(), leasedUntil, attempts, error);
+                log.error("Giving up on email {} to {} after {} attempts: {}",
+                        message.getId(), message.getRecipient(), attempts, error);
+            } else {
+                updated = emailOutboxRepository.scheduleRetry(message.getId(), leasedUntil, attempts,
+                        now.plus(backoff(attempts)), error);
+            }
+            if (updated == 0) {
+                leaseLost++;
+            }
+        }
+        if (leaseLost > 0) {
+            log.warn("Email outbox: {} results dropped because their send lease expired first", leaseLost);
+        }
+    }
+
+    /**
+     * Delay before the next attempt: initial backoff doubled per failed attempt, capped.
+     */
+    Duration backoff(int attempts) {
+        Duration delay = initialBackoff;
+        for (int i = 1; i < attempts && delay.compareTo(maxBackoff) < 0; i++) {
+            delay = delay.multipliedBy(2);
+        }
+        return delay.compareTo(maxBackoff) < 0 ? delay : maxBackoff;
+    }
+}
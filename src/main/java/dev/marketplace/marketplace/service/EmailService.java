@@ -1,8 +1,14 @@
 package dev.marketplace.marketplace.service;
 
+import dev.marketplace.marketplace.dto.ExpiringListing;
+import dev.marketplace.marketplace.model.EmailOutboxMessage;
+import dev.marketplace.marketplace.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
@@ -14,9 +20,18 @@ import org.springframework.beans.factory.annotation.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
 @Service
 public class EmailService {
     private final JavaMailSender mailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final MeterRegistry meterRegistry;
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
 
     @Autowired
@@ -31,10 +46,17 @@ public class EmailService {
     @Value("${spring.profiles.active:}")
     private String activeProfile;
 
-    public EmailService(JavaMailSender mailSender) {
+    public EmailService(JavaMailSender mailSender, EmailOutboxRepository emailOutboxRepository, MeterRegistry meterRegistry) {
         this.mailSender = mailSender;
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.meterRegistry = meterRegistry;
     }
 
+    /**
+     * Queues an email for delivery by EmailOutboxProcessor and returns without contacting
+     * the mail server. Joins the caller's transaction when there is one, so the email only
+     * goes out if the caller's changes commit.
+     */
     public void sendEmail(String to, String subject, String body) throws MessagingException {
         if (to == null || to.trim().isEmpty()) {
             throw new IllegalArgumentException("Recipient email address is required");
@@ -46,29 +68,83 @@ public class EmailService {
             to = devEmailOverride;
         }
 
-        MimeMessage message = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+        emailOutboxRepository.save(EmailOutboxMessage.builder()
+                .recipient(to)
+                .subject(subject)
+                .body(body)
+                .build());
+        logger.info("Queued email to: {} subject: {}", to, subject);
+    }
 
-        helper.setTo(to);
-        logger.info("Sending email to: {} subject: {}", to, subject);
-        helper.setSubject(subject);
-        helper.setText(body, true);
+    /**
+     * Sends the given messages over a single SMTP connection.
+     *
+     * @return error description per message id for the messages that could not be sent
+     */
+    public Map<UUID, String> deliver(List<EmailOutboxMessage> messages) {
+        Map<UUID, String> failures = new HashMap<>();
+        Map<MimeMessage, UUID> ids = new IdentityHashMap<>();
+        List<MimeMessage> mimeMessages = new ArrayList<>();
+        for (EmailOutboxMessage message : messages) {
+            try {
+                MimeMessage mimeMessage = toMimeMessage(message);
+                ids.put(mimeMessage, message.getId());
+                mimeMessages.add(mimeMessage);
+            } catch (MessagingException e) {
+                failures.put(message.getId(), "Invalid message: " + e.getMessage());
+            }
+        }
+        if (mimeMessages.isEmpty()) {
+            return failures;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            mailSender.send(mimeMessages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            outcome = "partial";
+            // Per-message failures; the rest of the batch was sent
+            e.getFailedMessages().forEach((failed, cause) -> {
+                UUID id = failed instanceof MimeMessage ? ids.get(failed) : null;
+                if (id != null) {
+                    failures.put(id, cause.getMessage());
+                }
+            });
+            if (e.getFailedMessages().isEmpty()) {
+                ids.values().forEach(id -> failures.put(id, e.getMessage()));
+            }
+        } catch (MailException e) {
+            // Connection or authentication failure: nothing was sent
+            outcome = "error";
+            logger.error("Failed to send {} queued emails: {}", mimeMessages.size(), e.getMessage());
+            ids.values().forEach(id -> failures.put(id, e.getMessage()));
+        } finally {
+            sample.stop(Timer.builder("marketplace.mail.send")
+                    .description("SMTP deliveries of a batch of outbox messages")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+        long failed = mimeMessages.stream().map(ids::get).filter(failures::containsKey).count();
+        meterRegistry.counter("marketplace.mail.messages", "result", "sent").increment(mimeMessages.size() - failed);
+        meterRegistry.counter("marketplace.mail.messages", "result", "failed").increment(failures.size());
+        return failures;
+    }
+
+    private MimeMessage toMimeMessage(EmailOutboxMessage message) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true);
+
+        helper.setTo(message.getRecipient());
+        helper.setSubject(message.getSubject());
+        helper.setText(message.getBody(), true);
 
         if (senderEmail != null && !senderEmail.isEmpty()) {
             helper.setFrom(senderEmail);
         } else {
             logger.warn("spring.mail.username (sender email) is not set; using default from address may fail");
         }
-
-        try {
-            mailSender.send(message);
-        } catch (MailException e) {
-            logger.error("Failed to send email to {}: {}", to, e.getMessage(), e);
-            // Wrap Spring MailException in a MessagingException so controllers handle uniformly
-            MessagingException me = new MessagingException("Failed to send email");
-            me.initCause(e);
-            throw me;
-        }
+        return mimeMessage;
     }
 
     public void sendBusinessVerificationEmail(String to, String businessName, String verificationUrl) throws MessagingException {
@@ -149,22 +225,23 @@ public class EmailService {
     }
 
     /**
-     * Send listing expiration warning to seller
+     * Send a seller one digest of their listings that are about to expire
      * @param to Seller's email address
      * @param sellerName Seller's name
-     * @param listingTitle Title of the listing
-     * @param daysRemaining Days until listing expires
-     * @param renewUrl URL to renew listing
+     * @param listings Expiring listings, soonest first
+     * @param renewUrl URL to renew listings
      */
-    public void sendListingExpirationWarningEmail(String to, String sellerName, String listingTitle, int daysRemaining, String renewUrl) throws MessagingException {
+    public void sendListingExpirationDigestEmail(String to, String sellerName, List<ExpiringListing> listings, String renewUrl) throws MessagingException {
         Context context = new Context();
         context.setVariable("sellerName", sellerName == null ? "Seller" : sellerName);
-        context.setVariable("listingTitle", listingTitle == null ? "your listing" : listingTitle);
-        context.setVariable("daysRemaining", daysRemaining);
+        context.setVariable("listings", listings);
         context.setVariable("renewUrl", renewUrl);
 
         String body = templateEngine.process("listing-expiration-warning.html", context);
-        sendEmail(to, "Your listing expires in " + daysRemaining + " days - Dealio", body);
+        String subject = listings.size() == 1
+                ? "Your listing expires in " + listings.get(0).daysRemaining() + " days - Dealio"
+                : listings.size() + " of your listings expire soon - Dealio";
+        sendEmail(to, subject, body);
     }
 
     /**
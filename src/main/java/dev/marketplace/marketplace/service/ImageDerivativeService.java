@@ -0,0 +1,354 @@
+package dev.marketplace.marketplace.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.marketplace.marketplace.model.ImageDerivative;
+import dev.marketplace.marketplace.repository.ImageDerivativeRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates resized variants of uploaded listing images and stores them in B2 next to the original.
+ *
+ * Originals that get variants are stored with an "__orig" marker before the extension; each variant
+ * replaces the marker with its own name (photo__orig.png -> photo__thumb.jpg). Images uploaded
+ * before this pipeline, or in formats ImageIO cannot read, carry no marker and callers fall back to
+ * the original. Resizing runs on a bounded pool after the upload request has its originals stored;
+ * once every variant of an original is stored it is recorded in image_derivative, and until then
+ * (or if generation fails or the pool is saturated) readers keep serving the original.
+ *
+ * Sources are decoded with subsampling, so the decoded image is only as large as the variants
+ * need and a large photo does not take its full size in memory.
+ */
+@Service
+@Slf4j
+public class ImageDerivativeService {
+
+    static final String ORIGINAL_MARKER = "__orig";
+
+    // Sources are subsampled down to about twice the largest variant on their short side
+    private static final int DECODE_SHORT_SIDE = 2 * 960;
+    // Sources that are still larger once subsampled (e.g. long panoramas) are not decoded,
+    // bounding the memory one image takes to about 48MB
+    private static final long MAX_DECODED_PIXELS = 12_000_000L;
+
+    public enum Variant {
+        // Fixed-size square for listing cards, centre-cropped
+        THUMBNAIL("thumb", 320, 320, true),
+        // Fits within the box, keeping the aspect ratio, for the listing page
+        MEDIUM("medium", 960, 960, false);
+
+        private final String suffix;
+        private final int width;
+        private final int height;
+        private final boolean crop;
+
+        Variant(String suffix, int width, int height, boolean crop) {
+            this.suffix = suffix;
+            this.width = width;
+            this.height = height;
+            this.crop = crop;
+        }
+    }
+
+    private final B2StorageService b2StorageService;
+    private final ImageEncoder encoder;
+    private final ImageDerivativeRepository imageDerivativeRepository;
+    private final ThreadPoolExecutor executor;
+    // Originals known to have variants; that never changes, so hits skip the database
+    private final Cache<String, Boolean> derivedKeys;
+    // Originals found without variants (still queued, failed or rejected); rechecked once the TTL passes
+    private final Cache<String, Boolean> pendingKeys;
+
+    public ImageDerivativeService(B2StorageService b2StorageService,
+                                  ImageEncoder encoder,
+                                  ImageDerivativeRepository imageDerivativeRepository,
+                                  @Value("${marketplace.images.derivative-threads:2}") int threads,
+                                  @Value("${marketplace.images.derivative-queue-capacity:200}") int queueCapacity,
+                                  @Value("${marketplace.images.derived-keys-cache-size:10000}") int derivedKeysCacheSize,
+                                  @Value("${marketplace.images.pending-keys-ttl:PT1M}") Duration pendingKeysTtl) {
+        this.b2StorageService = b2StorageService;
+        this.encoder = encoder;
+        this.imageDerivativeRepository = imageDerivativeRepository;
+        // When the queue is full the upload is rejected from the pool rather than resized on the
+        // request thread; the original is served until variants exist, so nothing breaks
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+        this.derivedKeys = Caffeine.newBuilder().maximumSize(derivedKeysCacheSize).build();
+        this.pendingKeys = Caffeine.newBuilder()
+                .maximumSize(derivedKeysCacheSize)
+                .expireAfterWrite(pendingKeysTtl)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Whether variants can be generated for the file: ImageIO can read its format and its
+     * dimensions are within bounds. Only reads the image header.
+     */
+    public boolean canDerive(MultipartFile file) {
+        try (InputStream in = file.getInputStream();
+             ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+            if (imageIn == null) {
+                return false;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) {
+                return false;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                return withinDecodeLimit(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Queues variant generation for an uploaded original. The file is copied to a temporary file
+     * first because the request's multipart data is gone once the request completes.
+     */
+    public void generateDerivatives(String originalKey, MultipartFile file) {
+        if (derivativeKey(originalKey, Variant.THUMBNAIL, encoder.extension()) == null) {
+            return;
+        }
+        Path copy;
+        try {
+            copy = Files.createTempFile("listing-image-", ".tmp");
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("Could not stage {} for derivative generation: {}", originalKey, e.getMessage());
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(originalKey, copy);
+                } finally {
+                    deleteTemporary(copy);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Derivative queue full, serving the original for {}", originalKey);
+            deleteTemporary(copy);
+        }
+    }
+
+    /**
+     * Of the given originals, the ones whose variants have all been stored. Originals without
+     * the marker never have variants and are not looked up; the rest are looked up in one query,
+     * and both outcomes are cached, so callers should pass every image of a page at once.
+     */
+    public Set<String> derivedOriginals(Collection<String> originalKeys) {
+        Set<String> derived = new HashSet<>();
+        Set<String> unknown = new HashSet<>();
+        for (String key : originalKeys) {
+            if (derivativeKey(key, Variant.THUMBNAIL, encoder.extension()) == null) {
+                continue;
+            }
+            if (derivedKeys.getIfPresent(key) != null) {
+                derived.add(key);
+            } else if (pendingKeys.getIfPresent(key) == null) {
+                unknown.add(key);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            Set<String> found = imageDerivativeRepository.findDerivedKeys(unknown);
+            for (String key : unknown) {
+                if (found.contains(key)) {
+                    derivedKeys.put(key, Boolean.TRUE);
+                    derived.add(key);
+                } else {
+                    pendingKeys.put(key, Boolean.TRUE);
+                }
+            }
+        }
+        return derived;
+    }
+
+    private void generate(String originalKey, Path source) {
+        try {
+            BufferedImage image = read(source);
+            if (image == null) {
+                log.warn("Unreadable or oversized image {}, no derivatives generated", originalKey);
+                return;
+            }
+            for (Variant variant : Variant.values()) {
+                byte[] encoded = encoder.encode(resize(image, variant));
+                b2StorageService.uploadImage(derivativeKey(originalKey, variant, encoder.extension()), encoded);
+            }
+            imageDerivativeRepository.save(new ImageDerivative(originalKey, LocalDateTime.now()));
+            derivedKeys.put(originalKey, Boolean.TRUE);
+            pendingKeys.invalidate(originalKey);
+        } catch (Exception e) {
+            log.warn("Failed to generate derivatives for {}: {}", originalKey, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes the first image of the file subsampled for the variants, or returns null if ImageIO
+     * cannot read it or it is too large even subsampled.
+     */
+    static BufferedImage read(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (!withinDecodeLimit(width, height)) {
+                    return null;
+                }
+                int step = subsampling(width, height);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Keeps every step-th row and column so the short side stays at least DECODE_SHORT_SIDE.
+     */
+    static int subsampling(int width, int height) {
+        return Math.max(1, Math.min(width, height) / DECODE_SHORT_SIDE);
+    }
+
+    static boolean withinDecodeLimit(int width, int height) {
+        int step = subsampling(width, height);
+        return (long) ((width + step - 1) / step) * ((height + step - 1) / step) <= MAX_DECODED_PIXELS;
+    }
+
+    private static void deleteTemporary(Path copy) {
+        try {
+            Files.deleteIfExists(copy);
+        } catch (IOException e) {
+            log.debug("Could not delete temporary image {}: {}", copy, e.getMessage());
+        }
+    }
+
+    /**
+     * Storage key of the variant for an original, or null if the original has no variants.
+     */
+    public String derivativeKey(String originalKey, Variant variant) {
+        return derivativeKey(originalKey, variant, encoder.extension());
+    }
+
+    static String derivativeKey(String originalKey, Variant variant, String extension) {
+        if (originalKey == null) {
+            return null;
+        }
+        int marker = originalKey.lastIndexOf(ORIGINAL_MARKER);
+        if (marker < 0) {
+            return null;
+        }
+        String rest = originalKey.substring(marker + ORIGINAL_MARKER.length());
+        // The marker must be followed by nothing but the extension
+        if (!rest.isEmpty() && (rest.charAt(0) != '.' || rest.indexOf('.', 1) >= 0 || rest.indexOf('/') >= 0)) {
+            return null;
+        }
+        return originalKey.substring(0, marker) + "__" + variant.suffix + "." + extension;
+    }
+
+    /**
+     * Adds the original marker to a key before its extension (photo.png -> photo__orig.png).
+     */
+    public static String originalKey(String key) {
+        int dot = key.lastIndexOf('.');
+        int slash = key.lastIndexOf('/');
+        if (dot <= slash + 1) {
+            return key + ORIGINAL_MARKER;
+        }
+        return key.substring(0, dot) + ORIGINAL_MARKER + key.substring(dot);
+    }
+
+    /**
+     * Scales the image for the variant, halving in steps first so large downscales stay sharp.
+     * Transparent areas are flattened onto white since derivatives are opaque.
+     */
+    static BufferedImage resize(BufferedImage source, Variant variant) {
+        BufferedImage current = source;
+        int targetWidth;
+        int targetHeight;
+        if (variant.crop) {
+            double scale = Math.max((double) variant.width / source.getWidth(), (double) variant.height / source.getHeight());
+            int cropWidth = Math.min(source.getWidth(), (int) Math.round(variant.width / scale));
+            int cropHeight = Math.min(source.getHeight(), (int) Math.round(variant.height / scale));
+            current = source.getSubimage((source.getWidth() - cropWidth) / 2, (source.getHeight() - cropHeight) / 2,
+                    cropWidth, cropHeight);
+            targetWidth = variant.width;
+            targetHeight = variant.height;
+        } else {
+            double scale = Math.min(1.0, Math.min((double) variant.width / source.getWidth(),
+                    (double) variant.height / source.getHeight()));
+            targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+            targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        }
+
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return draw(current, targetWidth, targetHeight);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+}
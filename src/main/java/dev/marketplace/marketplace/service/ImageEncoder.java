@@ -0,0 +1,18 @@
+package dev.marketplace.marketplace.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Encodes resized listing image derivatives. The extension becomes part of the derivative's
+ * storage key, so switching encoders only affects images uploaded afterwards.
+ */
+public interface ImageEncoder {
+
+    /**
+     * File extension of the encoded format, without the dot (e.g. "jpg").
+     */
+    String extension();
+
+    byte[] encode(BufferedImage image) throws IOException;
+}
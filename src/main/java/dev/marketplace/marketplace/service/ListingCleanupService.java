@@ -1,29 +1,198 @@
 package dev.marketplace.marketplace.service;
 
-import dev.marketplace.marketplace.model.Listing;
-import dev.marketplace.marketplace.repository.ListingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Purges archived listings past their retention period, counted from when they were archived,
+ * so a listing archived on expiry still has the full period to be renewed or restored. Listings
+ * that were sold (archived on sale) are never purged, since they carry the sale history.
+ *
+ * Listings are deleted in chunks, each in its own short transaction, so memory and lock time
+ * stay bounded however large the backlog is. The image files of each deleted chunk, with their
+ * thumbnail and medium variants, are then removed from B2 in parallel batches, outside the transaction.
+ */
 @Service
+@Slf4j
 public class ListingCleanupService {
-    private final ListingRepository listingRepository;
 
-    public ListingCleanupService(ListingRepository listingRepository) {
-        this.listingRepository = listingRepository;
+    private static final int RETENTION_DAYS = 14;
+
+    // Listings with transactions are kept: deleting them would cascade to the transactions and their
+    // reviews, which the running trust aggregates (total_transactions, total_reviews, ...) still count
+    private static final String EXPIRED_ARCHIVED_IDS_SQL = """
+            SELECT id FROM listing
+            WHERE archived = TRUE AND archived_at < :cutoff
+              AND NOT EXISTS (SELECT 1 FROM transaction t WHERE t.listing_id = listing.id)
+            ORDER BY id
+            LIMIT :limit
+            """;
+
+    private static final String IMAGES_SQL = "SELECT image FROM listing_image WHERE listing_id IN (:ids)";
+    private static final String DELETE_IMAGES_SQL = "DELETE FROM listing_image WHERE listing_id IN (:ids)";
+    private static final String DELETE_LISTINGS_SQL = "DELETE FROM listing WHERE id IN (:ids)";
+    private static final String DELETE_DERIVATIVE_RECORDS_SQL = "DELETE FROM image_derivative WHERE original_key IN (:images)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final B2StorageService b2StorageService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final int chunkSize;
+    private final int imageDeleteParallelism;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private final AtomicLong listingsDeleted = new AtomicLong();
+    private final AtomicLong imagesDeleted = new AtomicLong();
+    private final AtomicLong imageDeleteFailures = new AtomicLong();
+    private volatile LocalDateTime lastRunFinishedAt;
+    private volatile long lastRunDurationMs;
+    private volatile int lastRunListingsDeleted;
+
+    public ListingCleanupService(NamedParameterJdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 B2StorageService b2StorageService,
+                                 ImageDerivativeService imageDerivativeService,
+                                 @Value("${marketplace.listing-cleanup.chunk-size:500}") int chunkSize,
+                                 @Value("${marketplace.listing-cleanup.image-delete-parallelism:4}") int imageDeleteParallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.b2StorageService = b2StorageService;
+        this.imageDerivativeService = imageDerivativeService;
+        this.chunkSize = chunkSize;
+        this.imageDeleteParallelism = imageDeleteParallelism;
     }
 
     // Runs every day at 2am
     @Scheduled(cron = "0 0 2 * * *")
     public void deleteOldArchivedListings() {
-        LocalDateTime cutoff = LocalDateTime.now().minusDays(14);
-        List<Listing> oldArchivedListings = listingRepository.findByArchivedTrueAndCreatedAtBefore(cutoff);
-        for (Listing listing : oldArchivedListings) {
-            listingRepository.delete(listing);
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Skipping archived listing cleanup: previous run still in progress");
+            return;
+        }
+        long started = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(RETENTION_DAYS);
+        ExecutorService executor = Executors.newFixedThreadPool(imageDeleteParallelism);
+        int deleted = 0;
+        try {
+            while (true) {
+                List<String> images = new ArrayList<>();
+                Integer chunkDeleted = transactionTemplate.execute(status -> deleteChunk(cutoff, images));
+                if (chunkDeleted == null || chunkDeleted == 0) {
+                    break;
+                }
+                deleted += chunkDeleted;
+                listingsDeleted.addAndGet(chunkDeleted);
+                deleteImages(executor, images);
+                log.info("Archived listing cleanup: {} listings deleted so far", deleted);
+                if (chunkDeleted < chunkSize) {
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdown();
+            lastRunDurationMs = System.currentTimeMillis() - started;
+            lastRunListingsDeleted = deleted;
+            lastRunFinishedAt = LocalDateTime.now();
+            running.set(false);
         }
+        log.info("Archived listing cleanup finished: {} listings deleted in {} ms", deleted, lastRunDurationMs);
+    }
+
+    public CleanupStats getCleanupStats() {
+        return new CleanupStats(listingsDeleted.get(), imagesDeleted.get(), imageDeleteFailures.get(),
+                lastRunListingsDeleted, lastRunDurationMs, lastRunFinishedAt);
+    }
+
+    /**
+     * Deletes one chunk of expired listings and collects their image file names.
+     * Returns the number of listings deleted.
+     */
+    private int deleteChunk(LocalDateTime cutoff, List<String> images) {
+        List<UUID> ids = jdbcTemplate.queryForList(EXPIRED_ARCHIVED_IDS_SQL,
+                new MapSqlParameterSource("cutoff", cutoff).addValue("limit", chunkSize), UUID.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+        images.addAll(jdbcTemplate.queryForList(IMAGES_SQL, params, String.class));
+        if (!images.isEmpty()) {
+            jdbcTemplate.update(DELETE_DERIVATIVE_RECORDS_SQL, new MapSqlParameterSource("images", images));
+        }
+        jdbcTemplate.update(DELETE_IMAGES_SQL, params);
+        return jdbcTemplate.update(DELETE_LISTINGS_SQL, params);
     }
-}
 
+    /**
+     * Removes stored image files and their variants from B2, split across the pool. External
+     * image URLs (seed data, third-party hosts) are not ours to delete and are skipped.
+     */
+    private void deleteImages(ExecutorService executor, List<String> images) {
+        List<String> fileNames = new ArrayList<>();
+        for (String image : images) {
+            if (image == null || image.isBlank() || image.startsWith("http")) {
+                continue;
+            }
+            fileNames.add(image);
+            for (ImageDerivativeService.Variant variant : ImageDerivativeService.Variant.values()) {
+                String derivative = imageDerivativeService.derivativeKey(image, variant);
+                if (derivative != null) {
+                    fileNames.add(derivative);
+                }
+            }
+        }
+        if (fileNames.isEmpty()) {
+            return;
+        }
+
+        int batchSize = Math.max(1, (fileNames.size() + imageDeleteParallelism - 1) / imageDeleteParallelism);
+        List<Future<?>> batches = new ArrayList<>();
+        for (int from = 0; from < fileNames.size(); from += batchSize) {
+            List<String> batch = fileNames.subList(from, Math.min(fileNames.size(), from + batchSize));
+            batches.add(executor.submit(() -> batch.forEach(this::deleteImage)));
+        }
+        for (Future<?> batch : batches) {
+            try {
+                batch.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Listing image cleanup interrupted", e);
+            } catch (ExecutionException e) {
+                imageDeleteFailures.incrementAndGet();
+                log.warn("Listing image cleanup batch failed: {}", e.getCause().getMessage());
+            }
+        }
+    }
+
+    private void deleteImage(String fileName) {
+        try {
+            // Already gone counts as neither: variants may never have been generated
+            if (b2StorageService.deleteImage(fileName)) {
+                imagesDeleted.incrementAndGet();
+            }
+        } catch (Exception e) {
+            imageDeleteFailures.incrementAndGet();
+            log.warn("Failed to delete listing image {} from B2: {}", fileName, e.getMessage());
+        }
+    }
+
+    public record CleanupStats(long listingsDeleted, long imagesDeleted, long imageDeleteFailures,
+                               int lastRunListingsDeleted, long lastRunDurationMs, LocalDateTime lastRunFinishedAt) {
+    }
+}
@@ -6,18 +6,39 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.ArrayList;
 
 @Service
 public class ListingImageService {
     
     private final B2StorageService b2StorageService;
+    private final ImageDerivativeService imageDerivativeService;
     private static final Logger logger = LoggerFactory.getLogger(ListingImageService.class);
 
-    public ListingImageService(B2StorageService b2StorageService) {
+    public ListingImageService(B2StorageService b2StorageService, ImageDerivativeService imageDerivativeService) {
         this.b2StorageService = b2StorageService;
+        this.imageDerivativeService = imageDerivativeService;
+    }
+
+    /**
+     * Uploads listing images concurrently and queues thumbnail and medium variants for every
+     * image whose format supports it. Returns the stored file names in request order.
+     */
+    public List<String> uploadListingImages(List<B2StorageService.ImageUpload> uploads) throws B2Exception {
+        List<B2StorageService.ImageUpload> named = uploads.stream()
+                .map(upload -> imageDerivativeService.canDerive(upload.file())
+                        ? new B2StorageService.ImageUpload(ImageDerivativeService.originalKey(upload.fileName()), upload.file())
+                        : upload)
+                .toList();
+        List<String> fileNames = b2StorageService.uploadImages(named);
+        for (int i = 0; i < fileNames.size(); i++) {
+            imageDerivativeService.generateDerivatives(fileNames.get(i), named.get(i).file());
+        }
+        return fileNames;
     }
 
     /**
@@ -30,6 +51,45 @@ public class ListingImageService {
                 .toList();
     }
 
+    /**
+     * Originals with stored variants among all images of the given listings, resolved in one
+     * lookup so a page of listings does not query once per listing
+     */
+    public Set<String> derivedImages(Collection<Listing> listings) {
+        return imageDerivativeService.derivedOriginals(listings.stream()
+                .flatMap(listing -> listing.getImages().stream())
+                .filter(fileName -> fileName != null && !fileName.startsWith("http://") && !fileName.startsWith("https://"))
+                .toList());
+    }
+
+    /**
+     * Converts a list of image filenames to pre-signed thumbnail URLs, using the original
+     * where no thumbnail exists (external URLs, images uploaded before thumbnails, and images
+     * whose thumbnails are still being generated or failed). derived holds the originals known
+     * to have variants, from derivedImages.
+     */
+    public List<String> generateThumbnailUrls(List<String> imageFilenames, Set<String> derived) {
+        return generateVariantUrls(imageFilenames, derived, ImageDerivativeService.Variant.THUMBNAIL);
+    }
+
+    /**
+     * Pre-signed URLs of the listing page size of each image, falling back to the original like
+     * the thumbnails do
+     */
+    public List<String> generateMediumUrls(List<String> imageFilenames, Set<String> derived) {
+        return generateVariantUrls(imageFilenames, derived, ImageDerivativeService.Variant.MEDIUM);
+    }
+
+    private List<String> generateVariantUrls(List<String> imageFilenames, Set<String> derived,
+                                             ImageDerivativeService.Variant variant) {
+        return imageFilenames.stream()
+                .map(fileName -> derived.contains(fileName)
+                        ? generatePreSignedUrl(imageDerivativeService.derivativeKey(fileName, variant))
+                        : generatePreSignedUrl(fileName))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     /**
      * Generates a pre-signed URL for a single image filename or URL
      */
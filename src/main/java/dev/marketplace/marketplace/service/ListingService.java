@@ -1,24 +1,41 @@
 package dev.marketplace.marketplace.service;
 
+import dev.marketplace.marketplace.dto.ListingCursor;
 import dev.marketplace.marketplace.dto.ListingDTO;
+import dev.marketplace.marketplace.dto.ListingEdge;
 import dev.marketplace.marketplace.dto.ListingPageResponse;
 import dev.marketplace.marketplace.dto.ListingUpdateInput;
+import dev.marketplace.marketplace.dto.PageInfo;
 import dev.marketplace.marketplace.enums.Condition;
 import dev.marketplace.marketplace.model.*;
 import dev.marketplace.marketplace.mapper.UserMapper;
 import dev.marketplace.marketplace.repository.ListingRepository;
+import dev.marketplace.marketplace.repository.ListingSpecifications;
+import dev.marketplace.marketplace.repository.OffsetPageRequest;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import dev.marketplace.marketplace.exceptions.ListingLimitExceededException;
 
 @Service
 public class ListingService {
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Same associations as Listing.DETAILS_GRAPH, for fluent queries that take property paths
+    private static final List<String> DETAILS_FETCH_PATHS =
+            List.of("user", "user.city", "category", "city", "business", "business.storeBranding", "createdBy", "createdBy.city");
+
     private final ListingImageService imageService;
     private final ListingAuthorizationService authorizationService;
     private final ListingRepository listingRepository;
@@ -57,28 +74,25 @@ public class ListingService {
         return cityService;
     }
 
-    public ListingPageResponse getListings(Integer limit, Integer offset, UUID categoryId, Double minPrice, Double maxPrice) {
-        Pageable pageable = PageRequest.of(offset / limit, limit);
-        List<Listing> listings;
-        if (categoryId != null) {
-            List<UUID> categoryIds = categoryService.getAllDescendantCategoryIds(categoryId);
-            listings = listingRepository.findByCategoryIdIn(categoryIds);
-        } else {
-            Page<Listing> page = listingRepository.findAll(pageable);
-            listings = page.getContent();
-        }
-        List<ListingDTO> listingDTOs = listings.stream().map(this::convertToDTO).toList();
-        int total = listings.size();
-        return new ListingPageResponse(listingDTOs, total);
+    private ListingDTO convertToDTO(Listing listing) {
+        return convertToDTO(listing, imageService.derivedImages(List.of(listing)));
     }
 
-    private ListingDTO convertToDTO(Listing listing) {
+    // Resolves which images have variants once for the whole list rather than once per listing
+    private List<ListingDTO> convertToDTOs(List<Listing> listings) {
+        Set<String> derivedImages = imageService.derivedImages(listings);
+        return listings.stream().map(listing -> convertToDTO(listing, derivedImages)).toList();
+    }
+
+    private ListingDTO convertToDTO(Listing listing, Set<String> derivedImages) {
         List<String> preSignedUrls = imageService.generatePreSignedUrls(listing.getImages());
         return new ListingDTO(
                 listing.getId(),
                 listing.getTitle(),
                 listing.getDescription(),
                 preSignedUrls,
+                imageService.generateThumbnailUrls(listing.getImages(), derivedImages),
+                imageService.generateMediumUrls(listing.getImages(), derivedImages),
                 listing.getCategory(),
                 listing.getPrice(),
                 listing.getQuantity(),
@@ -107,7 +121,7 @@ public class ListingService {
 
     public List<ListingDTO> getListingsByCategory(UUID categoryId) {
         List<Listing> listings = listingRepository.findByCategoryId(categoryId);
-        return listings.stream().map(this::convertToDTO).toList();
+        return convertToDTOs(listings);
     }
 
     @Transactional
@@ -272,6 +286,24 @@ public class ListingService {
         return true;
     }
 
+    /**
+     * Starts a new listing period from now and brings back a listing archived on expiry.
+     * Sold listings, and listings of a business whose subscription has lapsed, cannot be renewed.
+     */
+    @Transactional
+    public Listing renewListing(UUID listingId, UUID userId) {
+        Listing listing = authorizationService.checkUpdatePermission(listingId, userId);
+        if (listing.isSold()) {
+            throw new IllegalArgumentException("Sold listings cannot be renewed");
+        }
+        if (listing.getBusiness() != null && listing.getBusiness().isArchived()) {
+            throw new IllegalArgumentException("Listings of an archived business cannot be renewed");
+        }
+        listing.setExpiresAt(java.time.LocalDateTime.now().plusDays(Listing.LISTING_PERIOD_DAYS));
+        listing.setArchived(false);
+        return listingRepository.save(listing);
+    }
+
     @Transactional
     public Listing sellListingToBuyer(UUID listingId, UUID sellerId, UUID buyerId,
                                      java.math.BigDecimal salePrice, String paymentMethod, String notes) {
@@ -305,88 +337,188 @@ public class ListingService {
             UUID businessId,
             dev.marketplace.marketplace.model.User currentUser  // Add current user parameter
     ) {
-        Pageable pageable = (limit != null && offset != null) ? PageRequest.of(offset / limit, limit) : Pageable.unpaged();
+        // All filters, NSFW visibility, sort and LIMIT/OFFSET are evaluated by PostgreSQL;
+        // only the requested page is loaded and totalCount comes from a separate COUNT query.
+        // Relevance ordering is applied by the search specification itself, so no Sort is passed then.
+        boolean sortByRelevance = isRelevanceSort(sortBy, searchTerm);
+        Specification<Listing> spec = buildListingFilter(categoryId, minPrice, maxPrice, condition, cityId,
+                searchTerm, minDate, maxDate, userId, businessId, currentUser, sortByRelevance);
+
+        Sort sort = sortByRelevance ? Sort.unsorted() : resolveListingSort(sortBy, sortOrder);
+
+        List<Listing> pageListings;
+        long totalCount;
+        if (limit != null && offset != null) {
+            Page<Listing> page = listingRepository.findAll(spec, new OffsetPageRequest(offset, clampPageSize(limit), sort));
+            pageListings = page.getContent();
+            totalCount = page.getTotalElements();
+        } else {
+            pageListings = listingRepository.findAll(spec, sort);
+            totalCount = pageListings.size();
+        }
+        List<ListingDTO> listingDTOs = convertToDTOs(pageListings);
+        return new ListingPageResponse(listingDTOs, (int) totalCount);
+    }
+
+    /**
+     * Cursor (keyset) variant of getListingsWithFilters. Seeks past the (sort value, id) encoded in
+     * {@code after} instead of skipping rows, so deep pages cost the same as the first one and
+     * rows inserted between requests cannot shift the page boundaries.
+     *
+     * @param includeTotalCount whether the client selected totalCount; the COUNT query is skipped otherwise
+     */
+    public ListingPageResponse getListingsConnection(
+            int first,
+            String after,
+            UUID categoryId,
+            Double minPrice,
+            Double maxPrice,
+            Condition condition,
+            UUID cityId,
+            String searchTerm,
+            java.time.LocalDateTime minDate,
+            java.time.LocalDateTime maxDate,
+            String sortBy,
+            String sortOrder,
+            UUID userId,
+            UUID businessId,
+            dev.marketplace.marketplace.model.User currentUser,
+            boolean includeTotalCount
+    ) {
+        requirePageSize(first);
+        if (isRelevanceSort(sortBy, searchTerm)) {
+            throw new IllegalArgumentException("Relevance sorting is only supported with limit/offset pagination");
+        }
+        Specification<Listing> filter = buildListingFilter(categoryId, minPrice, maxPrice, condition, cityId,
+                searchTerm, minDate, maxDate, userId, businessId, currentUser, false);
+        Sort sort = resolveListingSort(sortBy, sortOrder);
+        Sort.Order primary = sort.iterator().next();
+
+        ListingCursor cursor = after != null ? ListingCursor.decode(after) : null;
+        if (cursor != null && !cursor.sortField().equals(primary.getProperty())) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort order");
+        }
+
+        Specification<Listing> spec = filter.and(ListingSpecifications.after(cursor, primary.getDirection()));
+        // Fetch one extra row to learn whether another page exists without a COUNT
+        List<Listing> rows = listingRepository.findBy(spec, q -> q.sortBy(sort).limit(first + 1)
+                .project(DETAILS_FETCH_PATHS).all());
+        long totalCount = includeTotalCount ? listingRepository.count(filter) : 0;
+        return toConnection(rows, first, primary.getProperty(), totalCount);
+    }
 
+    /**
+     * Combines every getListings filter and the viewer's NSFW visibility into one specification.
+     */
+    private Specification<Listing> buildListingFilter(
+            UUID categoryId,
+            Double minPrice,
+            Double maxPrice,
+            Condition condition,
+            UUID cityId,
+            String searchTerm,
+            java.time.LocalDateTime minDate,
+            java.time.LocalDateTime maxDate,
+            UUID userId,
+            UUID businessId,
+            dev.marketplace.marketplace.model.User currentUser,
+            boolean orderByRelevance
+    ) {
         final List<UUID> categoryIds = (categoryId != null)
             ? categoryService.getAllDescendantCategoryIds(categoryId)
             : null;
 
         // Resolve the business (if any) that the current user is associated with once,
         // so we can allow business owners/users to see their own pending approval listings.
-        dev.marketplace.marketplace.model.Business tmpBusiness = null;
+        dev.marketplace.marketplace.model.Business currentUserBusiness = null;
         if (currentUser != null) {
             try {
-                tmpBusiness = authorizationService.getBusinessForUser(currentUser.getId());
+                currentUserBusiness = authorizationService.getBusinessForUser(currentUser.getId());
             } catch (Exception ignored) {
                 // If we can't resolve a business for the user, we simply won't apply the business-based override below.
             }
         }
-        final dev.marketplace.marketplace.model.Business currentUserBusiness = tmpBusiness;
-
-        List<Listing> filteredListings = listingRepository.findAll();
-
-        filteredListings = filteredListings.stream()
-            .filter(l -> categoryIds == null || (l.getCategory() != null && categoryIds.contains(l.getCategory().getId())))
-            .filter(l -> minPrice == null || l.getPrice() >= minPrice)
-            .filter(l -> maxPrice == null || l.getPrice() <= maxPrice)
-            .filter(l -> condition == null || l.getCondition() == condition)
-            .filter(l -> cityId == null || (l.getCity() != null && l.getCity().getId().equals(cityId)))
-            .filter(l -> userId == null || (l.getUser() != null && l.getUser().getId().equals(userId)))
-            .filter(l -> businessId == null || (l.getBusiness() != null && l.getBusiness().getId().equals(businessId)))
-            .filter(l -> searchTerm == null || l.getTitle().toLowerCase().contains(searchTerm.toLowerCase()) || l.getDescription().toLowerCase().contains(searchTerm.toLowerCase()))
-            .filter(l -> minDate == null || (l.getCreatedAt() != null && !l.getCreatedAt().isBefore(minDate)))
-            .filter(l -> maxDate == null || (l.getCreatedAt() != null && !l.getCreatedAt().isAfter(maxDate)))
-            .filter(l -> {
-                // Always allow the owner of a listing (personal listing) to see it,
-                // even if it is pending NSFW approval.
-                boolean isPersonalOwner = currentUser != null
-                        && l.getUser() != null
-                        && l.getUser().getId().equals(currentUser.getId());
-
-                // For business listings, allow users associated with that business
-                // to see their own pending approval items.
-                boolean isBusinessUser = currentUser != null
-                        && currentUserBusiness != null
-                        && l.getBusiness() != null
-                        && l.getBusiness().getId().equals(currentUserBusiness.getId());
-
-                if (isPersonalOwner || isBusinessUser) {
-                    return true;
-                }
 
-                // Fallback to normal NSFW visibility rules for everyone else.
-                return nsfwContentService.canUserViewListing(l, currentUser);
-            })
-            .toList();
-
-        if (sortBy != null && sortOrder != null) {
-            java.util.Comparator<Listing> comparator = null;
-            if ("price".equalsIgnoreCase(sortBy)) {
-                comparator = java.util.Comparator.comparing(Listing::getPrice);
-            } else if ("createdAt".equalsIgnoreCase(sortBy)) {
-                comparator = java.util.Comparator.comparing(Listing::getCreatedAt);
-            }
-            if (comparator != null) {
-                if ("desc".equalsIgnoreCase(sortOrder)) {
-                    comparator = comparator.reversed();
-                }
-                filteredListings = filteredListings.stream().sorted(comparator).toList();
-            }
+        return Specification.where(ListingSpecifications.inCategories(categoryIds))
+            .and(ListingSpecifications.minPrice(minPrice))
+            .and(ListingSpecifications.maxPrice(maxPrice))
+            .and(ListingSpecifications.hasCondition(condition))
+            .and(ListingSpecifications.inCity(cityId))
+            .and(ListingSpecifications.ownedByUser(userId))
+            .and(ListingSpecifications.ownedByBusiness(businessId))
+            .and(ListingSpecifications.matchesSearchTerm(searchTerm, orderByRelevance))
+            .and(ListingSpecifications.createdAfter(minDate))
+            .and(ListingSpecifications.createdBefore(maxDate))
+            .and(ListingSpecifications.visibleTo(
+                    currentUser != null ? currentUser.getId() : null,
+                    currentUserBusiness != null ? currentUserBusiness.getId() : null,
+                    nsfwContentService.canUserViewNSFW(currentUser)));
+    }
+
+    private static void requirePageSize(int first) {
+        if (first < 1 || first > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("first must be between 1 and " + MAX_PAGE_SIZE);
         }
-        // Pagination
-        int totalCount = filteredListings.size();
-        List<Listing> paginatedListings = filteredListings;
-        if (limit != null && offset != null) {
-            int startIndex = offset;
-            int endIndex = Math.min(startIndex + limit, totalCount);
-            if (startIndex < totalCount) {
-                paginatedListings = filteredListings.subList(startIndex, endIndex);
-            } else {
-                paginatedListings = List.of();
-            }
+    }
+
+    // Offset pages keep accepting large limits from existing clients but never load more than a page
+    private static int clampPageSize(int limit) {
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private ListingPageResponse toConnection(List<Listing> rows, int first, String sortField, long totalCount) {
+        boolean hasNextPage = rows.size() > first;
+        List<ListingEdge> edges = convertToDTOs(rows.subList(0, Math.min(rows.size(), first))).stream()
+                .map(dto -> new ListingEdge(ListingCursor.of(dto, sortField).encode(), dto))
+                .toList();
+        String endCursor = edges.isEmpty() ? null : edges.get(edges.size() - 1).cursor();
+        return new ListingPageResponse(edges, new PageInfo(hasNextPage, endCursor), (int) totalCount);
+    }
+
+    private boolean isRelevanceSort(String sortBy, String searchTerm) {
+        return "relevance".equalsIgnoreCase(sortBy) && searchTerm != null && !searchTerm.isBlank();
+    }
+
+    /**
+     * Maps the GraphQL sortBy/sortOrder arguments to a database sort. Newest first is the
+     * default, and id is always the final tie-breaker so pages are stable between requests.
+     */
+    private Sort resolveListingSort(String sortBy, String sortOrder) {
+        Sort.Direction direction = "desc".equalsIgnoreCase(sortOrder) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort;
+        if ("price".equalsIgnoreCase(sortBy)) {
+            sort = Sort.by(direction, "price");
+        } else if ("createdAt".equalsIgnoreCase(sortBy)) {
+            sort = Sort.by(direction, "createdAt");
+        } else {
+            sort = Sort.by(Sort.Direction.DESC, "createdAt");
+        }
+        return sort.and(Sort.by(sort.iterator().next().getDirection(), "id"));
+    }
+
+    /**
+     * Offset page of the caller's own listings (same visibility as getListingsByUserId), newest first.
+     */
+    public ListingPageResponse getOwnListingsPage(UUID userId, int limit, int offset) {
+        Page<Listing> page = listingRepository.findOwnListings(userId, new OffsetPageRequest(offset, clampPageSize(limit), Sort.unsorted()));
+        List<ListingDTO> listingDTOs = convertToDTOs(page.getContent());
+        return new ListingPageResponse(listingDTOs, (int) page.getTotalElements());
+    }
+
+    /**
+     * Cursor page of the caller's own listings, seeking on (createdAt, id).
+     */
+    public ListingPageResponse getOwnListingsConnection(UUID userId, int first, String after, boolean includeTotalCount) {
+        requirePageSize(first);
+        ListingCursor cursor = after != null ? ListingCursor.decode(after) : null;
+        if (cursor != null && !ListingCursor.CREATED_AT.equals(cursor.sortField())) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort order");
         }
-        List<ListingDTO> listingDTOs = paginatedListings.stream().map(this::convertToDTO).toList();
-        return new ListingPageResponse(listingDTOs, totalCount);
+        List<Listing> rows = cursor == null
+                ? listingRepository.findOwnListingsFirst(userId, Limit.of(first + 1))
+                : listingRepository.findOwnListingsAfter(userId, cursor.createdAtValue(), cursor.id(), Limit.of(first + 1));
+        long totalCount = includeTotalCount ? listingRepository.countOwnListings(userId) : 0;
+        return toConnection(rows, first, ListingCursor.CREATED_AT, totalCount);
     }
 
     /**
@@ -394,7 +526,22 @@ public class ListingService {
      */
     public List<ListingDTO> getListingsByUserId(UUID userId) {
         List<Listing> listings = listingRepository.findByUserId(userId);
-        return listings.stream().map(this::convertToDTO).toList();
+        return convertToDTOs(listings);
+    }
+
+    /**
+     * Listings of several sellers in one query, grouped by seller id, with the same
+     * visibility as getListingsByUserId. Every requested id has an entry, possibly empty.
+     */
+    public Map<UUID, List<ListingDTO>> getListingsByUserIds(Collection<UUID> userIds) {
+        Map<UUID, List<ListingDTO>> listingsByUser = new HashMap<>();
+        userIds.forEach(userId -> listingsByUser.put(userId, new ArrayList<>()));
+        List<Listing> listings = listingRepository.findByUserIdIn(userIds);
+        Set<String> derivedImages = imageService.derivedImages(listings);
+        for (Listing listing : listings) {
+            listingsByUser.get(listing.getUser().getId()).add(convertToDTO(listing, derivedImages));
+        }
+        return listingsByUser;
     }
 
     @Transactional
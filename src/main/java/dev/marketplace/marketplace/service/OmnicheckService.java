@@ -4,7 +4,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
@@ -24,6 +26,9 @@ public class OmnicheckService {
 
     // Allow these to be replaced in tests in future (keeps current behaviour by default)
     private RestTemplate restTemplate; // may be injected in tests; lazily created at runtime
+    // Boot's builder instruments the template, so calls are timed as http.client.requests
+    @Autowired(required = false)
+    private RestTemplateBuilder restTemplateBuilder;
     private final ObjectMapper objectMapper = new ObjectMapper();
     @Value("${omnicheck.baseUrl:https://www.omnicheck.co.za/webservice}")
     private String baseUrl;
@@ -359,7 +364,7 @@ public class OmnicheckService {
     // Helper to ensure RestTemplate is available (allows tests to inject via reflection)
     private RestTemplate rest() {
         if (this.restTemplate == null) {
-            this.restTemplate = new RestTemplate();
+            this.restTemplate = restTemplateBuilder != null ? restTemplateBuilder.build() : new RestTemplate();
         }
         return this.restTemplate;
     }
@@ -1,19 +1,29 @@
 package dev.marketplace.marketplace.service;
 
+import dev.marketplace.marketplace.dto.PageInfo;
+import dev.marketplace.marketplace.dto.ReviewConnection;
+import dev.marketplace.marketplace.dto.ReviewCursor;
+import dev.marketplace.marketplace.dto.ReviewEdge;
 import dev.marketplace.marketplace.model.Review;
+import dev.marketplace.marketplace.model.ReviewSummary;
 import dev.marketplace.marketplace.model.Transaction;
 import dev.marketplace.marketplace.model.Listing;
 import dev.marketplace.marketplace.model.User;
 import dev.marketplace.marketplace.repository.ReviewRepository;
+import dev.marketplace.marketplace.repository.ReviewSummaryRepository;
 import dev.marketplace.marketplace.repository.TransactionRepository;
 import dev.marketplace.marketplace.repository.ListingRepository;
 import dev.marketplace.marketplace.repository.UserRepository;
+import dev.marketplace.marketplace.service.event.ReviewChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,13 +32,15 @@ import java.util.UUID;
 @RequiredArgsConstructor
 @Slf4j
 public class ReviewService {
+
+    private static final int MAX_PAGE_SIZE = 100;
     
     private final ReviewRepository reviewRepository;
     private final TransactionRepository transactionRepository;
     private final ListingRepository listingRepository;
     private final UserRepository userRepository;
-    private final TrustRatingService trustRatingService;
-    private final BusinessService businessService;
+    private final ReviewSummaryRepository reviewSummaryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public Review createReview(UUID reviewerId,
@@ -80,14 +92,10 @@ public class ReviewService {
                 .comment(comment)
                 .build();
         Review savedReview = reviewRepository.save(review);
+        updateReviewSummaries(reviewedUserId, businessIdOf(savedReview), null, rating);
 
-        // Recalculate trust rating for the reviewed user (seller)
-        trustRatingService.calculateAndUpdateTrustRating(reviewedUserId);
-
-        // Recalculate business trust rating if this is a business review
-        if (savedReview.getBusiness() != null) {
-            businessService.getBusinessTrustRating(savedReview.getBusiness().getId());
-        }
+        // Trust ratings of the reviewed user (and business) are updated incrementally by the listener
+        eventPublisher.publishEvent(ReviewChangedEvent.created(reviewedUserId, businessIdOf(savedReview), rating));
         return savedReview;
     }
     
@@ -95,17 +103,14 @@ public class ReviewService {
     public Review updateReview(UUID reviewId, BigDecimal rating, String comment) {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new IllegalArgumentException("Review not found: " + reviewId));
+        BigDecimal previousRating = review.getRating();
         review.setRating(rating);
         review.setComment(comment);
         Review updatedReview = reviewRepository.save(review);
+        updateReviewSummaries(updatedReview.getReviewedUser().getId(), businessIdOf(updatedReview), previousRating, rating);
 
-        // Recalculate trust rating for the reviewed user
-        trustRatingService.calculateAndUpdateTrustRating(updatedReview.getReviewedUser().getId());
-
-        // Recalculate business trust rating if this is a business review
-        if (updatedReview.getBusiness() != null) {
-            businessService.getBusinessTrustRating(updatedReview.getBusiness().getId());
-        }
+        eventPublisher.publishEvent(ReviewChangedEvent.updated(updatedReview.getReviewedUser().getId(),
+                businessIdOf(updatedReview), previousRating, rating));
         return updatedReview;
     }
     
@@ -114,16 +119,75 @@ public class ReviewService {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new IllegalArgumentException("Review not found: " + reviewId));
         UUID reviewedUserId = review.getReviewedUser().getId();
-        UUID businessId = review.getBusiness() != null ? review.getBusiness().getId() : null;
+        UUID businessId = businessIdOf(review);
+        BigDecimal previousRating = review.getRating();
         reviewRepository.delete(review);
+        updateReviewSummaries(reviewedUserId, businessId, previousRating, null);
 
-        // Recalculate trust rating for the reviewed user
-        trustRatingService.calculateAndUpdateTrustRating(reviewedUserId);
+        eventPublisher.publishEvent(ReviewChangedEvent.deleted(reviewedUserId, businessId, previousRating));
+    }
 
-        // Recalculate business trust rating if this was a business review
+    /**
+     * Applies a review change to the summaries of the reviewed user and business, in the
+     * transaction that changed the review.
+     */
+    private void updateReviewSummaries(UUID reviewedUserId, UUID businessId, BigDecimal previousRating, BigDecimal rating) {
+        updateReviewSummary(ReviewSummary.SubjectType.USER, reviewedUserId, previousRating, rating);
         if (businessId != null) {
-            businessService.getBusinessTrustRating(businessId);
+            updateReviewSummary(ReviewSummary.SubjectType.BUSINESS, businessId, previousRating, rating);
+        }
+    }
+
+    private void updateReviewSummary(ReviewSummary.SubjectType subjectType, UUID subjectId,
+                                     BigDecimal previousRating, BigDecimal rating) {
+        // Creating the row before locking it makes concurrent first changes queue on the row lock
+        boolean created = reviewSummaryRepository.insertIfAbsent(subjectType.name(), subjectId) > 0;
+        ReviewSummary summary = reviewSummaryRepository.findForUpdate(subjectType, subjectId)
+                .orElseThrow(() -> new IllegalStateException("Review summary missing for " + subjectType + " " + subjectId));
+        if (created) {
+            // First review change since the summaries were introduced: seed from the review table,
+            // which already reflects this change
+            recount(summary);
+        } else {
+            summary.apply(previousRating, rating);
+        }
+        reviewSummaryRepository.save(summary);
+    }
+
+    /**
+     * Recounts a summary from the review table under its row lock. Repairs summaries that missed
+     * reviews the database deleted by ON DELETE CASCADE (see ReviewSummaryReconciler).
+     */
+    @Transactional
+    public void reconcileReviewSummary(ReviewSummary.SubjectType subjectType, UUID subjectId) {
+        reviewSummaryRepository.findForUpdate(subjectType, subjectId).ifPresent(summary -> {
+            recount(summary);
+            reviewSummaryRepository.save(summary);
+        });
+    }
+
+    private void recount(ReviewSummary summary) {
+        boolean user = summary.getSubjectType() == ReviewSummary.SubjectType.USER;
+        UUID subjectId = summary.getSubjectId();
+        long count = Optional.ofNullable(user
+                ? reviewRepository.countReviewsByUserId(subjectId)
+                : reviewRepository.countReviewsByBusinessId(subjectId)).orElse(0L);
+        summary.setReviewCount(count);
+        summary.setRatingSum(BigDecimal.ZERO);
+        summary.setPositiveCount(0);
+        if (count > 0) {
+            summary.setRatingSum(Optional.ofNullable(user
+                    ? reviewRepository.sumRatingByUserId(subjectId)
+                    : reviewRepository.sumRatingByBusinessId(subjectId)).orElse(BigDecimal.ZERO));
+            summary.setPositiveCount(Optional.ofNullable(user
+                    ? reviewRepository.countPositiveReviewsByUserId(subjectId)
+                    : reviewRepository.countPositiveReviewsByBusinessId(subjectId)).orElse(0L));
         }
+        summary.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private static UUID businessIdOf(Review review) {
+        return review.getBusiness() != null ? review.getBusiness().getId() : null;
     }
     
     @Transactional(readOnly = true)
@@ -156,30 +220,83 @@ public class ReviewService {
         return reviewRepository.findByReviewerIdAndTransactionId(reviewerId, transactionId);
     }
     
+    /**
+     * Review totals of a user from the precomputed summary, a single primary-key lookup.
+     */
+    @Transactional(readOnly = true)
+    public ReviewSummary getUserReviewSummary(UUID userId) {
+        return reviewSummaryRepository.findById(new ReviewSummary.Key(ReviewSummary.SubjectType.USER, userId))
+                .orElseGet(() -> ReviewSummary.empty(ReviewSummary.SubjectType.USER, userId));
+    }
+
     @Transactional(readOnly = true)
     public BigDecimal getUserAverageRating(UUID userId) {
-        BigDecimal average = reviewRepository.getAverageRatingByUserId(userId);
-        return average != null ? average : BigDecimal.ZERO;
+        return getUserReviewSummary(userId).getAverageRating();
     }
     
     @Transactional(readOnly = true)
     public Long getUserReviewCount(UUID userId) {
-        return reviewRepository.countReviewsByUserId(userId);
+        return getUserReviewSummary(userId).getReviewCount();
     }
     
     @Transactional(readOnly = true)
     public Long getUserPositiveReviewCount(UUID userId) {
-        return reviewRepository.countPositiveReviewsByUserId(userId);
+        return getUserReviewSummary(userId).getPositiveCount();
     }
     
     @Transactional(readOnly = true)
     public List<Review> getRecentUserReviews(UUID userId, int limit) {
-        List<Review> reviews = reviewRepository.findRecentReviewsByUserId(userId);
-        return reviews.stream().limit(limit).toList();
+        if (limit < 1) {
+            return List.of();
+        }
+        return reviewRepository.findUserReviewsFirst(userId, false, Limit.of(Math.min(limit, MAX_PAGE_SIZE)));
     }
     
     @Transactional(readOnly = true)
     public List<Review> getReviewsByMinimumRating(BigDecimal minRating) {
         return reviewRepository.findReviewsByMinimumRating(minRating);
     }
+
+    /**
+     * Cursor page of the reviews a user received, newest first, seeking on (createdAt, id).
+     */
+    @Transactional(readOnly = true)
+    public ReviewConnection getUserReviewsConnection(UUID userId, boolean positiveOnly, int first, String after) {
+        requirePageSize(first);
+        ReviewCursor cursor = after != null ? ReviewCursor.decode(after) : null;
+        List<Review> rows = cursor == null
+                ? reviewRepository.findUserReviewsFirst(userId, positiveOnly, Limit.of(first + 1))
+                : reviewRepository.findUserReviewsAfter(userId, positiveOnly, cursor.createdAt(), cursor.id(), Limit.of(first + 1));
+        return toConnection(rows, first);
+    }
+
+    /**
+     * Cursor page of reviews across the platform with at least the given rating, newest first.
+     */
+    @Transactional(readOnly = true)
+    public ReviewConnection getReviewsByMinimumRatingConnection(BigDecimal minRating, int first, String after) {
+        requirePageSize(first);
+        ReviewCursor cursor = after != null ? ReviewCursor.decode(after) : null;
+        List<Review> rows = cursor == null
+                ? reviewRepository.findReviewsByMinimumRatingFirst(minRating, Limit.of(first + 1))
+                : reviewRepository.findReviewsByMinimumRatingAfter(minRating, cursor.createdAt(), cursor.id(), Limit.of(first + 1));
+        return toConnection(rows, first);
+    }
+
+    private static void requirePageSize(int first) {
+        if (first < 1 || first > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("first must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    // Queries fetch one row more than the page to learn whether another page follows
+    private static ReviewConnection toConnection(List<Review> rows, int first) {
+        boolean hasNextPage = rows.size() > first;
+        List<ReviewEdge> edges = rows.stream()
+                .limit(first)
+                .map(review -> new ReviewEdge(new ReviewCursor(review.getCreatedAt(), review.getId()).encode(), review))
+                .toList();
+        String endCursor = edges.isEmpty() ? null : edges.get(edges.size() - 1).cursor();
+        return new ReviewConnection(edges, new PageInfo(hasNextPage, endCursor));
+    }
 }
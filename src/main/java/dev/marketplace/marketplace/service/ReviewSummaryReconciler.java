@@ -0,0 +1,49 @@
+package dev.marketplace.marketplace.service;
+
+import dev.marketplace.marketplace.model.ReviewSummary;
+import dev.marketplace.marketplace.repository.ReviewSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repairs review summaries that drifted from the review table. ReviewService keeps summaries in
+ * step with every review it changes, but the database also deletes reviews on its own, by
+ * ON DELETE CASCADE when a reviewer, reviewed user or transaction is deleted.
+ *
+ * Drifted summaries are found with one read-only comparison per subject type, then recounted one
+ * by one under their row lock, so a review change racing with the repair is never lost.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReviewSummaryReconciler {
+
+    private final ReviewSummaryRepository reviewSummaryRepository;
+    private final ReviewService reviewService;
+
+    // Runs every day at 3:15am
+    @Scheduled(cron = "0 15 3 * * *")
+    public void reconcileReviewSummaries() {
+        int repaired = reconcile(ReviewSummary.SubjectType.USER, reviewSummaryRepository.findDriftedUserSummaries())
+                + reconcile(ReviewSummary.SubjectType.BUSINESS, reviewSummaryRepository.findDriftedBusinessSummaries());
+        log.info("Review summary reconciliation: {} summaries recounted", repaired);
+    }
+
+    private int reconcile(ReviewSummary.SubjectType subjectType, List<UUID> subjectIds) {
+        int repaired = 0;
+        for (UUID subjectId : subjectIds) {
+            try {
+                reviewService.reconcileReviewSummary(subjectType, subjectId);
+                repaired++;
+            } catch (Exception e) {
+                log.warn("Failed to reconcile {} review summary {}: {}", subjectType, subjectId, e.getMessage());
+            }
+        }
+        return repaired;
+    }
+}
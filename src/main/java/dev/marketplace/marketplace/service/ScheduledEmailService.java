@@ -1,5 +1,6 @@
 package dev.marketplace.marketplace.service;
 
+import dev.marketplace.marketplace.dto.ExpiringListing;
 import dev.marketplace.marketplace.model.Subscription;
 import dev.marketplace.marketplace.model.User;
 import dev.marketplace.marketplace.repository.SubscriptionRepository;
@@ -7,12 +8,23 @@ import dev.marketplace.marketplace.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
 
 /**
  * ScheduledEmailService handles background email sending tasks.
@@ -24,6 +36,46 @@ import java.util.List;
 @Slf4j
 public class ScheduledEmailService {
 
+    // Smallest UUID, the starting point of id keyset scans
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    private static final int LISTING_WARNING_DAYS = 7;
+    private static final String LISTING_RENEW_URL = "https://www.dealio.org.za/dashboard";
+
+    // Live listings in the warning window not yet warned for their current expiry; business
+    // listings without an owning user go to the user who created them
+    private static final String EXPIRING_LISTING_FILTER = """
+            l.archived = FALSE AND l.sold = FALSE
+              AND l.expires_at > :now AND l.expires_at <= :windowEnd
+              AND (l.expiration_warning_sent_for IS NULL OR l.expiration_warning_sent_for <> l.expires_at)
+            """;
+
+    private static final String EXPIRING_LISTING_SELLERS_SQL = """
+            SELECT DISTINCT COALESCE(l.user_id, l.created_by) AS seller_id
+            FROM listing l
+            WHERE """ + EXPIRING_LISTING_FILTER + """
+              AND COALESCE(l.user_id, l.created_by) > :after
+            ORDER BY seller_id
+            LIMIT :limit
+            """;
+
+    private static final String EXPIRING_LISTINGS_SQL = """
+            SELECT l.id, l.title, l.expires_at, u.id AS seller_id, u.email, u.first_name, u.username
+            FROM listing l
+            JOIN users u ON u.id = COALESCE(l.user_id, l.created_by)
+            WHERE """ + EXPIRING_LISTING_FILTER + """
+              AND u.id IN (:sellerIds)
+            ORDER BY u.id, l.expires_at, l.id
+            """;
+
+    private static final String MARK_LISTINGS_WARNED_SQL =
+            "UPDATE listing SET expiration_warning_sent_for = expires_at WHERE id IN (:ids)";
+
+    private static final String ARCHIVE_EXPIRED_LISTINGS_SQL = """
+            UPDATE listing SET archived = TRUE, archived_at = :now
+            WHERE archived = FALSE AND sold = FALSE AND expires_at <= :now
+            """;
+
     @Autowired
     private SubscriptionRepository subscriptionRepository;
 
@@ -36,31 +88,120 @@ public class ScheduledEmailService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Value("${marketplace.scheduled-email.chunk-size:500}")
+    private int chunkSize;
+
     /**
-     * Check for listings expiring in the next 7 days and send warning emails.
-     * Runs daily at 2 AM.
+     * Check for listings expiring in the next 7 days and send warning emails, then archive
+     * listings that have expired. Runs daily at 2 AM.
+     *
+     * Sellers are processed in chunks, each in its own short transaction: their expiring listings
+     * are read with one indexed query, each seller gets a single digest email, and the listings are
+     * marked as warned for their current expiry. Archiving is one set-based update.
      */
     @Scheduled(cron = "0 0 2 * * *")
     public void checkListingExpirations() {
         log.info("Starting scheduled task: checkListingExpirations");
         try {
-            // TODO: Implement listing expiration check logic
-            // 1. Find all active listings expiring within 7 days
-            // 2. Filter those that haven't received a warning email yet
-            // 3. Send warning emails
-            // 4. Update expirationWarningEmailSentAt timestamp
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime sevenDaysFromNow = now.plusDays(LISTING_WARNING_DAYS);
+
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            UUID after = FIRST_ID;
+            int sellersWarned = 0;
+            int listingsWarned = 0;
+            while (true) {
+                UUID cursor = after;
+                ChunkResult chunk = transactionTemplate.execute(status ->
+                        warnSellersWithExpiringListings(now, sevenDaysFromNow, cursor));
+                if (chunk == null || chunk.size() == 0) {
+                    break;
+                }
+                sellersWarned += chunk.size();
+                listingsWarned += chunk.handled();
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+                after = chunk.lastId();
+            }
+            log.info("Queued listing expiration digests for {} sellers covering {} listings", sellersWarned, listingsWarned);
+
+            int archived = jdbcTemplate.update(ARCHIVE_EXPIRED_LISTINGS_SQL, new MapSqlParameterSource("now", now));
+            log.info("Archived {} expired listings", archived);
             log.debug("Completed listing expiration check");
         } catch (Exception e) {
             log.error("Error in checkListingExpirations scheduled task", e);
         }
     }
 
+    /**
+     * Sends one digest to each seller in the next chunk of sellers with listings due a warning
+     * and marks those listings as warned. The returned size is the number of sellers in the
+     * chunk; handled is the number of listings warned.
+     */
+    private ChunkResult warnSellersWithExpiringListings(LocalDateTime now, LocalDateTime windowEnd, UUID after) {
+        MapSqlParameterSource params = new MapSqlParameterSource("now", now)
+                .addValue("windowEnd", windowEnd)
+                .addValue("after", after)
+                .addValue("limit", chunkSize);
+        List<UUID> sellerIds = jdbcTemplate.queryForList(EXPIRING_LISTING_SELLERS_SQL, params, UUID.class);
+        if (sellerIds.isEmpty()) {
+            return new ChunkResult(null, 0, 0);
+        }
+
+        // Rows arrive grouped by seller, soonest expiry first
+        Map<UUID, SellerDigest> digests = new LinkedHashMap<>();
+        jdbcTemplate.query(EXPIRING_LISTINGS_SQL, params.addValue("sellerIds", sellerIds), rs -> {
+            UUID sellerId = rs.getObject("seller_id", UUID.class);
+            String email = rs.getString("email");
+            String firstName = rs.getString("first_name");
+            String name = firstName != null ? firstName : rs.getString("username");
+            SellerDigest digest = digests.computeIfAbsent(sellerId, id -> new SellerDigest(email, name, new ArrayList<>()));
+            LocalDateTime expiresAt = rs.getTimestamp("expires_at").toLocalDateTime();
+            int daysRemaining = (int) Math.max(1, ChronoUnit.DAYS.between(now.toLocalDate(), expiresAt.toLocalDate()));
+            digest.listings().add(new ExpiringListing(rs.getObject("id", UUID.class), rs.getString("title"), daysRemaining));
+        });
+
+        List<UUID> warnedListingIds = new ArrayList<>();
+        for (Map.Entry<UUID, SellerDigest> entry : digests.entrySet()) {
+            SellerDigest digest = entry.getValue();
+            try {
+                if (digest.email() == null) {
+                    log.warn("Cannot send listing expiration warning - seller {} has no email", entry.getKey());
+                    continue;
+                }
+                emailService.sendListingExpirationDigestEmail(
+                        digest.email(), digest.name(), digest.listings(), LISTING_RENEW_URL);
+                digest.listings().forEach(listing -> warnedListingIds.add(listing.id()));
+            } catch (Exception e) {
+                log.error("Failed to queue listing expiration warning for seller {}: {}",
+                        entry.getKey(), e.getMessage(), e);
+            }
+        }
+        if (!warnedListingIds.isEmpty()) {
+            jdbcTemplate.update(MARK_LISTINGS_WARNED_SQL, new MapSqlParameterSource("ids", warnedListingIds));
+        }
+        return new ChunkResult(sellerIds.get(sellerIds.size() - 1), sellerIds.size(), warnedListingIds.size());
+    }
+
+    private record SellerDigest(String email, String name, List<ExpiringListing> listings) {
+    }
+
     /**
      * Check for subscriptions expiring in the next 7 days and send warning emails.
      * Runs daily at 2:30 AM.
+     *
+     * Subscriptions are read in keyset-ordered chunks with their users fetched, each chunk in its
+     * own short transaction. Warning emails go to the outbox in the same transaction that records
+     * the warning on the subscription, so a rerun never warns twice for the same period.
      */
     @Scheduled(cron = "0 30 2 * * *")
-    @Transactional
     public void checkSubscriptionExpirations() {
         log.info("[Scheduled] ========== Starting subscription expiration check ==========");
         try {
@@ -69,56 +210,15 @@ public class ScheduledEmailService {
 
             // Phase 1: Find subscriptions expiring in next 7 days
             log.info("[Scheduled] Looking for subscriptions expiring between {} and {}", now, sevenDaysFromNow);
-            List<Subscription> expiringSubscriptions = subscriptionRepository
-                .findExpiringSubscriptions(now, sevenDaysFromNow);
-
-            log.info("[Scheduled] Found {} subscriptions expiring in next 7 days", expiringSubscriptions.size());
-
-            for (Subscription subscription : expiringSubscriptions) {
-                try {
-                    User user = subscription.getUser();
-
-                    if (subscription.willCancelAtPeriodEnd()) {
-                        // User has marked subscription for cancellation
-                        log.info("[Scheduled] Subscription {} will be cancelled at period end (user initiated)",
-                                subscription.getId());
-                    } else {
-                        // Send renewal warning email (auto-renewal enabled)
-                        sendRenewalWarningEmail(user, subscription);
-                    }
-                } catch (Exception e) {
-                    log.error("[Scheduled] Error processing subscription {}: {}",
-                             subscription.getId(), e.getMessage(), e);
-                }
-            }
+            ScanResult expiring = scanExpiringSubscriptions(now, sevenDaysFromNow, this::warnExpiringSubscriptions);
+            log.info("[Scheduled] Found {} subscriptions expiring in next 7 days, {} warning emails queued",
+                    expiring.scanned(), expiring.handled());
 
             // Phase 2: Check subscriptions that expired in the last 24 hours
             log.info("[Scheduled] Looking for subscriptions that expired in the last 24 hours");
             LocalDateTime yesterday = now.minusDays(1);
-            List<Subscription> recentlyExpired = subscriptionRepository
-                .findExpiringSubscriptions(yesterday, now);
-
-            log.info("[Scheduled] Found {} subscriptions that expired recently", recentlyExpired.size());
-
-            for (Subscription subscription : recentlyExpired) {
-                try {
-                    if (subscription.getStatus() == Subscription.SubscriptionStatus.ACTIVE) {
-                        // Renewal ITN was successfully processed
-                        log.info("[Scheduled] Subscription {} was successfully renewed", subscription.getId());
-                    } else if (subscription.getStatus() == Subscription.SubscriptionStatus.PAST_DUE) {
-                        // Renewal failed - subscription is past due
-                        log.warn("[Scheduled] Subscription {} failed to renew (status: PAST_DUE)", subscription.getId());
-                        handleFailedRenewal(subscription);
-                    } else {
-                        // Subscription was cancelled
-                        log.info("[Scheduled] Subscription {} has status: {}",
-                                subscription.getId(), subscription.getStatus());
-                    }
-                } catch (Exception e) {
-                    log.error("[Scheduled] Error handling expired subscription {}: {}",
-                             subscription.getId(), e.getMessage(), e);
-                }
-            }
+            ScanResult recentlyExpired = scanExpiringSubscriptions(yesterday, now, this::handleRecentlyExpiredSubscriptions);
+            log.info("[Scheduled] Found {} subscriptions that expired recently", recentlyExpired.scanned());
 
             log.info("[Scheduled] ========== Completed subscription expiration check ==========");
         } catch (Exception e) {
@@ -126,14 +226,113 @@ public class ScheduledEmailService {
         }
     }
 
+    /**
+     * Pages through active subscriptions whose period ends in the range, in (period end, id)
+     * order, handing each chunk to the handler inside its own transaction.
+     */
+    private ScanResult scanExpiringSubscriptions(LocalDateTime start, LocalDateTime end,
+                                                 Function<List<Subscription>, Integer> chunkHandler) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        LocalDateTime afterPeriodEnd = start;
+        UUID afterId = FIRST_ID;
+        int scanned = 0;
+        int handled = 0;
+        while (true) {
+            LocalDateTime periodEndCursor = afterPeriodEnd;
+            UUID idCursor = afterId;
+            SubscriptionChunk chunk = transactionTemplate.execute(status -> {
+                List<Subscription> subscriptions = subscriptionRepository.findExpiringSubscriptionsAfter(
+                        periodEndCursor, idCursor, end, PageRequest.of(0, chunkSize));
+                if (subscriptions.isEmpty()) {
+                    return new SubscriptionChunk(null, null, 0, 0);
+                }
+                Subscription last = subscriptions.get(subscriptions.size() - 1);
+                return new SubscriptionChunk(last.getCurrentPeriodEnd(), last.getId(), subscriptions.size(),
+                        chunkHandler.apply(subscriptions));
+            });
+            if (chunk == null || chunk.size() == 0) {
+                break;
+            }
+            scanned += chunk.size();
+            handled += chunk.handled();
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+            afterPeriodEnd = chunk.lastPeriodEnd();
+            afterId = chunk.lastId();
+        }
+        return new ScanResult(scanned, handled);
+    }
+
+    /**
+     * Queues a renewal warning for each subscription not yet warned for its current period.
+     * Returns the number of warnings queued.
+     */
+    private int warnExpiringSubscriptions(List<Subscription> subscriptions) {
+        int warned = 0;
+        for (Subscription subscription : subscriptions) {
+            try {
+                if (subscription.willCancelAtPeriodEnd()) {
+                    // User has marked subscription for cancellation
+                    log.info("[Scheduled] Subscription {} will be cancelled at period end (user initiated)",
+                            subscription.getId());
+                } else if (subscription.getCurrentPeriodEnd().equals(subscription.getExpirationWarningSentFor())) {
+                    log.debug("[Scheduled] Renewal warning already sent for subscription {}", subscription.getId());
+                } else if (sendRenewalWarningEmail(subscription.getUser(), subscription)) {
+                    // Send renewal warning email (auto-renewal enabled); saved on commit with the queued email
+                    subscription.setExpirationWarningSentFor(subscription.getCurrentPeriodEnd());
+                    warned++;
+                }
+            } catch (Exception e) {
+                log.error("[Scheduled] Error processing subscription {}: {}",
+                         subscription.getId(), e.getMessage(), e);
+            }
+        }
+        return warned;
+    }
+
+    private int handleRecentlyExpiredSubscriptions(List<Subscription> subscriptions) {
+        int handled = 0;
+        for (Subscription subscription : subscriptions) {
+            try {
+                if (subscription.getStatus() == Subscription.SubscriptionStatus.ACTIVE) {
+                    // Renewal ITN was successfully processed
+                    log.info("[Scheduled] Subscription {} was successfully renewed", subscription.getId());
+                } else if (subscription.getStatus() == Subscription.SubscriptionStatus.PAST_DUE) {
+                    // Renewal failed - subscription is past due
+                    log.warn("[Scheduled] Subscription {} failed to renew (status: PAST_DUE)", subscription.getId());
+                    handleFailedRenewal(subscription);
+                    handled++;
+                } else {
+                    // Subscription was cancelled
+                    log.info("[Scheduled] Subscription {} has status: {}",
+                            subscription.getId(), subscription.getStatus());
+                }
+            } catch (Exception e) {
+                log.error("[Scheduled] Error handling expired subscription {}: {}",
+                         subscription.getId(), e.getMessage(), e);
+            }
+        }
+        return handled;
+    }
+
+    private record ChunkResult(UUID lastId, int size, int handled) {
+    }
+
+    private record SubscriptionChunk(LocalDateTime lastPeriodEnd, UUID lastId, int size, int handled) {
+    }
+
+    private record ScanResult(int scanned, int handled) {
+    }
+
     /**
      * Send renewal warning email to user
      */
-    private void sendRenewalWarningEmail(User user, Subscription subscription) {
+    private boolean sendRenewalWarningEmail(User user, Subscription subscription) {
         try {
             if (user == null || user.getEmail() == null) {
                 log.warn("[Scheduled] Cannot send warning email - user or email is null");
-                return;
+                return false;
             }
 
             String planName = subscription.getPlanType().getDisplayName();
@@ -151,9 +350,11 @@ public class ScheduledEmailService {
             );
             log.info("[Scheduled] Renewal warning email sent to {} for subscription {}",
                     user.getEmail(), subscription.getId());
+            return true;
         } catch (Exception e) {
             log.error("[Scheduled] Failed to send renewal warning email to user {}: {}",
                      user.getId(), e.getMessage(), e);
+            return false;
         }
     }
 
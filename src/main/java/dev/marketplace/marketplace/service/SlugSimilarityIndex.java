@@ -0,0 +1,209 @@
+package dev.marketplace.marketplace.service;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * BK-tree over reserved slugs keyed by Levenshtein distance. A similarity query only
+ * visits subtrees whose edge distance is within the search radius of the distance to
+ * their parent (triangle inequality), instead of comparing against every reserved slug.
+ * Immutable once built; rebuilt wholesale when the reserved list is reloaded.
+ */
+public final class SlugSimilarityIndex {
+
+    private final Node root;
+    private final int size;
+    private final int maxLength;
+
+    private SlugSimilarityIndex(Node root, int size, int maxLength) {
+        this.root = root;
+        this.size = size;
+        this.maxLength = maxLength;
+    }
+
+    public static SlugSimilarityIndex build(Collection<String> slugs) {
+        Node root = null;
+        int size = 0;
+        int maxLength = 0;
+        for (String slug : slugs) {
+            if (slug == null || slug.isEmpty()) {
+                continue;
+            }
+            if (root == null) {
+                root = new Node(slug);
+            } else if (!insert(root, slug)) {
+                continue;
+            }
+            size++;
+            maxLength = Math.max(maxLength, slug.length());
+        }
+        return new SlugSimilarityIndex(root, size, maxLength);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the reserved slug most similar to the given one, if any reaches the threshold.
+     * Similarity is 1 - distance / max(length), as used for slug review.
+     */
+    public Optional<Match> findMostSimilar(String slug, double threshold) {
+        if (root == null || slug == null || slug.isEmpty()) {
+            return Optional.empty();
+        }
+        int radius = searchRadius(slug.length(), threshold);
+
+        Match best = null;
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            // Beyond maxEdge + radius neither the node nor any child can qualify, so stop computing there
+            int distance = boundedDistance(slug, node.slug, node.maxEdge + radius);
+            if (distance <= radius) {
+                double similarity = similarity(distance, slug.length(), node.slug.length());
+                if (similarity >= threshold && isBetter(similarity, node.slug, best)) {
+                    best = new Match(node.slug, similarity);
+                }
+            }
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                int edge = child.getKey();
+                if (edge >= distance - radius && edge <= distance + radius) {
+                    pending.push(child.getValue());
+                }
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    public static double similarity(int distance, int length1, int length2) {
+        int maxLength = Math.max(length1, length2);
+        return maxLength == 0 ? 1.0 : 1.0 - (double) distance / maxLength;
+    }
+
+    /**
+     * Largest edit distance at which any indexed slug could still reach the threshold.
+     * Rounded up so floating point never excludes a borderline match; candidates are
+     * checked against the exact similarity afterwards.
+     */
+    private int searchRadius(int length, double threshold) {
+        if (threshold <= 0) {
+            return Math.max(length, maxLength);
+        }
+        // Distance is at least the length difference, so longer slugs than this can never match
+        int longestCandidate = (int) Math.min(maxLength, Math.ceil(length / threshold));
+        return (int) Math.ceil((1.0 - threshold) * Math.max(length, longestCandidate));
+    }
+
+    private static boolean isBetter(double similarity, String slug, Match best) {
+        if (best == null || similarity > best.similarity()) {
+            return true;
+        }
+        // Deterministic tie-break so the same input always reports the same reserved slug
+        return similarity == best.similarity() && slug.compareTo(best.slug()) < 0;
+    }
+
+    private static boolean insert(Node root, String slug) {
+        Node node = root;
+        while (true) {
+            int distance = distance(slug, node.slug);
+            if (distance == 0) {
+                return false;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(slug));
+                node.maxEdge = Math.max(node.maxEdge, distance);
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Levenshtein distance: the minimum number of single-character edits to turn one string into the other.
+     */
+    static int distance(String s1, String s2) {
+        return boundedDistance(s1, s2, Math.max(s1.length(), s2.length()));
+    }
+
+    /**
+     * Levenshtein distance computed only while it can still be within the limit.
+     * Uses two rows restricted to the diagonal band |i - j| <= limit and stops as soon as
+     * a whole row exceeds the limit, since row minima never decrease.
+     *
+     * @return the exact distance if it is at most limit, otherwise limit + 1
+     */
+    static int boundedDistance(String s1, String s2, int limit) {
+        // Keep the rows as short as possible
+        if (s1.length() < s2.length()) {
+            String shorter = s1;
+            s1 = s2;
+            s2 = shorter;
+        }
+        int len1 = s1.length();
+        int len2 = s2.length();
+        int over = limit + 1;
+        if (len1 - len2 > limit) {
+            return over;
+        }
+
+        int[] previous = new int[len2 + 1];
+        int[] current = new int[len2 + 1];
+        for (int j = 0; j <= len2; j++) {
+            previous[j] = j <= limit ? j : over;
+        }
+
+        for (int i = 1; i <= len1; i++) {
+            int from = Math.max(1, i - limit);
+            int to = Math.min(len2, i + limit);
+            current[0] = i <= limit ? i : over;
+            if (from > 1) {
+                current[from - 1] = over;
+            }
+            int rowMin = from == 1 ? current[0] : over;
+            char c1 = s1.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = c1 == s2.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(
+                        previous[j] + 1,         // deletion
+                        current[j - 1] + 1),     // insertion
+                        previous[j - 1] + cost   // substitution
+                );
+                if (value > over) {
+                    value = over;
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (to < len2) {
+                current[to + 1] = over;
+            }
+            if (rowMin > limit) {
+                return over;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[len2], over);
+    }
+
+    public record Match(String slug, double similarity) {
+    }
+
+    private static final class Node {
+        private final String slug;
+        private final Map<Integer, Node> children = new HashMap<>(4);
+        private int maxEdge;
+
+        private Node(String slug) {
+            this.slug = slug;
+        }
+    }
+}
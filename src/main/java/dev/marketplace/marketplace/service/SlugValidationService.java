@@ -1,14 +1,17 @@
 package dev.marketplace.marketplace.service;
 
-import dev.marketplace.marketplace.model.ReservedSlug;
 import dev.marketplace.marketplace.repository.ReservedSlugRepository;
 import dev.marketplace.marketplace.repository.BusinessRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.text.Normalizer;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -19,60 +22,78 @@ public class SlugValidationService {
     private final ReservedSlugRepository reservedSlugRepository;
     private final BusinessRepository businessRepository;
 
+    private static final double SIMILARITY_THRESHOLD = 0.85;
+
+    // Replaced wholesale on refresh, never mutated
+    private volatile SlugSimilarityIndex reservedSlugIndex;
+
     /**
      * Normalize a slug: lowercase, remove diacritics, keep only alphanumeric + hyphens.
+     * Single pass over the input; NFD decomposition is only needed when it contains non-ASCII characters.
      */
-    private String normalizeSlug(String input) {
+    static String normalizeSlug(String input) {
         if (input == null) return null;
-        String normalized = Normalizer.normalize(input, Normalizer.Form.NFD);
-        // remove diacritics
-        normalized = normalized.replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
-        // replace non-alphanumeric with hyphens
-        normalized = normalized.replaceAll("[^\\p{Alnum}]+", "-");
-        // collapse hyphens
-        normalized = normalized.replaceAll("-+", "-");
-        // trim hyphens
-        normalized = normalized.replaceAll("^-|-$", "");
-        return normalized.toLowerCase();
-    }
-
-    /**
-     * Levenshtein distance algorithm to calculate string similarity.
-     * Returns the minimum number of single-character edits required to change one string to another.
-     */
-    private int levenshteinDistance(String s1, String s2) {
-        int len1 = s1.length();
-        int len2 = s2.length();
-        int[][] dp = new int[len1 + 1][len2 + 1];
-
-        for (int i = 0; i <= len1; i++) {
-            dp[i][0] = i;
-        }
-        for (int j = 0; j <= len2; j++) {
-            dp[0][j] = j;
+        String source = input;
+        for (int i = 0; i < source.length(); i++) {
+            if (source.charAt(i) > 0x7F) {
+                source = Normalizer.normalize(input, Normalizer.Form.NFD);
+                break;
+            }
         }
 
-        for (int i = 1; i <= len1; i++) {
-            for (int j = 1; j <= len2; j++) {
-                int cost = s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1;
-                dp[i][j] = Math.min(Math.min(
-                    dp[i - 1][j] + 1,      // deletion
-                    dp[i][j - 1] + 1),     // insertion
-                    dp[i - 1][j - 1] + cost // substitution
-                );
+        StringBuilder normalized = new StringBuilder(source.length());
+        boolean pendingHyphen = false;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c >= '\u0300' && c <= '\u036F') {
+                // combining diacritical mark left by NFD: drop it without breaking the word
+                continue;
+            }
+            boolean lower = c >= 'a' && c <= 'z';
+            boolean upper = c >= 'A' && c <= 'Z';
+            boolean digit = c >= '0' && c <= '9';
+            if (!lower && !upper && !digit) {
+                // runs of anything else become one hyphen, and never lead or trail
+                pendingHyphen = true;
+                continue;
+            }
+            if (pendingHyphen && normalized.length() > 0) {
+                normalized.append('-');
             }
+            pendingHyphen = false;
+            normalized.append(upper ? (char) (c + ('a' - 'A')) : c);
         }
-        return dp[len1][len2];
+        return normalized.toString();
     }
 
     /**
-     * Calculate similarity score based on Levenshtein distance.
-     * Returns a score from 0 to 1, where 1 is identical.
+     * Builds the reserved slug index at startup and rebuilds it periodically, since reserved
+     * slugs are maintained directly in the database.
      */
-    private double calculateSimilarity(String s1, String s2) {
-        int distance = levenshteinDistance(s1, s2);
-        int maxLength = Math.max(s1.length(), s2.length());
-        return 1.0 - (double) distance / maxLength;
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${marketplace.reserved-slugs.refresh-interval-ms:300000}",
+            initialDelayString = "${marketplace.reserved-slugs.refresh-interval-ms:300000}")
+    public void reloadReservedSlugIndex() {
+        refreshReservedSlugIndex();
+    }
+
+    /**
+     * Rebuilds the similarity index from the reserved_slug table and swaps it in atomically.
+     * Call after changing reserved slugs so validation sees the change immediately.
+     */
+    public SlugSimilarityIndex refreshReservedSlugIndex() {
+        List<String> slugs = reservedSlugRepository.findAll().stream()
+                .map(reserved -> normalizeSlug(reserved.getSlug()))
+                .toList();
+        SlugSimilarityIndex rebuilt = SlugSimilarityIndex.build(slugs);
+        reservedSlugIndex = rebuilt;
+        log.debug("Reserved slug index refreshed with {} slugs", rebuilt.size());
+        return rebuilt;
+    }
+
+    private SlugSimilarityIndex currentReservedSlugIndex() {
+        SlugSimilarityIndex current = reservedSlugIndex;
+        return current != null ? current : refreshReservedSlugIndex();
     }
 
     /**
@@ -129,24 +150,21 @@ public class SlugValidationService {
             );
         }
 
-        // Similarity check with configurable threshold
-        double similarityThreshold = 0.85;
-        List<ReservedSlug> reservedSlugs = reservedSlugRepository.findAll();
-
-        for (ReservedSlug reserved : reservedSlugs) {
-            double similarity = calculateSimilarity(slug, reserved.getSlug());
-
-            if (similarity >= similarityThreshold) {
-                log.warn(
-                    "Slug '{}' is too similar to reserved slug '{}' (similarity: {}). Marking for review.",
-                    slug, reserved.getSlug(), String.format("%.2f", similarity)
-                );
-                return SlugValidationResult.PENDING_REVIEW(
-                    "This slug is similar to a reserved brand name. Your request will be reviewed by our team before approval.",
-                    reserved.getSlug(),
-                    similarity
-                );
-            }
+        // Similarity check against the in-memory index of reserved slugs
+        Optional<SlugSimilarityIndex.Match> match =
+                currentReservedSlugIndex().findMostSimilar(slug, SIMILARITY_THRESHOLD);
+
+        if (match.isPresent()) {
+            SlugSimilarityIndex.Match similar = match.get();
+            log.warn(
+                "Slug '{}' is too similar to reserved slug '{}' (similarity: {}). Marking for review.",
+                slug, similar.slug(), String.format("%.2f", similar.similarity())
+            );
+            return SlugValidationResult.PENDING_REVIEW(
+                "This slug is similar to a reserved brand name. Your request will be reviewed by our team before approval.",
+                similar.slug(),
+                similar.similarity()
+            );
         }
 
         // All checks passed
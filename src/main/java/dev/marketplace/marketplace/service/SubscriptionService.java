@@ -23,7 +23,10 @@ import dev.marketplace.marketplace.service.EmailService;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -63,6 +66,24 @@ public class SubscriptionService {
                 List.of(Subscription.SubscriptionStatus.ACTIVE, Subscription.SubscriptionStatus.TRIAL)
         );
     }
+
+    /**
+     * Get the active subscription of each user in one query, keyed by user id.
+     * Users without one are absent from the map.
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, Subscription> getActiveSubscriptionsByUserIds(Collection<UUID> userIds) {
+        Map<UUID, Subscription> subscriptions = new HashMap<>();
+        List<Subscription> active = subscriptionRepository.findByUserIdInAndStatusIn(
+                userIds,
+                List.of(Subscription.SubscriptionStatus.ACTIVE, Subscription.SubscriptionStatus.TRIAL)
+        );
+        // Newest first, so the most recent subscription wins if a user somehow has several
+        for (Subscription subscription : active) {
+            subscriptions.putIfAbsent(subscription.getUser().getId(), subscription);
+        }
+        return subscriptions;
+    }
     
     /**
      * Create a new subscription (supports both user-level and business-level subscriptions)
@@ -1,8 +1,13 @@
 package dev.marketplace.marketplace.service;
 
 import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.HexFormat;
 
 /**
  * Utility service for generating and validating email verification tokens
@@ -23,6 +28,21 @@ public class TokenService {
         return Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
     }
 
+    /**
+     * Hash a token for storage, so a leaked users table does not expose usable tokens.
+     * Deterministic, which lets verification look the token up through an index.
+     * @param token The raw token sent to the user
+     * @return Lowercase hex SHA-256 of the token
+     */
+    public String hashToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     /**
      * Validate that a token has proper format
      * @param token The token to validate
@@ -5,11 +5,15 @@ import dev.marketplace.marketplace.model.Listing;
 import dev.marketplace.marketplace.model.User;
 import dev.marketplace.marketplace.repository.TransactionRepository;
 import dev.marketplace.marketplace.repository.ListingRepository;
+import dev.marketplace.marketplace.repository.OffsetPageRequest;
 import dev.marketplace.marketplace.repository.UserRepository;
 import dev.marketplace.marketplace.dto.TransactionDTO;
 import dev.marketplace.marketplace.dto.ListingDTO;
+import dev.marketplace.marketplace.service.event.TransactionStatusChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,19 +21,22 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TransactionService {
+
+    public static final int MAX_BUSINESS_TRANSACTIONS_PAGE_SIZE = 100;
     
     private final TransactionRepository transactionRepository;
     private final ListingRepository listingRepository;
     private final UserRepository userRepository;
     private final ListingImageService imageService;
     private final ListingService listingService;
-    private final TrustRatingService trustRatingService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Create a transaction when a listing is sold to a specific buyer
@@ -93,9 +100,8 @@ public class TransactionService {
         transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
         Transaction completed = transactionRepository.save(transaction);
 
-        // Update trust ratings for both buyer and seller after transaction completion
-        trustRatingService.calculateAndUpdateTrustRating(seller.getId());
-        trustRatingService.calculateAndUpdateTrustRating(buyerId);
+        // Trust ratings of both parties (and the business) are updated incrementally by the listener
+        eventPublisher.publishEvent(statusChanged(completed, null));
 
         log.info("Transaction created and completed: {}", completed.getId());
         return completed;
@@ -127,10 +133,8 @@ public class TransactionService {
         transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
         Transaction saved = transactionRepository.save(transaction);
         
-        // Update trust ratings for both buyer and seller after transaction completion
-        UUID buyerId = transaction.getBuyer().getId();
-        trustRatingService.calculateAndUpdateTrustRating(sellerId);
-        trustRatingService.calculateAndUpdateTrustRating(buyerId);
+        // Trust ratings of both parties (and the business) are updated incrementally by the listener
+        eventPublisher.publishEvent(statusChanged(saved, Transaction.TransactionStatus.PENDING));
 
         log.info("Transaction completed successfully: {}", transactionId);
         
@@ -160,6 +164,7 @@ public class TransactionService {
         transaction.setStatus(Transaction.TransactionStatus.CANCELLED);
         transaction.setNotes(transaction.getNotes() + "\nCancelled: " + reason);
         Transaction saved = transactionRepository.save(transaction);
+        eventPublisher.publishEvent(statusChanged(saved, Transaction.TransactionStatus.PENDING));
         
         // Restore listing quantity
         Listing listing = transaction.getListing();
@@ -259,6 +264,16 @@ public class TransactionService {
      * Convert a transaction to DTO with proper image URLs
      */
     private TransactionDTO convertToDTO(Transaction transaction) {
+        return convertToDTO(transaction, imageService.derivedImages(List.of(transaction.getListing())));
+    }
+
+    // Resolves which listing images have variants once for the whole list rather than once per transaction
+    private List<TransactionDTO> convertToDTOs(List<Transaction> transactions) {
+        Set<String> derivedImages = imageService.derivedImages(transactions.stream().map(Transaction::getListing).toList());
+        return transactions.stream().map(transaction -> convertToDTO(transaction, derivedImages)).toList();
+    }
+
+    private TransactionDTO convertToDTO(Transaction transaction, Set<String> derivedImages) {
         Listing listing = transaction.getListing();
         List<String> preSignedUrls = imageService.generatePreSignedUrls(listing.getImages());
         
@@ -267,6 +282,8 @@ public class TransactionService {
                 listing.getTitle(),
                 listing.getDescription(),
                 preSignedUrls,
+                imageService.generateThumbnailUrls(listing.getImages(), derivedImages),
+                imageService.generateMediumUrls(listing.getImages(), derivedImages),
                 listing.getCategory(),
                 listing.getPrice(),
                 listing.getQuantity(),
@@ -292,10 +309,7 @@ public class TransactionService {
      */
     @Transactional(readOnly = true)
     public List<TransactionDTO> getUserBuyingHistoryDTO(UUID userId) {
-        return transactionRepository.findByBuyerId(userId)
-                .stream()
-                .map(this::convertToDTO)
-                .toList();
+        return convertToDTOs(transactionRepository.findByBuyerId(userId));
     }
     
     /**
@@ -303,10 +317,7 @@ public class TransactionService {
      */
     @Transactional(readOnly = true)
     public List<TransactionDTO> getUserSellingHistoryDTO(UUID userId) {
-        return transactionRepository.findBySellerId(userId)
-                .stream()
-                .map(this::convertToDTO)
-                .toList();
+        return convertToDTOs(transactionRepository.findBySellerId(userId));
     }
     
     /**
@@ -314,10 +325,7 @@ public class TransactionService {
      */
     @Transactional(readOnly = true)
     public List<TransactionDTO> getUserCompletedPurchasesDTO(UUID userId) {
-        return transactionRepository.findByBuyerIdAndStatus(userId, Transaction.TransactionStatus.COMPLETED)
-                .stream()
-                .map(this::convertToDTO)
-                .toList();
+        return convertToDTOs(transactionRepository.findByBuyerIdAndStatus(userId, Transaction.TransactionStatus.COMPLETED));
     }
     
     /**
@@ -325,10 +333,7 @@ public class TransactionService {
      */
     @Transactional(readOnly = true)
     public List<TransactionDTO> getUserCompletedSalesDTO(UUID userId) {
-        return transactionRepository.findBySellerIdAndStatus(userId, Transaction.TransactionStatus.COMPLETED)
-                .stream()
-                .map(this::convertToDTO)
-                .toList();
+        return convertToDTOs(transactionRepository.findBySellerIdAndStatus(userId, Transaction.TransactionStatus.COMPLETED));
     }
     
     /**
@@ -341,12 +346,23 @@ public class TransactionService {
     }
 
     /**
-     * Get transactions by listing IDs
+     * All of a business's transactions, newest sale first, filtered on transaction.business_id
      */
     @Transactional(readOnly = true)
-    public List<Transaction> getTransactionsByListingIds(List<UUID> listingIds) {
-        if (listingIds == null || listingIds.isEmpty()) return List.of();
-        return transactionRepository.findByListingIdIn(listingIds);
+    public List<Transaction> getBusinessTransactions(UUID businessId) {
+        return transactionRepository.findByBusinessIdOrderBySaleDateDescIdDesc(businessId);
+    }
+
+    /**
+     * Page of a business's transactions, newest sale first, filtered on transaction.business_id
+     */
+    @Transactional(readOnly = true)
+    public List<Transaction> getBusinessTransactions(UUID businessId, int limit, int offset) {
+        if (limit < 1 || limit > MAX_BUSINESS_TRANSACTIONS_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_BUSINESS_TRANSACTIONS_PAGE_SIZE);
+        }
+        return transactionRepository.findByBusinessIdOrderBySaleDateDescIdDesc(businessId,
+                new OffsetPageRequest(offset, limit, Sort.unsorted()));
     }
 
     /**
@@ -355,9 +371,13 @@ public class TransactionService {
     @Transactional(readOnly = true)
     public List<TransactionDTO> getTransactionsByListingIdsDTO(List<UUID> listingIds) {
         if (listingIds == null || listingIds.isEmpty()) return List.of();
-        return transactionRepository.findByListingIdIn(listingIds)
-                .stream()
-                .map(this::convertToDTO)
-                .toList();
+        return convertToDTOs(transactionRepository.findByListingIdIn(listingIds));
+    }
+
+    private static TransactionStatusChangedEvent statusChanged(Transaction transaction,
+                                                               Transaction.TransactionStatus previousStatus) {
+        UUID businessId = transaction.getBusiness() != null ? transaction.getBusiness().getId() : null;
+        return new TransactionStatusChangedEvent(transaction.getSeller().getId(), transaction.getBuyer().getId(),
+                businessId, previousStatus, transaction.getStatus());
     }
 }
@@ -2,21 +2,35 @@ package dev.marketplace.marketplace.service;
 
 import dev.marketplace.marketplace.model.*;
 import dev.marketplace.marketplace.repository.*;
+import dev.marketplace.marketplace.service.dto.BusinessTrustComponentsDTO;
 import dev.marketplace.marketplace.service.dto.TrustComponentsDTO;
+import dev.marketplace.marketplace.service.event.ReviewChangedEvent;
+import dev.marketplace.marketplace.service.event.TransactionStatusChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Trust rating for users: single verification attribute (Omnicheck ID verification only)
  * and composite scores for profile, reviews, transactions, subscription.
+ *
+ * Review and transaction counts are kept as running aggregates on the rating rows and updated
+ * from ReviewChangedEvent / TransactionStatusChangedEvent, so rescoring is in-memory arithmetic.
+ * calculateAndUpdateTrustRating remains the full recalculation that re-seeds them.
  */
 @Service
 @RequiredArgsConstructor
@@ -31,7 +45,13 @@ public class TrustRatingService {
     private final TransactionRepository transactionRepository;
     private final BusinessTrustRatingRepository businessTrustRatingRepository;
     private final BusinessRepository businessRepository;
-    private final ListingRepository listingRepository;
+
+    static final BigDecimal VERIFIED_ID_SCORE = BigDecimal.valueOf(70);
+    private static final BigDecimal DEFAULT_GLOBAL_AVERAGE_RATING = BigDecimal.valueOf(4.2);
+    private static final int REVIEW_PRIOR_WEIGHT = 10;
+
+    // Platform-wide average rating used as the Bayesian prior; loaded lazily and refreshed on a schedule
+    private volatile BigDecimal globalAverageRating;
 
     @Transactional
     public TrustRating calculateAndUpdateTrustRating(UUID userId) {
@@ -43,25 +63,12 @@ public class TrustRatingService {
         TrustRating trustRating = trustRatingRepository.findByUserId(userId)
                 .orElse(TrustRating.builder().user(user).build());
 
-        // Always use the new model now
-        TrustComponentsDTO components = calculateTrustComponents(userId);
-        trustRating.setReviewScore(components.getReviewScore());
-        trustRating.setTransactionScore(components.getTransactionScore());
-        trustRating.setProfileScore(components.getProfileScore());
-        trustRating.setVerificationScore(components.getVerificationScore());
-        trustRating.setOverallScore(components.getOverallScore());
-
-        // Update counts (unchanged)
-        Long totalReviews = reviewRepository.countReviewsByUserId(userId);
-        Long positiveReviews = reviewRepository.countPositiveReviewsByUserId(userId);
-        trustRating.setTotalReviews(totalReviews.intValue());
-        trustRating.setPositiveReviews(positiveReviews.intValue());
+        // A full recalculation re-seeds the running aggregates from the review and transaction tables
+        TrustAggregates aggregates = loadUserAggregates(userId);
+        aggregates.applyTo(trustRating);
+        trustRating.setProfileScore(calculateProfileCompletionScore(user));
 
-        long totalTransactions = transactionRepository.countBySellerId(userId) + transactionRepository.countByBuyerId(userId);
-        long successfulTransactions = transactionRepository.countBySellerIdAndStatus(userId, dev.marketplace.marketplace.model.Transaction.TransactionStatus.COMPLETED)
-                + transactionRepository.countByBuyerIdAndStatus(userId, dev.marketplace.marketplace.model.Transaction.TransactionStatus.COMPLETED);
-        trustRating.setTotalTransactions((int) totalTransactions);
-        trustRating.setSuccessfulTransactions((int) successfulTransactions);
+        TrustComponentsDTO components = rescore(trustRating);
 
         TrustRating saved = trustRatingRepository.save(trustRating);
         log.info("Updated trust rating (new model) for user {}: overall score = {}", userId, components.getOverallScore());
@@ -70,30 +77,147 @@ public class TrustRatingService {
     
     /**
      * Public API: calculate the new TrustComponentsDTO using the improved model.
-     * This method does NOT persist any changes; it is a pure calculation helper that
-     * fetches necessary aggregates from repositories and returns the computed components.
+     * This method does NOT persist any changes; it is a pure calculation helper. Stored running
+     * aggregates are used when present, otherwise they are counted from the repositories.
      */
     public TrustComponentsDTO calculateTrustComponents(UUID userId) {
-        userRepository.findById(userId)
+        User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
 
-        // Profile score
-        BigDecimal profileScore = calculateProfileCompletionScore(userId);
-        // Verification score: keep existing semantics: binary Omnicheck ID
         TrustRating existing = trustRatingRepository.findByUserId(userId).orElse(null);
-        BigDecimal verificationScore = (existing != null && existing.getVerifiedId()) ? BigDecimal.valueOf(70) : BigDecimal.ZERO;
+        TrustAggregates aggregates = existing != null && existing.isAggregatesInitialized()
+                ? TrustAggregates.of(existing)
+                : loadUserAggregates(userId);
+        // Verification score: keep existing semantics: binary Omnicheck ID
+        BigDecimal verificationScore = existing != null && existing.getVerifiedId() ? VERIFIED_ID_SCORE : BigDecimal.ZERO;
+
+        return calculateComponents(aggregates, verificationScore, calculateProfileCompletionScore(user));
+    }
+
+    /**
+     * Applies a review change to the running aggregates of the reviewed user and business and
+     * rescores them in memory. Runs synchronously inside the transaction that changed the review.
+     */
+    @EventListener
+    @Transactional
+    public void onReviewChanged(ReviewChangedEvent event) {
+        int countDelta = (event.rating() != null ? 1 : 0) - (event.previousRating() != null ? 1 : 0);
+        BigDecimal sumDelta = Optional.ofNullable(event.rating()).orElse(BigDecimal.ZERO)
+                .subtract(Optional.ofNullable(event.previousRating()).orElse(BigDecimal.ZERO));
+        int positiveDelta = (event.rating() != null && Review.isPositiveRating(event.rating()) ? 1 : 0)
+                - (event.previousRating() != null && Review.isPositiveRating(event.previousRating()) ? 1 : 0);
+
+        updateUserTrustRating(event.reviewedUserId(), rating -> {
+            rating.setTotalReviews(rating.getTotalReviews() + countDelta);
+            rating.setPositiveReviews(rating.getPositiveReviews() + positiveDelta);
+            rating.setReviewRatingSum(rating.getReviewRatingSum().add(sumDelta));
+        });
+        if (event.businessId() != null) {
+            updateBusinessTrustRating(event.businessId(), rating -> {
+                rating.setTotalReviews(rating.getTotalReviews() + countDelta);
+                rating.setPositiveReviews(rating.getPositiveReviews() + positiveDelta);
+                rating.setReviewRatingSum(rating.getReviewRatingSum().add(sumDelta));
+            });
+        }
+    }
+
+    /**
+     * Applies a transaction status change to the running transaction counts of both parties and
+     * the selling business, and rescores them in memory.
+     */
+    @EventListener
+    @Transactional
+    public void onTransactionStatusChanged(TransactionStatusChangedEvent event) {
+        int totalDelta = event.previousStatus() == null ? 1 : 0;
+        int successfulDelta = (event.status() == Transaction.TransactionStatus.COMPLETED ? 1 : 0)
+                - (event.previousStatus() == Transaction.TransactionStatus.COMPLETED ? 1 : 0);
+        if (totalDelta == 0 && successfulDelta == 0) {
+            return;
+        }
+
+        // Rows are locked in id order so concurrent events for the same two parties cannot deadlock
+        for (UUID userId : Stream.of(event.sellerId(), event.buyerId()).distinct().sorted().toList()) {
+            updateUserTrustRating(userId, rating -> {
+                rating.setTotalTransactions(rating.getTotalTransactions() + totalDelta);
+                rating.setSuccessfulTransactions(rating.getSuccessfulTransactions() + successfulDelta);
+            });
+        }
+        if (event.businessId() != null) {
+            updateBusinessTrustRating(event.businessId(), rating -> {
+                rating.setTotalTransactions(rating.getTotalTransactions() + totalDelta);
+                rating.setSuccessfulTransactions(rating.getSuccessfulTransactions() + successfulDelta);
+            });
+        }
+    }
+
+    /**
+     * Platform-wide average rating, the Bayesian prior C. Cached and refreshed periodically,
+     * since a single review barely moves it.
+     */
+    @Scheduled(fixedDelayString = "${marketplace.trust.global-average-refresh-interval-ms:600000}",
+            initialDelayString = "${marketplace.trust.global-average-refresh-interval-ms:600000}")
+    public void refreshGlobalAverageRating() {
+        globalAverageRating = Optional.ofNullable(reviewRepository.getGlobalAverageRating()).orElse(DEFAULT_GLOBAL_AVERAGE_RATING);
+        log.debug("Global average rating refreshed: {}", globalAverageRating);
+    }
+
+    private BigDecimal globalAverageRating() {
+        BigDecimal cached = globalAverageRating;
+        if (cached == null) {
+            refreshGlobalAverageRating();
+            cached = globalAverageRating;
+        }
+        return cached;
+    }
+
+    /**
+     * Locks the user's rating, applies the change and rescores it without touching the source tables.
+     * A user without seeded aggregates gets a full recalculation instead, which already includes the change.
+     */
+    private void updateUserTrustRating(UUID userId, Consumer<TrustRating> change) {
+        Optional<TrustRating> locked = trustRatingRepository.findByUserIdForUpdate(userId);
+        if (locked.isEmpty() || !locked.get().isAggregatesInitialized()) {
+            calculateAndUpdateTrustRating(userId);
+            return;
+        }
+        TrustRating trustRating = locked.get();
+        change.accept(trustRating);
+        rescore(trustRating);
+        trustRatingRepository.save(trustRating);
+    }
+
+    /**
+     * Recomputes all scores of a rating from its stored aggregates, profile score and verification flag.
+     */
+    private TrustComponentsDTO rescore(TrustRating trustRating) {
+        BigDecimal verificationScore = trustRating.getVerifiedId() ? VERIFIED_ID_SCORE : BigDecimal.ZERO;
+        TrustComponentsDTO components = calculateComponents(TrustAggregates.of(trustRating), verificationScore,
+                trustRating.getProfileScore());
+        trustRating.setReviewScore(components.getReviewScore());
+        trustRating.setTransactionScore(components.getTransactionScore());
+        trustRating.setProfileScore(components.getProfileScore());
+        trustRating.setVerificationScore(components.getVerificationScore());
+        trustRating.setOverallScore(components.getOverallScore());
+        trustRating.setLastCalculated(LocalDateTime.now());
+        return components;
+    }
+
+    /**
+     * Pure scoring step shared by the incremental, full and bulk recalculation paths.
+     */
+    public TrustComponentsDTO calculateComponents(TrustAggregates aggregates, BigDecimal verificationScore,
+                                                  BigDecimal profileScore) {
         // Review score: actual user reviews only (0 if no reviews, actual Bayesian score if reviews exist)
-        BigDecimal reviewScore = calculateActualReviewScoreForUser(userId);
+        BigDecimal reviewScore = calculateActualReviewScore(aggregates.reviewCount(), aggregates.reviewRatingSum());
         // Transaction score: completion rate + log-volume boost (capped)
-        BigDecimal transactionScore = calculateTransactionScoreWithVolumeBoost(userId);
-
-        // If subscription exists, keep existing subscription handling as 100/0 for now (not part of new model doc)
-        BigDecimal subscriptionScore = calculateSubscriptionScore(userId);
+        BigDecimal transactionScore = calculateTransactionScoreWithVolumeBoost(aggregates.totalTransactions(),
+                aggregates.successfulTransactions());
 
         // Derive overall using new weights from the model doc:
         // review 35%, transactions 30%, verification 20%, profile 15% (sum=100)
         // Apply Bayesian prior weighting at the overall level
-        BigDecimal overall = applyBayesianPriorToOverall(userId, reviewScore, transactionScore, verificationScore, profileScore);
+        BigDecimal overall = applyBayesianPriorToOverall(aggregates.reviewCount(), reviewScore, transactionScore,
+                verificationScore, profileScore);
         // Round to scale 2
         overall = overall.setScale(2, RoundingMode.HALF_UP);
 
@@ -107,32 +231,50 @@ public class TrustRatingService {
     }
 
     /**
-     * Calculate actual review score for user based only on real reviews received.
-     * Does NOT apply Bayesian prior - returns 0 if user has no reviews.
-     * For users with reviews: applies Bayesian weighting to smooth toward global average.
+     * Counts a user's reviews and transactions from the source tables.
+     */
+    private TrustAggregates loadUserAggregates(UUID userId) {
+        long reviewCount = Optional.ofNullable(reviewRepository.countReviewsByUserId(userId)).orElse(0L);
+        BigDecimal ratingSum = BigDecimal.ZERO;
+        long positiveReviews = 0;
+        if (reviewCount > 0) {
+            ratingSum = Optional.ofNullable(reviewRepository.sumRatingByUserId(userId)).orElse(BigDecimal.ZERO);
+            positiveReviews = Optional.ofNullable(reviewRepository.countPositiveReviewsByUserId(userId)).orElse(0L);
+        }
+
+        long totalTransactions = transactionRepository.countBySellerId(userId) + transactionRepository.countByBuyerId(userId);
+        long successfulTransactions = 0;
+        if (totalTransactions > 0) {
+            successfulTransactions = transactionRepository.countBySellerIdAndStatus(userId, Transaction.TransactionStatus.COMPLETED)
+                    + transactionRepository.countByBuyerIdAndStatus(userId, Transaction.TransactionStatus.COMPLETED);
+        }
+        return new TrustAggregates(reviewCount, ratingSum, positiveReviews, totalTransactions, successfulTransactions);
+    }
+
+    /**
+     * Calculate actual review score based only on real reviews received.
+     * Does NOT apply Bayesian prior - returns 0 if there are no reviews.
+     * With reviews: applies Bayesian weighting to smooth toward global average.
      *
      * Bayesian formula: (v/(v+m))*R + (m/(v+m))*C
-     * where v = number of reviews, R = user's average rating (0-5),
+     * where v = number of reviews, R = average rating (0-5),
      * C = global average rating (0-5), m = prior weight (default 10)
      */
-    private BigDecimal calculateActualReviewScoreForUser(UUID userId) {
-        long v = Optional.ofNullable(reviewRepository.countReviewsByUserId(userId)).orElse(0L);
-
+    private BigDecimal calculateActualReviewScore(long v, BigDecimal ratingSum) {
         // If no reviews, return 0 (honest representation of no review data)
         if (v == 0) {
             return BigDecimal.ZERO;
         }
 
-        // User has reviews: apply Bayesian weighting
-        BigDecimal R = Optional.ofNullable(reviewRepository.getAverageRatingByUserId(userId)).orElse(BigDecimal.ZERO);
-        BigDecimal C = Optional.ofNullable(reviewRepository.getGlobalAverageRating()).orElse(BigDecimal.valueOf(4.2));
-        int m = 10; // prior weight
+        BigDecimal bdV = BigDecimal.valueOf(v);
+        BigDecimal R = ratingSum.divide(bdV, 10, RoundingMode.HALF_UP);
+        BigDecimal C = globalAverageRating();
+        BigDecimal m = BigDecimal.valueOf(REVIEW_PRIOR_WEIGHT);
 
         // weightedRating = (v/(v+m))*R + (m/(v+m))*C
-        BigDecimal bdV = BigDecimal.valueOf(v);
-        BigDecimal weighted = bdV.divide(bdV.add(BigDecimal.valueOf(m)), 10, RoundingMode.HALF_UP)
+        BigDecimal weighted = bdV.divide(bdV.add(m), 10, RoundingMode.HALF_UP)
                 .multiply(R).add(
-                        BigDecimal.valueOf(m).divide(bdV.add(BigDecimal.valueOf(m)), 10, RoundingMode.HALF_UP).multiply(C)
+                        m.divide(bdV.add(m), 10, RoundingMode.HALF_UP).multiply(C)
                 );
         // Map 0-5 to 0-100
         return weighted.multiply(BigDecimal.valueOf(20)).setScale(2, RoundingMode.HALF_UP);
@@ -141,33 +283,26 @@ public class TrustRatingService {
     /**
      * Apply Bayesian prior weighting at the overall trust rating level.
      *
-     * For new users with zero reviews, this boosts the overall rating by incorporating
-     * the global marketplace average, giving them a fair initial standing without
-     * misleading individual component scores.
+     * For new users and businesses with zero reviews, this boosts the overall rating by
+     * incorporating the global marketplace average, giving them a fair initial standing
+     * without misleading individual component scores.
      *
-     * The Bayesian boost only applies to new users (v == 0) and gradually diminishes
-     * as they accumulate reviews.
+     * The Bayesian boost only applies when there are no reviews (v == 0).
      */
-    private BigDecimal applyBayesianPriorToOverall(UUID userId, BigDecimal reviewScore,
+    private BigDecimal applyBayesianPriorToOverall(long v, BigDecimal reviewScore,
                                                     BigDecimal transactionScore, BigDecimal verificationScore,
                                                     BigDecimal profileScore) {
-        long v = Optional.ofNullable(reviewRepository.countReviewsByUserId(userId)).orElse(0L);
-
         // Calculate base overall score
         BigDecimal baseOverall = reviewScore.multiply(BigDecimal.valueOf(0.35))
                 .add(transactionScore.multiply(BigDecimal.valueOf(0.30)))
                 .add(verificationScore.multiply(BigDecimal.valueOf(0.20)))
                 .add(profileScore.multiply(BigDecimal.valueOf(0.15)));
 
-        // Apply Bayesian prior only for new users (zero reviews)
+        // Apply Bayesian prior only when there are no reviews
         if (v == 0) {
-            // Use global average as a boost factor
-            BigDecimal C = Optional.ofNullable(reviewRepository.getGlobalAverageRating()).orElse(BigDecimal.valueOf(4.2));
-            int m = 10; // prior weight
-
             // Bayesian contribution: (m/(0+m))*C * weight of review component
             // = (10/10) * 4.2 * 20 * 0.35 = 29.40
-            BigDecimal bayesianBoost = C.multiply(BigDecimal.valueOf(20))
+            BigDecimal bayesianBoost = globalAverageRating().multiply(BigDecimal.valueOf(20))
                     .multiply(BigDecimal.valueOf(0.35));
 
             return baseOverall.add(bayesianBoost);
@@ -181,10 +316,7 @@ public class TrustRatingService {
      * completionRate is successful/total as 0-100. volume boost uses log10(totalTx+1)
      * to produce diminishing returns; cap boost at 15 points.
      */
-    private BigDecimal calculateTransactionScoreWithVolumeBoost(UUID userId) {
-        long totalTransactions = transactionRepository.countBySellerId(userId) + transactionRepository.countByBuyerId(userId);
-        long successfulTransactions = transactionRepository.countBySellerIdAndStatus(userId, dev.marketplace.marketplace.model.Transaction.TransactionStatus.COMPLETED)
-                + transactionRepository.countByBuyerIdAndStatus(userId, dev.marketplace.marketplace.model.Transaction.TransactionStatus.COMPLETED);
+    private BigDecimal calculateTransactionScoreWithVolumeBoost(long totalTransactions, long successfulTransactions) {
         if (totalTransactions == 0) return BigDecimal.ZERO;
         BigDecimal completionRate = BigDecimal.valueOf(successfulTransactions)
                 .multiply(BigDecimal.valueOf(100))
@@ -204,41 +336,25 @@ public class TrustRatingService {
     /**
      * Keep existing profile completion calculator (percentage of 4 fields)
      */
-    private BigDecimal calculateProfileCompletionScore(UUID userId) {
-        int totalFields = 4;
-        int completedFields = 0;
-
-        User user = userRepository.findById(userId).orElse(null);
-        if (user != null) {
-            boolean hasPhoto = user.getProfileImageUrl() != null && !user.getProfileImageUrl().isEmpty();
-            boolean hasBio = user.getBio() != null && !user.getBio().isEmpty();
-            boolean hasContact = user.getContactNumber() != null && !user.getContactNumber().isEmpty();
-            boolean hasLocation = user.getCity() != null || (user.getCustomCity() != null && !user.getCustomCity().isEmpty());
-
-            if (hasPhoto) completedFields++;
-            if (hasBio) completedFields++;
-            if (hasContact) completedFields++;
-            if (hasLocation) completedFields++;
-
-            log.debug("User {}: profile fields - photo={}, bio={}, contact={}, location={}, completed={}/{}",
-                userId, hasPhoto, hasBio, hasContact, hasLocation, completedFields, totalFields);
-        }
-
-        BigDecimal score = BigDecimal.valueOf(completedFields).multiply(BigDecimal.valueOf(100)).divide(BigDecimal.valueOf(totalFields), 2, RoundingMode.HALF_UP);
-        log.debug("User {}: calculated profileScore={}", userId, score);
+    private BigDecimal calculateProfileCompletionScore(User user) {
+        BigDecimal score = profileCompletionScore(user.getProfileImageUrl(), user.getBio(), user.getContactNumber(),
+                user.getCity() != null, user.getCustomCity());
+        log.debug("User {}: calculated profileScore={}", user.getId(), score);
         return score;
     }
-    /*
-     * Removed legacy review/transaction calculators to fully switch to the new model.
-     */
 
-    // Subscription score: 100 if subscribed, 0 if not
-    private BigDecimal calculateSubscriptionScore(UUID userId) {
-        User user = userRepository.findById(userId).orElse(null);
-        if (user != null && user.getRole() == dev.marketplace.marketplace.enums.Role.SUBSCRIBED) {
-            return BigDecimal.valueOf(100);
-        }
-        return BigDecimal.ZERO;
+    /**
+     * Percentage of the 4 profile fields that are filled in: photo, bio, contact number and location.
+     */
+    public static BigDecimal profileCompletionScore(String profileImageUrl, String bio, String contactNumber,
+                                                    boolean hasCity, String customCity) {
+        int totalFields = 4;
+        int completedFields = 0;
+        if (profileImageUrl != null && !profileImageUrl.isEmpty()) completedFields++;
+        if (bio != null && !bio.isEmpty()) completedFields++;
+        if (contactNumber != null && !contactNumber.isEmpty()) completedFields++;
+        if (hasCity || (customCity != null && !customCity.isEmpty())) completedFields++;
+        return BigDecimal.valueOf(completedFields).multiply(BigDecimal.valueOf(100)).divide(BigDecimal.valueOf(totalFields), 2, RoundingMode.HALF_UP);
     }
 
     /**
@@ -247,7 +363,7 @@ public class TrustRatingService {
     @Transactional
     public void addSubscriptionBonus(UUID userId) {
         log.info("Adding subscription bonus to user: {}", userId);
-        calculateAndUpdateTrustRating(userId);
+        updateUserTrustRating(userId, trustRating -> { });
     }
 
     /**
@@ -256,7 +372,7 @@ public class TrustRatingService {
     @Transactional
     public void removeSubscriptionBonus(UUID userId) {
         log.info("Removing subscription bonus from user: {}", userId);
-        calculateAndUpdateTrustRating(userId);
+        updateUserTrustRating(userId, trustRating -> { });
     }
     
     @Transactional
@@ -265,6 +381,24 @@ public class TrustRatingService {
                 .orElseGet(() -> calculateAndUpdateTrustRating(userId));
     }
 
+    /**
+     * Trust ratings for several users, keyed by user id. Stored ratings are read with one query;
+     * users without a rating yet get one calculated, as getTrustRating does.
+     */
+    @Transactional
+    public Map<UUID, TrustRating> getTrustRatings(Collection<UUID> userIds) {
+        Map<UUID, TrustRating> ratings = new HashMap<>();
+        for (TrustRating rating : trustRatingRepository.findByUserIdIn(userIds)) {
+            ratings.put(rating.getUser().getId(), rating);
+        }
+        for (UUID userId : userIds) {
+            if (!ratings.containsKey(userId)) {
+                ratings.put(userId, calculateAndUpdateTrustRating(userId));
+            }
+        }
+        return ratings;
+    }
+
     /**
      * Mark a user's ID as verified. Creates a TrustRating if missing, marks verifiedID=true
      * and recalculates the trust rating.
@@ -280,8 +414,8 @@ public class TrustRatingService {
         trustRating.setVerifiedID(true);
         trustRatingRepository.save(trustRating);
 
-        // Recalculate full trust rating after marking verified ID
-        calculateAndUpdateTrustRating(userId);
+        // Rescore with the verification component; seeds the aggregates if this rating is new
+        updateUserTrustRating(userId, rating -> { });
     }
 
     @Transactional
@@ -307,35 +441,27 @@ public class TrustRatingService {
 
         profileCompletionRepository.save(profileCompletion);
         
-        // Recalculate trust rating
-        calculateAndUpdateTrustRating(userId);
+        // Only the profile component changed; rescore from the stored aggregates
+        BigDecimal profileScore = calculateProfileCompletionScore(user);
+        updateUserTrustRating(userId, trustRating -> trustRating.setProfileScore(profileScore));
     }
     
     /**
      * Public API: calculate the new BusinessTrustComponentsDTO using the improved model.
      * This method does NOT persist any changes; it is a pure calculation helper.
      */
-    public dev.marketplace.marketplace.service.dto.BusinessTrustComponentsDTO calculateBusinessComponents(UUID businessId) {
+    public BusinessTrustComponentsDTO calculateBusinessComponents(UUID businessId) {
         Business business = businessRepository.findById(businessId)
                 .orElseThrow(() -> new IllegalArgumentException("Business not found with ID: " + businessId));
 
-        // Calculate components
-        BigDecimal profileScore = calculateBusinessProfileScore(business);
-        BigDecimal verificationScore = calculateBusinessVerificationScore(businessId);
-        BigDecimal reviewScore = calculateActualBusinessReviewScore(businessId);
-        BigDecimal transactionScore = calculateBusinessTransactionScore(businessId);
-
-        // Derive overall with Bayesian prior applied at this level
-        BigDecimal overall = applyBayesianPriorToBusinessOverall(businessId, reviewScore, transactionScore, verificationScore, profileScore)
-                .setScale(2, RoundingMode.HALF_UP);
-
-        // Ensure component scales
-        reviewScore = reviewScore.setScale(2, RoundingMode.HALF_UP);
-        transactionScore = transactionScore.setScale(2, RoundingMode.HALF_UP);
-        verificationScore = verificationScore.setScale(2, RoundingMode.HALF_UP);
-        profileScore = profileScore.setScale(2, RoundingMode.HALF_UP);
-
-        return new dev.marketplace.marketplace.service.dto.BusinessTrustComponentsDTO(reviewScore, transactionScore, verificationScore, profileScore, overall);
+        BusinessTrustRating existing = businessTrustRatingRepository.findByBusinessId(businessId).orElse(null);
+        TrustAggregates aggregates = existing != null && existing.isAggregatesInitialized()
+                ? TrustAggregates.of(existing)
+                : loadBusinessAggregates(businessId);
+        TrustComponentsDTO components = calculateComponents(aggregates,
+                calculateBusinessVerificationScore(businessId), calculateBusinessProfileScore(business));
+        return new BusinessTrustComponentsDTO(components.getReviewScore(), components.getTransactionScore(),
+                components.getVerificationScore(), components.getProfileScore(), components.getOverallScore());
     }
     
     public BigDecimal getAverageTrustScore() {
@@ -355,58 +481,87 @@ public class TrustRatingService {
         BusinessTrustRating trustRating = businessTrustRatingRepository.findByBusinessId(businessId)
                 .orElse(BusinessTrustRating.builder().business(business).build());
         
-        // Calculate using new weighted model
-        BigDecimal profileScore = calculateBusinessProfileScore(business);
-        BigDecimal verificationScore = calculateBusinessVerificationScore(businessId);
-        BigDecimal reviewScore = calculateActualBusinessReviewScore(businessId);
-        BigDecimal transactionScore = calculateBusinessTransactionScore(businessId);
-        
-        // Weighted overall with Bayesian prior applied at this level
-        BigDecimal overallScore = applyBayesianPriorToBusinessOverall(businessId, reviewScore, transactionScore, verificationScore, profileScore)
-                .setScale(2, RoundingMode.HALF_UP);
+        // A full recalculation re-seeds the running aggregates, profile and verification scores
+        loadBusinessAggregates(businessId).applyTo(trustRating);
+        trustRating.setProfileScore(calculateBusinessProfileScore(business));
+        trustRating.setVerificationScore(calculateBusinessVerificationScore(businessId));
+        TrustComponentsDTO components = rescore(trustRating);
         
-        // Update counts
-        long totalReviews = Optional.ofNullable(reviewRepository.countReviewsByBusinessId(businessId)).orElse(0L);
-        
-        // Get all listings for the business to count transactions
-        List<Listing> listings = listingRepository.findByBusinessId(businessId);
+        BusinessTrustRating saved = businessTrustRatingRepository.save(trustRating);
+        log.info("Updated business trust rating (new model) for business {}: overall score = {}", businessId, components.getOverallScore());
+        return saved;
+    }
+
+    /**
+     * Business counterpart of updateUserTrustRating: lock, apply the change, rescore in memory.
+     */
+    private void updateBusinessTrustRating(UUID businessId, Consumer<BusinessTrustRating> change) {
+        Optional<BusinessTrustRating> locked = businessTrustRatingRepository.findByBusinessIdForUpdate(businessId);
+        if (locked.isEmpty() || !locked.get().isAggregatesInitialized()) {
+            calculateAndUpdateBusinessTrustRating(businessId);
+            return;
+        }
+        BusinessTrustRating trustRating = locked.get();
+        change.accept(trustRating);
+        rescore(trustRating);
+        businessTrustRatingRepository.save(trustRating);
+    }
+
+    private TrustComponentsDTO rescore(BusinessTrustRating trustRating) {
+        TrustComponentsDTO components = calculateComponents(TrustAggregates.of(trustRating),
+                trustRating.getVerificationScore(), trustRating.getProfileScore());
+        trustRating.setReviewScore(components.getReviewScore());
+        trustRating.setTransactionScore(components.getTransactionScore());
+        trustRating.setProfileScore(components.getProfileScore());
+        trustRating.setVerificationScore(components.getVerificationScore());
+        trustRating.setOverallScore(components.getOverallScore());
+        trustRating.setLastCalculated(LocalDateTime.now());
+        return components;
+    }
+
+    /**
+     * Counts a business's reviews and transactions from the source tables.
+     */
+    private TrustAggregates loadBusinessAggregates(UUID businessId) {
+        long reviewCount = Optional.ofNullable(reviewRepository.countReviewsByBusinessId(businessId)).orElse(0L);
+        BigDecimal ratingSum = BigDecimal.ZERO;
+        long positiveReviews = 0;
+        if (reviewCount > 0) {
+            ratingSum = Optional.ofNullable(reviewRepository.sumRatingByBusinessId(businessId)).orElse(BigDecimal.ZERO);
+            positiveReviews = Optional.ofNullable(reviewRepository.countPositiveReviewsByBusinessId(businessId)).orElse(0L);
+        }
+
         long totalTransactions = 0;
         long successfulTransactions = 0;
-        if (listings != null && !listings.isEmpty()) {
-            List<UUID> listingIds = listings.stream().map(Listing::getId).toList();
-            List<dev.marketplace.marketplace.model.Transaction> transactions = transactionRepository.findByListingIdIn(listingIds);
-            totalTransactions = transactions.size();
-            successfulTransactions = transactions.stream()
-                    .filter(t -> t.getStatus() == dev.marketplace.marketplace.model.Transaction.TransactionStatus.COMPLETED)
-                    .count();
+        for (TransactionRepository.StatusCount statusCount : transactionRepository.countByBusinessIdGroupByStatus(businessId)) {
+            totalTransactions += statusCount.getCount();
+            if (statusCount.getStatus() == Transaction.TransactionStatus.COMPLETED) {
+                successfulTransactions += statusCount.getCount();
+            }
         }
-        
-        trustRating.setProfileScore(profileScore);
-        trustRating.setVerificationScore(verificationScore);
-        trustRating.setReviewScore(reviewScore);
-        trustRating.setTransactionScore(transactionScore);
-        trustRating.setOverallScore(overallScore);
-        trustRating.setTotalReviews((int) totalReviews);
-        trustRating.setTotalTransactions((int) totalTransactions);
-        trustRating.setSuccessfulTransactions((int) successfulTransactions);
-        trustRating.setLastCalculated(java.time.LocalDateTime.now());
-        
-        BusinessTrustRating saved = businessTrustRatingRepository.save(trustRating);
-        log.info("Updated business trust rating (new model) for business {}: overall score = {}", businessId, overallScore);
-        return saved;
+        return new TrustAggregates(reviewCount, ratingSum, positiveReviews, totalTransactions, successfulTransactions);
     }
+
     // Helper methods for business trust rating
     private BigDecimal calculateBusinessProfileScore(Business business) {
-        int totalFields = 4;
-        int completedFields = 0;
         String logoUrl = business.getStoreBranding() != null ? business.getStoreBranding().getLogoUrl() : null;
         String about = business.getStoreBranding() != null ? business.getStoreBranding().getAbout() : null;
+        return businessProfileScore(logoUrl, about, business.getContactNumber(), business.getAddressLine1());
+    }
+
+    /**
+     * Percentage of the 4 business profile fields that are filled in: logo, about, contact number and address.
+     */
+    public static BigDecimal businessProfileScore(String logoUrl, String about, String contactNumber, String addressLine1) {
+        int totalFields = 4;
+        int completedFields = 0;
         if (logoUrl != null && !logoUrl.isEmpty()) completedFields++;
         if (about != null && !about.isEmpty()) completedFields++;
-        if (business.getContactNumber() != null && !business.getContactNumber().isEmpty()) completedFields++;
-        if (business.getAddressLine1() != null && !business.getAddressLine1().isEmpty()) completedFields++;
+        if (contactNumber != null && !contactNumber.isEmpty()) completedFields++;
+        if (addressLine1 != null && !addressLine1.isEmpty()) completedFields++;
         return BigDecimal.valueOf(completedFields).multiply(BigDecimal.valueOf(100)).divide(BigDecimal.valueOf(totalFields), 2, RoundingMode.HALF_UP);
     }
+
     private BigDecimal calculateBusinessVerificationScore(UUID businessId) {
         int totalDocs = 0;
         int verifiedDocs = 0;
@@ -417,102 +572,50 @@ public class TrustRatingService {
                 if (doc.get().getStatus() == VerificationDocument.VerificationStatus.APPROVED) verifiedDocs++;
             }
         }
-        if (totalDocs == 0) return BigDecimal.ZERO;
-        return BigDecimal.valueOf(verifiedDocs).multiply(BigDecimal.valueOf(100)).divide(BigDecimal.valueOf(totalDocs), 2, RoundingMode.HALF_UP);
+        return businessVerificationScore(totalDocs, verifiedDocs);
     }
-    private BigDecimal calculateActualBusinessReviewScore(UUID businessId) {
-        long v = Optional.ofNullable(reviewRepository.countReviewsByBusinessId(businessId)).orElse(0L);
 
-        // If no reviews, return 0 (honest representation of no review data)
-        if (v == 0) {
-            return BigDecimal.ZERO;
-        }
-
-        // Business has reviews: apply Bayesian weighting
-        BigDecimal R = Optional.ofNullable(reviewRepository.getAverageRatingByBusinessId(businessId)).orElse(BigDecimal.ZERO);
-        // Global average: use 4.2 as default (consistent with user trust)
-        BigDecimal C = Optional.ofNullable(reviewRepository.getGlobalAverageRating()).orElse(BigDecimal.valueOf(4.2));
-        int m = 10; // prior weight
-
-        // weightedRating = (v/(v+m))*R + (m/(v+m))*C
-        BigDecimal bdV = BigDecimal.valueOf(v);
-        BigDecimal weighted = bdV.divide(bdV.add(BigDecimal.valueOf(m)), 10, RoundingMode.HALF_UP)
-                .multiply(R).add(
-                        BigDecimal.valueOf(m).divide(bdV.add(BigDecimal.valueOf(m)), 10, RoundingMode.HALF_UP).multiply(C)
-                );
-        // Map 0-5 to 0-100
-        return weighted.multiply(BigDecimal.valueOf(20)).setScale(2, RoundingMode.HALF_UP);
+    /**
+     * Share of submitted document types that are approved, 0 when nothing was submitted.
+     */
+    public static BigDecimal businessVerificationScore(long submittedDocumentTypes, long approvedDocumentTypes) {
+        if (submittedDocumentTypes == 0) return BigDecimal.ZERO;
+        return BigDecimal.valueOf(approvedDocumentTypes).multiply(BigDecimal.valueOf(100)).divide(BigDecimal.valueOf(submittedDocumentTypes), 2, RoundingMode.HALF_UP);
     }
 
     /**
-     * Apply Bayesian prior weighting at the business overall trust rating level.
-     * Similar to user trust: for new businesses with zero reviews, boost overall rating
-     * by incorporating global marketplace average.
+     * Review and transaction counters a trust score is derived from, as stored on a rating
+     * row or counted from the source tables.
      */
-    private BigDecimal applyBayesianPriorToBusinessOverall(UUID businessId, BigDecimal reviewScore,
-                                                            BigDecimal transactionScore, BigDecimal verificationScore,
-                                                            BigDecimal profileScore) {
-        long v = Optional.ofNullable(reviewRepository.countReviewsByBusinessId(businessId)).orElse(0L);
+    public record TrustAggregates(long reviewCount, BigDecimal reviewRatingSum, long positiveReviews,
+                                   long totalTransactions, long successfulTransactions) {
 
-        // Calculate base overall score
-        BigDecimal baseOverall = reviewScore.multiply(BigDecimal.valueOf(0.35))
-                .add(transactionScore.multiply(BigDecimal.valueOf(0.30)))
-                .add(verificationScore.multiply(BigDecimal.valueOf(0.20)))
-                .add(profileScore.multiply(BigDecimal.valueOf(0.15)));
-
-        // Apply Bayesian prior only for new businesses (zero reviews)
-        if (v == 0) {
-            // Use global average as a boost factor
-            BigDecimal C = Optional.ofNullable(reviewRepository.getGlobalAverageRating()).orElse(BigDecimal.valueOf(4.2));
-            int m = 10; // prior weight
-
-            // Bayesian contribution: (m/(0+m))*C * weight of review component
-            // = (10/10) * 4.2 * 20 * 0.35 = 29.40
-            BigDecimal bayesianBoost = C.multiply(BigDecimal.valueOf(20))
-                    .multiply(BigDecimal.valueOf(0.35));
-
-            return baseOverall.add(bayesianBoost);
+        static TrustAggregates of(TrustRating rating) {
+            return new TrustAggregates(rating.getTotalReviews(), rating.getReviewRatingSum(), rating.getPositiveReviews(),
+                    rating.getTotalTransactions(), rating.getSuccessfulTransactions());
         }
 
-        return baseOverall;
-    }
-    private BigDecimal calculateBusinessTransactionScore(UUID businessId) {
-        // Get all listings for the business
-        List<Listing> listings = listingRepository.findByBusinessId(businessId);
-        if (listings == null || listings.isEmpty()) {
-            return BigDecimal.ZERO;
+        static TrustAggregates of(BusinessTrustRating rating) {
+            return new TrustAggregates(rating.getTotalReviews(), rating.getReviewRatingSum(), rating.getPositiveReviews(),
+                    rating.getTotalTransactions(), rating.getSuccessfulTransactions());
         }
 
-        // Get all transactions for these listings
-        List<UUID> listingIds = listings.stream().map(Listing::getId).toList();
-        List<dev.marketplace.marketplace.model.Transaction> transactions = transactionRepository.findByListingIdIn(listingIds);
-        
-        if (transactions == null || transactions.isEmpty()) {
-            return BigDecimal.ZERO;
+        void applyTo(TrustRating rating) {
+            rating.setTotalReviews((int) reviewCount);
+            rating.setReviewRatingSum(reviewRatingSum);
+            rating.setPositiveReviews((int) positiveReviews);
+            rating.setTotalTransactions((int) totalTransactions);
+            rating.setSuccessfulTransactions((int) successfulTransactions);
+            rating.setAggregatesInitialized(true);
         }
 
-        long totalTransactions = transactions.size();
-        long successfulTransactions = transactions.stream()
-                .filter(t -> t.getStatus() == dev.marketplace.marketplace.model.Transaction.TransactionStatus.COMPLETED)
-                .count();
-
-        // Completion rate component: (successful / total) * 60 (0-60 points)
-        BigDecimal completionRate = BigDecimal.valueOf(successfulTransactions)
-                .multiply(BigDecimal.valueOf(100))
-                .divide(BigDecimal.valueOf(totalTransactions), 10, RoundingMode.HALF_UP);
-        BigDecimal completionComponent = completionRate.multiply(BigDecimal.valueOf(0.6));
-
-        // Volume boost: min(log10(total+1)*15, 15) (0-15 points)
-        double logBoost = Math.log10((double) totalTransactions + 1.0) * 15.0;
-        double capped = Math.min(logBoost, 15.0);
-        BigDecimal volumeComponent = BigDecimal.valueOf(capped);
-
-        BigDecimal total = completionComponent.add(volumeComponent).setScale(2, RoundingMode.HALF_UP);
-        
-        // Ensure it doesn't exceed 100
-        if (total.compareTo(BigDecimal.valueOf(100)) > 0) {
-            return BigDecimal.valueOf(100).setScale(2, RoundingMode.HALF_UP);
+        void applyTo(BusinessTrustRating rating) {
+            rating.setTotalReviews((int) reviewCount);
+            rating.setReviewRatingSum(reviewRatingSum);
+            rating.setPositiveReviews((int) positiveReviews);
+            rating.setTotalTransactions((int) totalTransactions);
+            rating.setSuccessfulTransactions((int) successfulTransactions);
+            rating.setAggregatesInitialized(true);
         }
-        return total;
     }
 }
@@ -0,0 +1,434 @@
+package dev.marketplace.marketplace.service;
+
+import dev.marketplace.marketplace.dto.TrustRecalculationResult;
+import dev.marketplace.marketplace.dto.TrustRecalculationStatus;
+import dev.marketplace.marketplace.service.TrustRatingService.TrustAggregates;
+import dev.marketplace.marketplace.service.dto.TrustComponentsDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Recomputes every user and business trust rating in bulk, e.g. after a trust model weight change.
+ *
+ * Ids are paged by keyset into chunks; each chunk is scored from a few GROUP BY queries restricted
+ * to its ids, then written back with JDBC batch updates in its own transaction. Chunks run in
+ * parallel on a fixed pool, which should stay below the connection pool size.
+ *
+ * A chunk locks its existing rating rows before counting, the same rows the incremental event
+ * handlers in TrustRatingService lock, so a review or transaction committed mid-run is either in
+ * the counts or applied on top of them, never both or neither. Missing rows are inserted with
+ * ON CONFLICT DO NOTHING: a row created concurrently was just seeded by a full recalculation.
+ */
+@Service
+@Slf4j
+public class TrustRecalculationService {
+
+    private static final String FIRST_USER_IDS_SQL = "SELECT id FROM users ORDER BY id LIMIT :limit";
+    private static final String NEXT_USER_IDS_SQL = "SELECT id FROM users WHERE id > :after ORDER BY id LIMIT :limit";
+    private static final String FIRST_BUSINESS_IDS_SQL = "SELECT id FROM business ORDER BY id LIMIT :limit";
+    private static final String NEXT_BUSINESS_IDS_SQL = "SELECT id FROM business WHERE id > :after ORDER BY id LIMIT :limit";
+
+    private static final String LOCK_USER_RATINGS_SQL =
+            "SELECT id FROM trust_rating WHERE user_id IN (:ids) ORDER BY user_id FOR UPDATE";
+    private static final String LOCK_BUSINESS_RATINGS_SQL =
+            "SELECT id FROM business_trust_rating WHERE business_id IN (:ids) ORDER BY business_id FOR UPDATE";
+
+    private static final String USER_PROFILE_SQL = """
+            SELECT u.id, u.profile_image_url, u.bio, u.contact_number, u.city_id, u.custom_city,
+                   tr.id AS rating_id, tr.verified_id
+            FROM users u
+            LEFT JOIN trust_rating tr ON tr.user_id = u.id
+            WHERE u.id IN (:ids)
+            """;
+
+    private static final String USER_REVIEW_SQL = """
+            SELECT reviewed_user_id AS owner_id, COUNT(*) AS review_count, SUM(rating) AS rating_sum,
+                   SUM(CASE WHEN is_positive THEN 1 ELSE 0 END) AS positive_count
+            FROM review
+            WHERE reviewed_user_id IN (:ids)
+            GROUP BY reviewed_user_id
+            """;
+
+    // A user's transactions are those where they are the seller or the buyer
+    private static final String USER_TRANSACTION_SQL = """
+            SELECT party_id AS owner_id, COUNT(*) AS total_count,
+                   SUM(CASE WHEN status = 'COMPLETED' THEN 1 ELSE 0 END) AS completed_count
+            FROM (
+                SELECT seller_id AS party_id, status FROM "transaction" WHERE seller_id IN (:ids)
+                UNION ALL
+                SELECT buyer_id AS party_id, status FROM "transaction" WHERE buyer_id IN (:ids)
+            ) parties
+            GROUP BY party_id
+            """;
+
+    private static final String BUSINESS_PROFILE_SQL = """
+            SELECT b.id, b.contact_number, b.address_line1, sb.logo_url, sb.about, btr.id AS rating_id
+            FROM business b
+            LEFT JOIN store_branding sb ON sb.business_id = b.id
+            LEFT JOIN business_trust_rating btr ON btr.business_id = b.id
+            WHERE b.id IN (:ids)
+            """;
+
+    private static final String BUSINESS_REVIEW_SQL = """
+            SELECT business_id AS owner_id, COUNT(*) AS review_count, SUM(rating) AS rating_sum,
+                   SUM(CASE WHEN is_positive THEN 1 ELSE 0 END) AS positive_count
+            FROM review
+            WHERE business_id IN (:ids)
+            GROUP BY business_id
+            """;
+
+    private static final String BUSINESS_TRANSACTION_SQL = """
+            SELECT business_id AS owner_id, COUNT(*) AS total_count,
+                   SUM(CASE WHEN status = 'COMPLETED' THEN 1 ELSE 0 END) AS completed_count
+            FROM "transaction"
+            WHERE business_id IN (:ids)
+            GROUP BY business_id
+            """;
+
+    private static final String BUSINESS_VERIFICATION_SQL = """
+            SELECT business_id, COUNT(DISTINCT document_type) AS submitted_count,
+                   COUNT(DISTINCT CASE WHEN status = 'APPROVED' THEN document_type END) AS approved_count
+            FROM verification_document
+            WHERE business_id IN (:ids)
+            GROUP BY business_id
+            """;
+
+    private static final String UPDATE_USER_RATING_SQL = """
+            UPDATE trust_rating
+            SET overall_score = :overallScore, profile_score = :profileScore, review_score = :reviewScore,
+                verification_score = :verificationScore, transaction_score = :transactionScore,
+                total_reviews = :totalReviews, positive_reviews = :positiveReviews, review_rating_sum = :reviewRatingSum,
+                total_transactions = :totalTransactions, successful_transactions = :successfulTransactions,
+                aggregates_initialized = TRUE, last_calculated = :now, updated_at = :now
+            WHERE user_id = :ownerId
+            """;
+
+    private static final String INSERT_USER_RATING_SQL = """
+            INSERT INTO trust_rating (id, user_id, overall_score, profile_score, review_score, verification_score,
+                transaction_score, total_reviews, positive_reviews, review_rating_sum, total_transactions,
+                successful_transactions, aggregates_initialized, verified_id, id_verification_attempts,
+                last_calculated, created_at, updated_at)
+            VALUES (:id, :ownerId, :overallScore, :profileScore, :reviewScore, :verificationScore,
+                :transactionScore, :totalReviews, :positiveReviews, :reviewRatingSum, :totalTransactions,
+                :successfulTransactions, TRUE, FALSE, 0, :now, :now, :now)
+            ON CONFLICT (user_id) DO NOTHING
+            """;
+
+    private static final String UPDATE_BUSINESS_RATING_SQL = """
+            UPDATE business_trust_rating
+            SET overall_score = :overallScore, profile_score = :profileScore, review_score = :reviewScore,
+                verification_score = :verificationScore, transaction_score = :transactionScore,
+                total_reviews = :totalReviews, positive_reviews = :positiveReviews, review_rating_sum = :reviewRatingSum,
+                total_transactions = :totalTransactions, successful_transactions = :successfulTransactions,
+                aggregates_initialized = TRUE, last_calculated = :now, updated_at = :now
+            WHERE business_id = :ownerId
+            """;
+
+    private static final String INSERT_BUSINESS_RATING_SQL = """
+            INSERT INTO business_trust_rating (id, business_id, overall_score, profile_score, review_score,
+                verification_score, transaction_score, total_reviews, positive_reviews, review_rating_sum,
+                total_transactions, successful_transactions, aggregates_initialized, verified_with_third_party,
+                business_verification_attempts, last_calculated, created_at, updated_at)
+            VALUES (:id, :ownerId, :overallScore, :profileScore, :reviewScore, :verificationScore,
+                :transactionScore, :totalReviews, :positiveReviews, :reviewRatingSum, :totalTransactions,
+                :successfulTransactions, TRUE, FALSE, 0, :now, :now, :now)
+            ON CONFLICT (business_id) DO NOTHING
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TrustRatingService trustRatingService;
+    private final int chunkSize;
+    private final int parallelism;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    // Runs started from the admin mutation, so the request returns instead of waiting for the whole run
+    private final ExecutorService backgroundRunner = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "trust-recalculation"));
+    private volatile TrustRecalculationResult lastResult;
+
+    public TrustRecalculationService(NamedParameterJdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     TrustRatingService trustRatingService,
+                                     @Value("${marketplace.trust.bulk-recalculation.chunk-size:1000}") int chunkSize,
+                                     @Value("${marketplace.trust.bulk-recalculation.parallelism:4}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.trustRatingService = trustRatingService;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Optional periodic full recalculation; disabled unless a cron expression is configured.
+     */
+    @Scheduled(cron = "${marketplace.trust.bulk-recalculation.cron:-}")
+    public void scheduledRecalculation() {
+        try {
+            recalculateAll();
+        } catch (IllegalStateException e) {
+            log.warn("Skipping scheduled trust recalculation: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Starts a full recalculation in the background and returns immediately.
+     * When a run is already active, nothing new is started and its status is returned.
+     */
+    public TrustRecalculationStatus startRecalculation() {
+        if (!running.compareAndSet(false, true)) {
+            return status(false);
+        }
+        try {
+            backgroundRunner.execute(() -> {
+                try {
+                    runRecalculation();
+                } catch (RuntimeException e) {
+                    log.error("Background trust recalculation failed", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw new IllegalStateException("Trust recalculation is shutting down", e);
+        }
+        return status(true);
+    }
+
+    public TrustRecalculationStatus getStatus() {
+        return status(false);
+    }
+
+    /**
+     * Recomputes all user and business trust ratings on the calling thread. Only one run may be active at a time.
+     */
+    public TrustRecalculationResult recalculateAll() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A trust recalculation is already running");
+        }
+        try {
+            return runRecalculation();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backgroundRunner.shutdownNow();
+    }
+
+    private TrustRecalculationStatus status(boolean started) {
+        return new TrustRecalculationStatus(started, running.get(), lastResult);
+    }
+
+    private TrustRecalculationResult runRecalculation() {
+        long started = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        boolean completed = false;
+        try {
+            // Score every chunk against the same, freshly loaded prior
+            trustRatingService.refreshGlobalAverageRating();
+
+            int users = processInChunks(executor, FIRST_USER_IDS_SQL, NEXT_USER_IDS_SQL, this::recalculateUserChunk);
+            int businesses = processInChunks(executor, FIRST_BUSINESS_IDS_SQL, NEXT_BUSINESS_IDS_SQL, this::recalculateBusinessChunk);
+
+            long durationMs = System.currentTimeMillis() - started;
+            log.info("Bulk trust recalculation finished: {} users, {} businesses in {} ms", users, businesses, durationMs);
+            TrustRecalculationResult result = new TrustRecalculationResult(users, businesses, durationMs);
+            lastResult = result;
+            completed = true;
+            return result;
+        } finally {
+            if (completed) {
+                executor.shutdown();
+            } else {
+                // Drop queued chunks and interrupt running ones instead of letting them finish unobserved
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Pages through ids by keyset on the calling thread and hands each chunk to the pool,
+     * each in its own transaction. Returns the number of rows written.
+     */
+    private int processInChunks(ExecutorService executor, String firstIdsSql, String nextIdsSql,
+                                Function<List<UUID>, Integer> chunkProcessor) {
+        List<Future<Integer>> chunks = new ArrayList<>();
+        UUID after = null;
+        while (true) {
+            MapSqlParameterSource params = new MapSqlParameterSource("limit", chunkSize);
+            List<UUID> ids = after == null
+                    ? jdbcTemplate.queryForList(firstIdsSql, params, UUID.class)
+                    : jdbcTemplate.queryForList(nextIdsSql, params.addValue("after", after), UUID.class);
+            if (ids.isEmpty()) {
+                break;
+            }
+            chunks.add(executor.submit(() -> transactionTemplate.execute(status -> chunkProcessor.apply(ids))));
+            if (ids.size() < chunkSize) {
+                break;
+            }
+            after = ids.get(ids.size() - 1);
+        }
+
+        int written = 0;
+        for (Future<Integer> chunk : chunks) {
+            try {
+                written += chunk.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Trust recalculation interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Trust recalculation chunk failed", e.getCause());
+            }
+        }
+        return written;
+    }
+
+    int recalculateUserChunk(List<UUID> userIds) {
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", userIds);
+        Set<UUID> lockedRatingIds = new HashSet<>(jdbcTemplate.queryForList(LOCK_USER_RATINGS_SQL, ids, UUID.class));
+        Map<UUID, Counts> counts = loadCounts(USER_REVIEW_SQL, USER_TRANSACTION_SQL, ids);
+
+        List<MapSqlParameterSource> updates = new ArrayList<>();
+        List<MapSqlParameterSource> inserts = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.query(USER_PROFILE_SQL, ids, rs -> {
+            UUID userId = rs.getObject("id", UUID.class);
+            BigDecimal profileScore = TrustRatingService.profileCompletionScore(rs.getString("profile_image_url"),
+                    rs.getString("bio"), rs.getString("contact_number"), rs.getObject("city_id") != null,
+                    rs.getString("custom_city"));
+            BigDecimal verificationScore = rs.getBoolean("verified_id") ? TrustRatingService.VERIFIED_ID_SCORE : BigDecimal.ZERO;
+            TrustAggregates aggregates = counts.getOrDefault(userId, new Counts()).toAggregates();
+            TrustComponentsDTO components = trustRatingService.calculateComponents(aggregates, verificationScore, profileScore);
+
+            MapSqlParameterSource row = ratingRow(userId, aggregates, components, now);
+            // Only rows locked above are updated; one created since is left to whoever created it
+            if (lockedRatingIds.contains(rs.getObject("rating_id", UUID.class))) {
+                updates.add(row);
+            } else {
+                inserts.add(row.addValue("id", UUID.randomUUID()));
+            }
+        });
+        return writeBatch(UPDATE_USER_RATING_SQL, updates) + writeBatch(INSERT_USER_RATING_SQL, inserts);
+    }
+
+    int recalculateBusinessChunk(List<UUID> businessIds) {
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", businessIds);
+        Set<UUID> lockedRatingIds = new HashSet<>(jdbcTemplate.queryForList(LOCK_BUSINESS_RATINGS_SQL, ids, UUID.class));
+        Map<UUID, Counts> counts = loadCounts(BUSINESS_REVIEW_SQL, BUSINESS_TRANSACTION_SQL, ids);
+        Map<UUID, BigDecimal> verificationScores = new HashMap<>();
+        jdbcTemplate.query(BUSINESS_VERIFICATION_SQL, ids, rs -> {
+            verificationScores.put(rs.getObject("business_id", UUID.class),
+                    TrustRatingService.businessVerificationScore(rs.getLong("submitted_count"), rs.getLong("approved_count")));
+        });
+
+        List<MapSqlParameterSource> updates = new ArrayList<>();
+        List<MapSqlParameterSource> inserts = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.query(BUSINESS_PROFILE_SQL, ids, rs -> {
+            UUID businessId = rs.getObject("id", UUID.class);
+            BigDecimal profileScore = TrustRatingService.businessProfileScore(rs.getString("logo_url"),
+                    rs.getString("about"), rs.getString("contact_number"), rs.getString("address_line1"));
+            BigDecimal verificationScore = verificationScores.getOrDefault(businessId, BigDecimal.ZERO);
+            TrustAggregates aggregates = counts.getOrDefault(businessId, new Counts()).toAggregates();
+            TrustComponentsDTO components = trustRatingService.calculateComponents(aggregates, verificationScore, profileScore);
+
+            MapSqlParameterSource row = ratingRow(businessId, aggregates, components, now);
+            // Only rows locked above are updated; one created since is left to whoever created it
+            if (lockedRatingIds.contains(rs.getObject("rating_id", UUID.class))) {
+                updates.add(row);
+            } else {
+                inserts.add(row.addValue("id", UUID.randomUUID()));
+            }
+        });
+        return writeBatch(UPDATE_BUSINESS_RATING_SQL, updates) + writeBatch(INSERT_BUSINESS_RATING_SQL, inserts);
+    }
+
+    /**
+     * Review and transaction counts for a chunk, from one GROUP BY query each.
+     */
+    private Map<UUID, Counts> loadCounts(String reviewSql, String transactionSql, MapSqlParameterSource ids) {
+        Map<UUID, Counts> counts = new HashMap<>();
+        jdbcTemplate.query(reviewSql, ids, rs -> {
+            Counts c = counts.computeIfAbsent(ownerId(rs), id -> new Counts());
+            c.reviewCount = rs.getLong("review_count");
+            c.ratingSum = rs.getBigDecimal("rating_sum");
+            c.positiveReviews = rs.getLong("positive_count");
+        });
+        jdbcTemplate.query(transactionSql, ids, rs -> {
+            Counts c = counts.computeIfAbsent(ownerId(rs), id -> new Counts());
+            c.totalTransactions = rs.getLong("total_count");
+            c.successfulTransactions = rs.getLong("completed_count");
+        });
+        return counts;
+    }
+
+    private static UUID ownerId(ResultSet rs) throws SQLException {
+        return rs.getObject("owner_id", UUID.class);
+    }
+
+    private static MapSqlParameterSource ratingRow(UUID ownerId, TrustAggregates aggregates,
+                                                   TrustComponentsDTO components, LocalDateTime now) {
+        return new MapSqlParameterSource()
+                .addValue("ownerId", ownerId)
+                .addValue("overallScore", components.getOverallScore())
+                .addValue("profileScore", components.getProfileScore())
+                .addValue("reviewScore", components.getReviewScore())
+                .addValue("verificationScore", components.getVerificationScore())
+                .addValue("transactionScore", components.getTransactionScore())
+                .addValue("totalReviews", aggregates.reviewCount())
+                .addValue("positiveReviews", aggregates.positiveReviews())
+                .addValue("reviewRatingSum", aggregates.reviewRatingSum())
+                .addValue("totalTransactions", aggregates.totalTransactions())
+                .addValue("successfulTransactions", aggregates.successfulTransactions())
+                .addValue("now", now);
+    }
+
+    private int writeBatch(String sql, List<MapSqlParameterSource> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(sql, rows.toArray(new MapSqlParameterSource[0]));
+        return rows.size();
+    }
+
+    private static class Counts {
+        long reviewCount;
+        BigDecimal ratingSum = BigDecimal.ZERO;
+        long positiveReviews;
+        long totalTransactions;
+        long successfulTransactions;
+
+        TrustAggregates toAggregates() {
+            return new TrustAggregates(reviewCount, ratingSum, positiveReviews, totalTransactions, successfulTransactions);
+        }
+    }
+}
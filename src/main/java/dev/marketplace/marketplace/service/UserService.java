@@ -3,6 +3,8 @@ package dev.marketplace.marketplace.service;
 import com.backblaze.b2.client.exceptions.B2Exception;
 import dev.marketplace.marketplace.model.User;
 import dev.marketplace.marketplace.repository.UserRepository;
+import dev.marketplace.marketplace.security.UserDetailsCache;
+import dev.marketplace.marketplace.security.UserDetailsImpl;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -48,6 +50,9 @@ public class UserService implements UserDetailsService {
     @Autowired
     private TokenService tokenService;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
     @Autowired
     private dev.marketplace.marketplace.config.AppConfig appConfig;
 
@@ -62,6 +67,11 @@ public class UserService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        // Called by JwtAuthenticationFilter on every authenticated request
+        UserDetailsImpl cached = userDetailsCache.get(username);
+        if (cached != null) {
+            return cached;
+        }
 
         Optional<User> userOpt = userRepository.findByEmail(username);
 
@@ -72,11 +82,9 @@ public class UserService implements UserDetailsService {
         User user = userOpt
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username/email: " + username));
 
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPassword())
-                .authorities(user.getRole().name())
-                .build();
+        UserDetailsImpl userDetails = new UserDetailsImpl(user);
+        userDetailsCache.put(username, userDetails);
+        return userDetails;
     }
 
     public User registerUser(String username, String email, String password) {
@@ -116,7 +124,7 @@ public class UserService implements UserDetailsService {
 
         // Generate email verification token
         String verificationToken = tokenService.generateEmailVerificationToken();
-        savedUser.setEmailVerificationToken(verificationToken);
+        savedUser.setEmailVerificationToken(tokenService.hashToken(verificationToken));
         savedUser.setEmailVerificationTokenExpiry(java.time.LocalDateTime.now().plusHours(24)); // Expires in 24 hours
         userRepository.save(savedUser);
 
@@ -245,6 +253,13 @@ public class UserService implements UserDetailsService {
     }
 
     public UUID getUserIdByUsername(String username) {
+        // Resolvers pass the authenticated principal's name, which the filter has just cached. Only trust an
+        // entry cached under its own email: loadUserByUsername resolves email first, this method username first.
+        UserDetailsImpl cached = userDetailsCache.get(username);
+        if (cached != null && username.equals(cached.getUsername())) {
+            return cached.getId();
+        }
+
         Optional<User> userOpt = userRepository.findByUsername(username);
 
         if (userOpt.isEmpty()) {
@@ -466,9 +481,8 @@ public class UserService implements UserDetailsService {
             return false;
         }
 
-        Optional<User> userOpt = userRepository.findAll().stream()
-            .filter(u -> token.equals(u.getEmailVerificationToken()))
-            .findFirst();
+        // Only the hash is stored, so look up by hashing the presented token
+        Optional<User> userOpt = userRepository.findByEmailVerificationToken(tokenService.hashToken(token));
 
         if (userOpt.isEmpty()) {
             logger.warn("Email verification failed: No user found with this token");
@@ -521,7 +535,7 @@ public class UserService implements UserDetailsService {
 
         // Generate new verification token
         String verificationToken = tokenService.generateEmailVerificationToken();
-        user.setEmailVerificationToken(verificationToken);
+        user.setEmailVerificationToken(tokenService.hashToken(verificationToken));
         user.setEmailVerificationTokenExpiry(java.time.LocalDateTime.now().plusHours(24));
         userRepository.save(user);
 
@@ -0,0 +1,27 @@
+package dev.marketplace.marketplace.service.event;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Published by ReviewService after a review is created, updated or deleted.
+ * previousRating is null for a new review and rating is null for a deleted one.
+ */
+public record ReviewChangedEvent(UUID reviewedUserId,
+                                 UUID businessId,
+                                 BigDecimal previousRating,
+                                 BigDecimal rating) {
+
+    public static ReviewChangedEvent created(UUID reviewedUserId, UUID businessId, BigDecimal rating) {
+        return new ReviewChangedEvent(reviewedUserId, businessId, null, rating);
+    }
+
+    public static ReviewChangedEvent updated(UUID reviewedUserId, UUID businessId,
+                                             BigDecimal previousRating, BigDecimal rating) {
+        return new ReviewChangedEvent(reviewedUserId, businessId, previousRating, rating);
+    }
+
+    public static ReviewChangedEvent deleted(UUID reviewedUserId, UUID businessId, BigDecimal previousRating) {
+        return new ReviewChangedEvent(reviewedUserId, businessId, previousRating, null);
+    }
+}
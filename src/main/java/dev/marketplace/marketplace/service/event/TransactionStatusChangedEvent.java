@@ -0,0 +1,16 @@
+package dev.marketplace.marketplace.service.event;
+
+import dev.marketplace.marketplace.model.Transaction;
+
+import java.util.UUID;
+
+/**
+ * Published by TransactionService when a transaction is recorded or changes status.
+ * previousStatus is null for a transaction that did not exist before.
+ */
+public record TransactionStatusChangedEvent(UUID sellerId,
+                                            UUID buyerId,
+                                            UUID businessId,
+                                            Transaction.TransactionStatus previousStatus,
+                                            Transaction.TransactionStatus status) {
+}
@@ -0,0 +1,24 @@
+-- Running review totals per reviewed user and per business, maintained by ReviewService in the
+-- same transaction as the review change, so profile pages read them with one key lookup
+CREATE TABLE IF NOT EXISTS review_summary (
+    subject_type VARCHAR(16) NOT NULL,
+    subject_id UUID NOT NULL,
+    review_count BIGINT NOT NULL DEFAULT 0,
+    rating_sum NUMERIC(12, 1) NOT NULL DEFAULT 0,
+    positive_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (subject_type, subject_id)
+);
+
+INSERT INTO review_summary (subject_type, subject_id, review_count, rating_sum, positive_count)
+SELECT 'USER', reviewed_user_id, COUNT(*), COALESCE(SUM(rating), 0), COUNT(*) FILTER (WHERE is_positive)
+FROM review
+GROUP BY reviewed_user_id
+ON CONFLICT (subject_type, subject_id) DO NOTHING;
+
+INSERT INTO review_summary (subject_type, subject_id, review_count, rating_sum, positive_count)
+SELECT 'BUSINESS', business_id, COUNT(*), COALESCE(SUM(rating), 0), COUNT(*) FILTER (WHERE is_positive)
+FROM review
+WHERE business_id IS NOT NULL
+GROUP BY business_id
+ON CONFLICT (subject_type, subject_id) DO NOTHING;
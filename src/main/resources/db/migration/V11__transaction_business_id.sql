@@ -0,0 +1,12 @@
+-- Business transaction lookups filter on transaction.business_id instead of joining through listing.
+-- Transactions recorded before business_id was set on sale take it from their listing.
+UPDATE "transaction" t
+SET business_id = l.business_id
+FROM listing l
+WHERE l.id = t.listing_id
+  AND t.business_id IS NULL
+  AND l.business_id IS NOT NULL;
+
+-- Serves the newest-first page of a business's transactions; the status counts use the same leading column
+CREATE INDEX IF NOT EXISTS idx_transaction_business_sale_date ON "transaction"(business_id, sale_date DESC, id DESC);
+DROP INDEX IF EXISTS idx_transaction_business_id;
@@ -0,0 +1,3 @@
+-- The nightly purge looks for delivered or abandoned messages older than the retention period
+CREATE INDEX IF NOT EXISTS idx_email_outbox_finished ON email_outbox(created_at)
+    WHERE status IN ('SENT', 'FAILED');
@@ -0,0 +1,9 @@
+-- When a listing was archived; the retention purge counts from here rather than from created_at,
+-- which would delete a listing on the same night it expired.
+ALTER TABLE listing ADD COLUMN IF NOT EXISTS archived_at TIMESTAMP;
+
+-- Listings already archived get a full retention period from now
+UPDATE listing SET archived_at = CURRENT_TIMESTAMP WHERE archived = TRUE AND archived_at IS NULL;
+
+-- Backs the nightly purge of archived listings past retention
+CREATE INDEX IF NOT EXISTS idx_listing_archived_at ON listing(archived_at) WHERE archived = TRUE;
@@ -0,0 +1,6 @@
+-- Originals whose thumbnail and medium variants have all been stored. Variants are generated
+-- after the upload returns, so until a row exists readers serve the original.
+CREATE TABLE IF NOT EXISTS image_derivative (
+    original_key VARCHAR(1024) PRIMARY KEY,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,5 @@
+-- Bodies of delivered or abandoned messages are cleared, since they can carry verification and
+-- password reset links; only the delivery record is kept for the retention period
+ALTER TABLE email_outbox ALTER COLUMN body DROP NOT NULL;
+
+UPDATE email_outbox SET body = NULL WHERE status IN ('SENT', 'FAILED');
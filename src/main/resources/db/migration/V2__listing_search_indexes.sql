@@ -0,0 +1,8 @@
+-- Indexes backing the database-side listing search in ListingService.getListingsWithFilters.
+-- Default ordering is newest first with id as tie-breaker.
+CREATE INDEX IF NOT EXISTS idx_listing_created_at_id ON listing(created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_listing_category_created_at ON listing(category_id, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_listing_price ON listing(price);
+CREATE INDEX IF NOT EXISTS idx_listing_user_id ON listing(user_id);
+CREATE INDEX IF NOT EXISTS idx_listing_business_id ON listing(business_id);
+CREATE INDEX IF NOT EXISTS idx_listing_city_id ON listing(city_id);
@@ -0,0 +1,31 @@
+-- Full-text search for listing title/description.
+-- The search document is computed by listing_search_document and indexed as an expression, so no
+-- column is added and the table is not rewritten; title matches weigh more than description matches.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE OR REPLACE FUNCTION listing_search_document(title text, description text)
+    RETURNS tsvector
+    LANGUAGE sql IMMUTABLE
+AS $$
+    SELECT setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+           setweight(to_tsvector('english', coalesce(description, '')), 'B')
+$$;
+
+CREATE INDEX IF NOT EXISTS idx_listing_search_document
+    ON listing USING GIN (listing_search_document(title, description));
+
+-- Trigram indexes so substring/prefix matches (LIKE '%term%') can use an index too
+CREATE INDEX IF NOT EXISTS idx_listing_title_trgm ON listing USING GIN (lower(title) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_listing_description_trgm ON listing USING GIN (lower(description) gin_trgm_ops);
+
+-- Wrappers called from JPA criteria queries, which cannot express the @@ operator.
+-- They are plain SQL functions so the planner inlines them and still uses idx_listing_search_document.
+CREATE OR REPLACE FUNCTION listing_search_matches(title text, description text, term text)
+    RETURNS boolean
+    LANGUAGE sql STABLE
+AS $$ SELECT listing_search_document(title, description) @@ websearch_to_tsquery('english', term) $$;
+
+CREATE OR REPLACE FUNCTION listing_search_rank(title text, description text, term text)
+    RETURNS real
+    LANGUAGE sql STABLE
+AS $$ SELECT ts_rank(listing_search_document(title, description), websearch_to_tsquery('english', term)) $$;
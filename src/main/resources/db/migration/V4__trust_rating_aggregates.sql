@@ -0,0 +1,11 @@
+-- Running review aggregates kept on the trust rating rows, so review and transaction
+-- events can rescore a user or business without re-counting their history.
+-- aggregates_initialized stays false until a full recalculation has seeded the counters.
+
+ALTER TABLE trust_rating
+    ADD COLUMN IF NOT EXISTS review_rating_sum NUMERIC(12, 1) NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS aggregates_initialized BOOLEAN NOT NULL DEFAULT FALSE;
+
+ALTER TABLE business_trust_rating
+    ADD COLUMN IF NOT EXISTS review_rating_sum NUMERIC(12, 1) NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS aggregates_initialized BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,9 @@
+-- Email verification tokens are now stored as a SHA-256 hex digest and looked up by value.
+-- Hash any outstanding raw tokens so links already sent keep working.
+UPDATE users
+SET email_verification_token = encode(sha256(convert_to(email_verification_token, 'UTF8')), 'hex')
+WHERE email_verification_token IS NOT NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_users_email_verification_token
+    ON users(email_verification_token)
+    WHERE email_verification_token IS NOT NULL;
@@ -0,0 +1,8 @@
+-- Period end a renewal warning was last sent for; a renewal moves current_period_end, so each
+-- billing period gets exactly one warning however often the scan runs.
+ALTER TABLE subscription ADD COLUMN IF NOT EXISTS expiration_warning_sent_for TIMESTAMP;
+
+-- Backs the daily keyset scan over active subscriptions by period end
+CREATE INDEX IF NOT EXISTS idx_subscription_active_period_end
+    ON subscription(current_period_end, id)
+    WHERE status = 'ACTIVE';
@@ -0,0 +1,8 @@
+-- expires_at a listing's expiration warning was sent for; renewing moves expires_at, so each
+-- listing period gets exactly one warning however often the scan runs.
+ALTER TABLE listing ADD COLUMN IF NOT EXISTS expiration_warning_sent_for TIMESTAMP;
+
+-- Backs the daily expiration warning window and the auto-archive update
+CREATE INDEX IF NOT EXISTS idx_listing_live_expires_at
+    ON listing(expires_at)
+    WHERE archived = FALSE AND sold = FALSE;
@@ -0,0 +1,12 @@
+-- Review feeds page newest first with a (created_at, id) keyset. Including the rating columns
+-- lets per-user counts and averages run as index-only scans as well.
+CREATE INDEX IF NOT EXISTS idx_review_reviewed_user_created
+    ON review(reviewed_user_id, created_at DESC, id DESC)
+    INCLUDE (is_positive, rating);
+
+-- Platform-wide feed (reviews by minimum rating), same ordering
+CREATE INDEX IF NOT EXISTS idx_review_created
+    ON review(created_at DESC, id DESC);
+
+-- Superseded by the composite index, which has reviewed_user_id as its leading column
+DROP INDEX IF EXISTS idx_review_reviewed_user_id;
@@ -2,6 +2,7 @@ package dev.marketplace.marketplace;
 
 import dev.marketplace.marketplace.service.B2StorageService;
 import dev.marketplace.marketplace.config.B2Properties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
@@ -32,12 +33,17 @@ public class TestConfig {
         app.setKey(key);
         props.setApplication(app);
 
-        return new B2StorageService(props) {
+        return new B2StorageService(props, new SimpleMeterRegistry()) {
             @Override
             public String uploadImage(String fileName, byte[] imageData) {
                 return "test-uploaded-file-" + fileName;
             }
 
+            @Override
+            public String uploadImage(String fileName, MultipartFile file) {
+                return "test-uploaded-file-" + fileName;
+            }
+
 
             @Override
             public String generatePreSignedUrl(String fileName) {
@@ -0,0 +1,112 @@
+package dev.marketplace.marketplace.config;
+
+import graphql.execution.CoercedVariables;
+import graphql.parser.Parser;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryCostInstrumentationTest {
+
+    private static final String SDL = """
+            type Query {
+                getListings(limit: Int, offset: Int): ListingPageResponse!
+                getListingById(id: ID!): Listing
+            }
+            type ListingPageResponse {
+                listings: [Listing!]!
+                totalCount: Int!
+            }
+            type Listing {
+                id: ID!
+                title: String!
+                images: [String!]!
+                user: User
+            }
+            type User {
+                id: ID!
+                username: String!
+                listings: [Listing!]!
+                trustRating: TrustRating
+            }
+            type TrustRating {
+                overallScore: Float
+            }
+            """;
+
+    private static final int DEFAULT_LIST_SIZE = 20;
+
+    private final GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(
+            new SchemaParser().parse(SDL), RuntimeWiring.newRuntimeWiring().build());
+
+    @Test
+    void scalarFieldsAreFreeButEveryElementOfTheParentLimitIsCharged() {
+        QueryCostInstrumentation.QueryCost cost = estimate(
+                "{ getListings(limit: 50) { totalCount listings { id title images } } }", Map.of());
+
+        // getListings (1) + listings (50 x (1 + 0))
+        assertEquals(51, cost.cost());
+        assertEquals(3, cost.depth());
+    }
+
+    @Test
+    void nestedListsMultiply() {
+        QueryCostInstrumentation.QueryCost cost = estimate(
+                "query($limit: Int) { getListings(limit: $limit) { listings { user { listings { user { trustRating { overallScore } } } } } } }",
+                Map.of("limit", 10));
+
+        // trustRating 1, user 2, inner listings 20 x 3, user 61, listings 10 x 62, getListings 621
+        assertEquals(621, cost.cost());
+        assertEquals(7, cost.depth());
+    }
+
+    @Test
+    void largePagesCostInProportionToTheirSize() {
+        QueryCostInstrumentation.QueryCost cost = estimate("{ getListings(limit: 100000) { listings { id } } }", Map.of());
+
+        assertEquals(100_001, cost.cost());
+    }
+
+    @Test
+    void fragmentSpreadInTwoPlacesIsChargedInEach() {
+        QueryCostInstrumentation.QueryCost cost = estimate("""
+                { getListingById(id: "1") { ...withUser } getListings(limit: 5) { listings { ...withUser } } }
+                fragment withUser on Listing { user { trustRating { overallScore } } }
+                """, Map.of());
+
+        // user 2 under each listing: getListingById 3, listings 5 x 3, getListings 16
+        assertEquals(19, cost.cost());
+        assertEquals(5, cost.depth());
+    }
+
+    @Test
+    void repeatedFieldsAtOnePathAreEachChargedForTheirOwnSelection() {
+        QueryCostInstrumentation.QueryCost cost = estimate(
+                "{ getListingById(id: \"1\") { user { id } } getListingById(id: \"1\") { user { trustRating { overallScore } } } }",
+                Map.of());
+
+        // 2 for the first occurrence, 3 for the second
+        assertEquals(5, cost.cost());
+    }
+
+    @Test
+    void introspectionIsNotCounted() {
+        QueryCostInstrumentation.QueryCost cost = estimate(
+                "{ __typename getListingById(id: \"1\") { __typename user { id } } __schema { types { fields { name } } } }", Map.of());
+
+        // getListingById 1 + user 1
+        assertEquals(2, cost.cost());
+        assertEquals(3, cost.depth());
+    }
+
+    private QueryCostInstrumentation.QueryCost estimate(String query, Map<String, Object> variables) {
+        return QueryCostInstrumentation.estimate(schema, Parser.parse(query), null,
+                CoercedVariables.of(variables), DEFAULT_LIST_SIZE);
+    }
+}
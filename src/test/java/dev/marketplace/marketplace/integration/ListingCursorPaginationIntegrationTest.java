@@ -0,0 +1,176 @@
+package dev.marketplace.marketplace.integration;
+
+import dev.marketplace.marketplace.TestConfig;
+import dev.marketplace.marketplace.dto.ListingCursor;
+import dev.marketplace.marketplace.dto.ListingDTO;
+import dev.marketplace.marketplace.dto.ListingPageResponse;
+import dev.marketplace.marketplace.enums.Condition;
+import dev.marketplace.marketplace.model.Category;
+import dev.marketplace.marketplace.model.Listing;
+import dev.marketplace.marketplace.model.User;
+import dev.marketplace.marketplace.repository.CategoryRepository;
+import dev.marketplace.marketplace.repository.ListingRepository;
+import dev.marketplace.marketplace.repository.UserRepository;
+import dev.marketplace.marketplace.service.ListingService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Walks listing connections page by page through their cursors, with ties on the sort value
+ * so the id tie-breaker is exercised.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+@Import(TestConfig.class)
+@Transactional
+public class ListingCursorPaginationIntegrationTest {
+
+    private static final int LISTING_COUNT = 7;
+
+    @Autowired
+    private ListingService listingService;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User seller;
+    private final List<Listing> listings = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        Category category = categoryRepository.save(Category.builder()
+                .name("Cursor Category")
+                .slug("cursor-category")
+                .build());
+
+        seller = new User();
+        seller.setEmail("cursor-seller@example.com");
+        seller.setUsername("cursor-seller");
+        seller.setPassword("password");
+        seller = userRepository.save(seller);
+
+        LocalDateTime createdAt = LocalDateTime.now().minusDays(1).withNano(0);
+        for (int i = 0; i < LISTING_COUNT; i++) {
+            // Pairs of listings share a creation time and a price
+            listings.add(listingRepository.save(new Listing.Builder()
+                    .title("Cursor listing " + i)
+                    .description("Listing used to walk cursors")
+                    .images(new ArrayList<>(List.of("listings/" + i + "_a.jpg")))
+                    .category(category)
+                    .price(100 + i / 2)
+                    .condition(Condition.GOOD)
+                    .user(seller)
+                    .createdBy(seller)
+                    .createdAt(createdAt.plusMinutes(i / 2))
+                    .build()));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void ownListingsCursorsVisitEveryListingOnceNewestFirst() {
+        Map<UUID, LocalDateTime> createdAtById = listings.stream()
+                .collect(Collectors.toMap(Listing::getId, Listing::getCreatedAt));
+
+        List<UUID> visited = new ArrayList<>();
+        String after = null;
+        int pages = 0;
+        do {
+            ListingPageResponse page = listingService.getOwnListingsConnection(seller.getId(), 2, after, true);
+            page.getListings().forEach(listing -> visited.add(listing.id()));
+            assertEquals(LISTING_COUNT, page.getTotalCount());
+            after = page.getPageInfo().hasNextPage() ? page.getPageInfo().endCursor() : null;
+            pages++;
+        } while (after != null);
+
+        assertEquals(createdAtById.keySet(), Set.copyOf(visited));
+        assertEquals(LISTING_COUNT, visited.size());
+        List<LocalDateTime> createdAts = visited.stream().map(createdAtById::get).toList();
+        assertEquals(createdAts.stream().sorted(Comparator.reverseOrder()).toList(), createdAts);
+        assertEquals(4, pages);
+    }
+
+    @Test
+    public void priceCursorsVisitEveryListingOnceCheapestFirst() {
+        List<UUID> visited = new ArrayList<>();
+        List<Double> prices = new ArrayList<>();
+        String after = null;
+        do {
+            ListingPageResponse page = listingService.getListingsConnection(3, after, null, null, null, null, null,
+                    null, null, null, "price", "asc", seller.getId(), null, null, false);
+            for (ListingDTO listing : page.getListings()) {
+                visited.add(listing.id());
+                prices.add(listing.price());
+            }
+            after = page.getPageInfo().hasNextPage() ? page.getPageInfo().endCursor() : null;
+        } while (after != null);
+
+        assertEquals(LISTING_COUNT, visited.size());
+        assertEquals(LISTING_COUNT, visited.stream().distinct().count());
+        assertEquals(prices.stream().sorted().toList(), prices);
+    }
+
+    @Test
+    public void lastPageHasNoNextPage() {
+        ListingPageResponse page = listingService.getOwnListingsConnection(seller.getId(), LISTING_COUNT, null, false);
+
+        assertEquals(LISTING_COUNT, page.getListings().size());
+        assertFalse(page.getPageInfo().hasNextPage());
+
+        ListingPageResponse empty = listingService.getOwnListingsConnection(seller.getId(), 2,
+                page.getPageInfo().endCursor(), false);
+        assertTrue(empty.getListings().isEmpty());
+        assertNull(empty.getPageInfo().endCursor());
+    }
+
+    @Test
+    public void rejectsPageSizesOutsideTheLimit() {
+        assertThrows(IllegalArgumentException.class,
+                () -> listingService.getOwnListingsConnection(seller.getId(), 0, null, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> listingService.getOwnListingsConnection(seller.getId(), Integer.MAX_VALUE, null, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> listingService.getListingsConnection(ListingService.MAX_PAGE_SIZE + 1, null, null, null, null, null,
+                        null, null, null, null, null, null, null, null, null, false));
+    }
+
+    @Test
+    public void rejectsCursorsWhoseValueDoesNotParse() {
+        String tampered = new ListingCursor(ListingCursor.CREATED_AT, "garbage", UUID.randomUUID()).encode();
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> listingService.getOwnListingsConnection(seller.getId(), 2, tampered, false));
+        assertTrue(error.getMessage().startsWith("Invalid cursor"));
+    }
+}
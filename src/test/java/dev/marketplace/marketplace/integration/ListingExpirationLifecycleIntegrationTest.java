@@ -0,0 +1,166 @@
+package dev.marketplace.marketplace.integration;
+
+import dev.marketplace.marketplace.TestConfig;
+import dev.marketplace.marketplace.enums.Condition;
+import dev.marketplace.marketplace.model.Category;
+import dev.marketplace.marketplace.model.Listing;
+import dev.marketplace.marketplace.model.Transaction;
+import dev.marketplace.marketplace.model.User;
+import dev.marketplace.marketplace.repository.CategoryRepository;
+import dev.marketplace.marketplace.repository.ListingRepository;
+import dev.marketplace.marketplace.repository.TransactionRepository;
+import dev.marketplace.marketplace.repository.UserRepository;
+import dev.marketplace.marketplace.service.ListingCleanupService;
+import dev.marketplace.marketplace.service.ListingService;
+import dev.marketplace.marketplace.service.ScheduledEmailService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the nightly expiration archive and the archived listing purge back to back, as they
+ * run in production, to check a listing is not purged on the night it expires.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+@Import(TestConfig.class)
+@Transactional
+public class ListingExpirationLifecycleIntegrationTest {
+
+    @Autowired
+    private ScheduledEmailService scheduledEmailService;
+
+    @Autowired
+    private ListingCleanupService listingCleanupService;
+
+    @Autowired
+    private ListingService listingService;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User seller;
+    private Category category;
+
+    @BeforeEach
+    public void setUp() {
+        category = categoryRepository.save(Category.builder()
+                .name("Expiry Category")
+                .slug("expiry-category")
+                .build());
+
+        seller = new User();
+        seller.setEmail("expiry-seller@example.com");
+        seller.setUsername("expiry-seller");
+        seller.setPassword("password");
+        seller = userRepository.save(seller);
+    }
+
+    @Test
+    public void expiredListingsSurviveThePurgeUntilRetentionPassesAndCanBeRenewed() {
+        // Expires a listing period after creation, so this one expired ten days ago
+        UUID expired = listing("Expired listing", LocalDateTime.now().minusDays(40), false);
+        UUID live = listing("Live listing", LocalDateTime.now(), false);
+        UUID stale = listing("Long archived listing", LocalDateTime.now().minusDays(90), true);
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE listing SET archived_at = ? WHERE id = ?", LocalDateTime.now().minusDays(15), stale);
+        entityManager.clear();
+
+        runNightlyJobs();
+
+        Listing archived = listingRepository.findById(expired).orElseThrow();
+        assertTrue(archived.isArchived());
+        assertNotNull(archived.getArchivedAt());
+        assertTrue(archived.getArchivedAt().isAfter(LocalDateTime.now().minusMinutes(5)));
+        assertFalse(listingRepository.findById(live).orElseThrow().isArchived());
+        assertFalse(listingRepository.findById(stale).isPresent());
+
+        listingService.renewListing(expired, seller.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        runNightlyJobs();
+
+        Listing renewed = listingRepository.findById(expired).orElseThrow();
+        assertFalse(renewed.isArchived());
+        assertNull(renewed.getArchivedAt());
+        assertTrue(renewed.getExpiresAt().isAfter(LocalDateTime.now().plusDays(Listing.LISTING_PERIOD_DAYS - 1)));
+    }
+
+    @Test
+    public void soldListingsAreNotPurgedWithTheirTransactions() {
+        UUID sold = listing("Long sold listing", LocalDateTime.now().minusDays(90), true);
+        User buyer = new User();
+        buyer.setEmail("expiry-buyer@example.com");
+        buyer.setUsername("expiry-buyer");
+        buyer.setPassword("password");
+        buyer = userRepository.save(buyer);
+        Transaction transaction = transactionRepository.save(Transaction.builder()
+                .listing(listingRepository.getReferenceById(sold))
+                .seller(seller)
+                .buyer(buyer)
+                .salePrice(BigDecimal.valueOf(100))
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .build());
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE listing SET archived_at = ? WHERE id = ?", LocalDateTime.now().minusDays(15), sold);
+        entityManager.clear();
+
+        runNightlyJobs();
+
+        assertTrue(listingRepository.findById(sold).isPresent());
+        assertTrue(transactionRepository.findById(transaction.getId()).isPresent());
+    }
+
+    private void runNightlyJobs() {
+        scheduledEmailService.checkListingExpirations();
+        listingCleanupService.deleteOldArchivedListings();
+        entityManager.clear();
+    }
+
+    private UUID listing(String title, LocalDateTime createdAt, boolean archived) {
+        return listingRepository.save(new Listing.Builder()
+                .title(title)
+                .description("Listing used to check expiry")
+                .images(new ArrayList<>())
+                .category(category)
+                .price(100)
+                .condition(Condition.GOOD)
+                .user(seller)
+                .createdBy(seller)
+                .createdAt(createdAt)
+                .archived(archived)
+                .build()).getId();
+    }
+}
@@ -0,0 +1,161 @@
+package dev.marketplace.marketplace.integration;
+
+import dev.marketplace.marketplace.TestConfig;
+import dev.marketplace.marketplace.dto.ListingPageResponse;
+import dev.marketplace.marketplace.enums.Condition;
+import dev.marketplace.marketplace.model.Business;
+import dev.marketplace.marketplace.model.Category;
+import dev.marketplace.marketplace.model.ImageDerivative;
+import dev.marketplace.marketplace.model.Listing;
+import dev.marketplace.marketplace.model.StoreBranding;
+import dev.marketplace.marketplace.model.User;
+import dev.marketplace.marketplace.repository.BusinessRepository;
+import dev.marketplace.marketplace.repository.CategoryRepository;
+import dev.marketplace.marketplace.repository.ImageDerivativeRepository;
+import dev.marketplace.marketplace.repository.ListingRepository;
+import dev.marketplace.marketplace.repository.UserRepository;
+import dev.marketplace.marketplace.service.ListingService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that converting a page of listings to DTOs does not issue per-row queries
+ * for the seller, category, city, business and its branding, images or image variants.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+@Import(TestConfig.class)
+@Transactional
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class ListingReadQueryCountIntegrationTest {
+
+    private static final int LISTING_COUNT = 24;
+
+    @Autowired
+    private ListingService listingService;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ImageDerivativeRepository imageDerivativeRepository;
+
+    @Autowired
+    private BusinessRepository businessRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    public void setUp() {
+        Category category = categoryRepository.save(Category.builder()
+                .name("Query Count Category")
+                .slug("query-count-category")
+                .build());
+
+        LocalDateTime createdAt = LocalDateTime.now().minusDays(1);
+        // Unique keys per run, so variant lookups cached by earlier tests in the same context do not hide queries
+        String imagePrefix = "listings/" + UUID.randomUUID() + "/";
+        for (int i = 0; i < LISTING_COUNT; i++) {
+            // A distinct seller per listing so per-row user loading would show up in the count
+            User seller = new User();
+            seller.setEmail("query-count-seller-" + i + "@example.com");
+            seller.setUsername("query-count-seller-" + i);
+            seller.setPassword("password");
+            seller = userRepository.save(seller);
+
+            // Every other listing belongs to a business with branding, so per-row branding loads would show up too
+            Business business = null;
+            if (i % 2 == 0) {
+                business = new Business();
+                business.setName("Query count business " + i);
+                business.setEmail("query-count-business-" + i + "@example.com");
+                business.setOwner(seller);
+                StoreBranding branding = new StoreBranding();
+                branding.setBusiness(business);
+                branding.setStoreName("Query count store " + i);
+                business.setStoreBranding(branding);
+                business = businessRepository.save(business);
+            }
+
+            // Both images carry the variant marker; only the first has its variants recorded
+            String derived = imagePrefix + i + "_a__orig.jpg";
+            String pending = imagePrefix + i + "_b__orig.jpg";
+            imageDerivativeRepository.save(new ImageDerivative(derived, createdAt));
+
+            listingRepository.save(new Listing.Builder()
+                    .title("Query count listing " + i)
+                    .description("Listing used to count statements")
+                    .images(new ArrayList<>(List.of(derived, pending)))
+                    .category(category)
+                    .price(100 + i)
+                    .condition(Condition.GOOD)
+                    .user(seller)
+                    .business(business)
+                    .createdBy(seller)
+                    .createdAt(createdAt.plusMinutes(i))
+                    .build());
+        }
+        // Start every measurement from an empty persistence context
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void statementCountForAPageDoesNotDependOnPageSize() {
+        long smallPageStatements = countStatementsForPage(5);
+        long largePageStatements = countStatementsForPage(20);
+
+        assertEquals(smallPageStatements, largePageStatements,
+                "Loading a bigger page must not issue more statements");
+    }
+
+    private long countStatementsForPage(int pageSize) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ListingPageResponse page = listingService.getListingsWithFilters(
+                pageSize, 0, null, null, null, null, null, null,
+                null, null, "createdAt", "desc", null, null, null);
+
+        assertEquals(pageSize, page.getListings().size());
+        assertEquals(LISTING_COUNT, page.getTotalCount());
+        page.getListings().forEach(listing -> {
+            assertEquals(2, listing.images().size());
+            assertTrue(listing.thumbnailUrls().get(0).contains("_a__thumb."));
+            assertTrue(listing.thumbnailUrls().get(1).contains("_b__orig."));
+            assertTrue(listing.mediumUrls().get(0).contains("_a__medium."));
+        });
+        return statistics.getPrepareStatementCount();
+    }
+}
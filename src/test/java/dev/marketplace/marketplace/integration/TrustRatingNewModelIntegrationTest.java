@@ -50,9 +50,9 @@ public class TrustRatingNewModelIntegrationTest {
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(trustRatingRepository.findByUserId(userId)).thenReturn(Optional.of(existing));
 
-        // Reviews: 1 review, avg=5.0, global avg 4.2
+        // Reviews: 1 review rated 5.0, global avg 4.2
         when(reviewRepository.countReviewsByUserId(userId)).thenReturn(1L);
-        when(reviewRepository.getAverageRatingByUserId(userId)).thenReturn(BigDecimal.valueOf(5.0));
+        when(reviewRepository.sumRatingByUserId(userId)).thenReturn(BigDecimal.valueOf(5.0));
         when(reviewRepository.getGlobalAverageRating()).thenReturn(BigDecimal.valueOf(4.2));
         when(reviewRepository.countPositiveReviewsByUserId(userId)).thenReturn(1L);
 
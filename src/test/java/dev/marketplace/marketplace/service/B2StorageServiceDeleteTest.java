@@ -0,0 +1,67 @@
+package dev.marketplace.marketplace.service;
+
+import com.backblaze.b2.client.B2StorageClient;
+import com.backblaze.b2.client.exceptions.B2Exception;
+import com.backblaze.b2.client.exceptions.B2LocalException;
+import com.backblaze.b2.client.exceptions.B2NotFoundException;
+import com.backblaze.b2.client.structures.B2FileVersion;
+import dev.marketplace.marketplace.config.B2Properties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class B2StorageServiceDeleteTest {
+
+    private final B2StorageClient client = mock(B2StorageClient.class);
+    private final B2StorageService service = new B2StorageService(properties(), new SimpleMeterRegistry(), client);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdownUploads();
+    }
+
+    @Test
+    void resolvesTheFileIdBeforeDeleting() throws Exception {
+        B2FileVersion version = mock(B2FileVersion.class);
+        when(client.getFileInfoByName("dummy", "listings/a/photo.png")).thenReturn(version);
+
+        assertTrue(service.deleteImage("listings/a/photo.png"));
+        verify(client).deleteFileVersion(version);
+    }
+
+    @Test
+    void missingFilesAreReportedNotThrown() throws Exception {
+        when(client.getFileInfoByName("dummy", "listings/a/gone.png"))
+                .thenThrow(new B2NotFoundException("not_found", null, "file not present"));
+
+        assertFalse(service.deleteImage("listings/a/gone.png"));
+        verify(client, never()).deleteFileVersion(any(B2FileVersion.class));
+    }
+
+    @Test
+    void deleteFailuresReachTheCaller() throws Exception {
+        B2FileVersion version = mock(B2FileVersion.class);
+        when(client.getFileInfoByName("dummy", "listings/a/photo.png")).thenReturn(version);
+        when(client.deleteFileVersion(version)).thenThrow(new B2LocalException("test", "boom"));
+
+        assertThrows(B2Exception.class, () -> service.deleteImage("listings/a/photo.png"));
+    }
+
+    private static B2Properties properties() {
+        B2Properties props = new B2Properties();
+        B2Properties.Bucket bucket = new B2Properties.Bucket();
+        bucket.setId("dummy");
+        bucket.setName("dummy");
+        props.setBucket(bucket);
+        return props;
+    }
+}
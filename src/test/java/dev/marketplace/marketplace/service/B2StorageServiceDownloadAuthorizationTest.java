@@ -0,0 +1,72 @@
+package dev.marketplace.marketplace.service;
+
+import com.backblaze.b2.client.B2StorageClient;
+import com.backblaze.b2.client.structures.B2DownloadAuthorization;
+import com.backblaze.b2.client.structures.B2FileVersion;
+import com.backblaze.b2.client.structures.B2GetDownloadAuthorizationRequest;
+import com.backblaze.b2.client.structures.B2UploadFileRequest;
+import dev.marketplace.marketplace.config.B2Properties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class B2StorageServiceDownloadAuthorizationTest {
+
+    private final B2StorageClient client = mock(B2StorageClient.class);
+    private final B2StorageService service = new B2StorageService(properties(), new SimpleMeterRegistry(), client);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdownUploads();
+    }
+
+    @Test
+    void uploadedListingKeysKeepTheirFolderAndShareOneAuthorization() throws Exception {
+        when(client.uploadSmallFile(any())).thenAnswer(invocation -> {
+            B2UploadFileRequest request = invocation.getArgument(0);
+            B2FileVersion version = mock(B2FileVersion.class);
+            when(version.getFileName()).thenReturn(request.getFileName());
+            return version;
+        });
+        B2DownloadAuthorization authorization = mock(B2DownloadAuthorization.class);
+        when(authorization.getAuthorizationToken()).thenReturn("token");
+        when(client.getDownloadAuthorization(any())).thenReturn(authorization);
+
+        String first = service.uploadImage("listings/temp/1700000000_my photo.png", new byte[]{1});
+        String second = service.uploadImage("listings/0b0c/photo (2).jpg", new byte[]{1});
+
+        assertEquals("listings/temp/1700000000_my_photo.png", first);
+        assertEquals("listings/0b0c/photo_2.jpg", second);
+        assertTrue(service.generatePreSignedUrl(first).endsWith("/dummy/" + first + "?Authorization=token"));
+        service.generatePreSignedUrl(second);
+
+        ArgumentCaptor<B2GetDownloadAuthorizationRequest> request = ArgumentCaptor.forClass(B2GetDownloadAuthorizationRequest.class);
+        verify(client, times(1)).getDownloadAuthorization(request.capture());
+        assertEquals("listings/", request.getValue().getFileNamePrefix());
+        assertEquals(1, service.getDownloadAuthorizationStats().hits());
+    }
+
+    @Test
+    void sanitizedKeysDropTraversalAndEmptySegments() {
+        assertEquals("listings/temp/a_b.png", B2StorageService.sanitizeKey("listings//temp/../a b.png"));
+        assertEquals("file", B2StorageService.sanitizeKey(" / "));
+    }
+
+    private static B2Properties properties() {
+        B2Properties props = new B2Properties();
+        B2Properties.Bucket bucket = new B2Properties.Bucket();
+        bucket.setId("dummy");
+        bucket.setName("dummy");
+        props.setBucket(bucket);
+        return props;
+    }
+}
@@ -0,0 +1,108 @@
+package dev.marketplace.marketplace.service;
+
+import com.backblaze.b2.client.exceptions.B2Exception;
+import com.backblaze.b2.client.exceptions.B2LocalException;
+import dev.marketplace.marketplace.config.B2Properties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class B2StorageServiceUploadTest {
+
+    private final CountDownLatch allStarted = new CountDownLatch(3);
+    private final B2Exception uploadError = new B2LocalException("test", "upload failed");
+    private final List<String> deleted = Collections.synchronizedList(new ArrayList<>());
+
+    private final B2StorageService service = new B2StorageService(properties(3), new SimpleMeterRegistry()) {
+        @Override
+        public String uploadImage(String fileName, MultipartFile file) throws B2Exception {
+            allStarted.countDown();
+            try {
+                // Only completes if the other uploads run at the same time
+                if (!allStarted.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("uploads did not run concurrently");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (fileName.contains("broken")) {
+                throw uploadError;
+            }
+            return "uploaded/" + fileName;
+        }
+
+        @Override
+        public boolean deleteImage(String fileName) {
+            deleted.add(fileName);
+            return true;
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        service.shutdownUploads();
+    }
+
+    @Test
+    void uploadsConcurrentlyAndKeepsRequestOrder() throws Exception {
+        List<String> fileNames = service.uploadImages(List.of(upload("a.jpg"), upload("b.jpg"), upload("c.jpg")));
+
+        assertEquals(List.of("uploaded/a.jpg", "uploaded/b.jpg", "uploaded/c.jpg"), fileNames);
+        assertEquals(0, allStarted.getCount());
+        assertTrue(deleted.isEmpty());
+    }
+
+    @Test
+    void rethrowsTheB2ErrorOfAFailedUpload() {
+        B2Exception error = assertThrows(B2Exception.class,
+                () -> service.uploadImages(List.of(upload("a.jpg"), upload("broken.jpg"), upload("c.jpg"))));
+
+        assertSame(uploadError, error);
+    }
+
+    @Test
+    void deletesTheUploadsThatCompletedWhenAnotherFails() {
+        assertThrows(B2Exception.class,
+                () -> service.uploadImages(List.of(upload("a.jpg"), upload("broken.jpg"), upload("c.jpg"))));
+
+        assertEquals(Set.of("uploaded/a.jpg", "uploaded/c.jpg"), Set.copyOf(deleted));
+    }
+
+    private static B2StorageService.ImageUpload upload(String fileName) {
+        return new B2StorageService.ImageUpload(fileName,
+                new MockMultipartFile("images", fileName, "image/jpeg", new byte[]{1, 2, 3}));
+    }
+
+    private static B2Properties properties(int parallelism) {
+        B2Properties props = new B2Properties();
+        B2Properties.Bucket bucket = new B2Properties.Bucket();
+        bucket.setId("dummy");
+        bucket.setName("dummy");
+        props.setBucket(bucket);
+
+        B2Properties.Application app = new B2Properties.Application();
+        B2Properties.Application.Key key = new B2Properties.Application.Key();
+        key.setId("dummy");
+        key.setKey("dummy");
+        key.setName("dummy");
+        app.setKey(key);
+        props.setApplication(app);
+
+        props.getUpload().setParallelism(parallelism);
+        return props;
+    }
+}
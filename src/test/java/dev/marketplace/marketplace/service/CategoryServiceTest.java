@@ -0,0 +1,69 @@
+package dev.marketplace.marketplace.service;
+
+import dev.marketplace.marketplace.model.Category;
+import dev.marketplace.marketplace.repository.CategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CategoryServiceTest {
+
+    private final Category electronics = category("Electronics", "electronics", null);
+    private final Category phones = category("Phones", "phones", electronics);
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @InjectMocks
+    private CategoryService categoryService;
+
+    @Test
+    public void unknownSlugsAndIdsAreAnsweredFromTheCachedTree() {
+        when(categoryRepository.findAll()).thenReturn(List.of(electronics, phones));
+
+        assertEquals(phones.getId(), categoryService.findIdBySlug("PHONES"));
+        assertThrows(RuntimeException.class, () -> categoryService.findIdBySlug("no-such-category"));
+        assertThrows(RuntimeException.class, () -> categoryService.getAllDescendantCategoryIds(UUID.randomUUID()));
+        assertEquals(Set.of(electronics.getId(), phones.getId()),
+                Set.copyOf(categoryService.getAllDescendantCategoryIds(electronics.getId())));
+
+        verify(categoryRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void invalidationPicksUpNewCategoriesOnTheNextRead() {
+        Category tablets = category("Tablets", "tablets", electronics);
+        when(categoryRepository.findAll())
+                .thenReturn(List.of(electronics, phones))
+                .thenReturn(List.of(electronics, phones, tablets));
+
+        assertThrows(RuntimeException.class, () -> categoryService.findIdBySlug("tablets"));
+        categoryService.invalidateCategoryTree();
+
+        assertEquals(tablets.getId(), categoryService.findIdBySlug("tablets"));
+        assertEquals(3, categoryService.getAllDescendantCategoryIds(electronics.getId()).size());
+        verify(categoryRepository, times(2)).findAll();
+    }
+
+    private static Category category(String name, String slug, Category parent) {
+        return Category.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .slug(slug)
+                .parent(parent)
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package dev.marketplace.marketplace.service;
+
+import dev.marketplace.marketplace.model.EmailOutboxMessage;
+import dev.marketplace.marketplace.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailOutboxProcessorTest {
+
+    @Mock
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EmailOutboxProcessor processor;
+
+    @BeforeEach
+    public void setUp() {
+        processor = new EmailOutboxProcessor(emailOutboxRepository, emailService, transactionManager,
+                true, 50, 1, 3, Duration.ofMinutes(1), Duration.ofMinutes(10), Duration.ofMinutes(5),
+                Duration.ofDays(30), 2);
+    }
+
+    @Test
+    public void testProcessOutbox_recordsResultsUnderTheClaimedLease() {
+        EmailOutboxMessage delivered = message(0);
+        EmailOutboxMessage failing = message(0);
+        EmailOutboxMessage exhausted = message(2);
+        List<EmailOutboxMessage> due = List.of(delivered, failing, exhausted);
+
+        when(emailOutboxRepository.findDueForUpdate(any(), any(), any())).thenReturn(due);
+        when(emailOutboxRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(emailService.deliver(anyList())).thenReturn(Map.of(
+                failing.getId(), "421 try again later",
+                exhausted.getId(), "421 try again later"));
+
+        LocalDateTime before = LocalDateTime.now();
+        processor.processOutbox();
+
+        // Claiming marks the batch SENDING and sets the lease that every result is keyed on
+        LocalDateTime lease = delivered.getNextAttemptAt();
+        assertEquals(EmailOutboxMessage.Status.SENDING, delivered.getStatus());
+        assertTrue(!lease.isBefore(before.plusMinutes(5)));
+
+        verify(emailOutboxRepository).markSent(eq(delivered.getId()), eq(lease), eq(1), any());
+
+        ArgumentCaptor<LocalDateTime> retryAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(emailOutboxRepository).scheduleRetry(eq(failing.getId()), eq(failing.getNextAttemptAt()), eq(1),
+                retryAt.capture(), eq("421 try again later"));
+        assertTrue(!retryAt.getValue().isBefore(before.plusMinutes(1)));
+
+        verify(emailOutboxRepository).markFailed(exhausted.getId(), exhausted.getNextAttemptAt(), 3, "421 try again later");
+    }
+
+    @Test
+    public void testBackoff_doublesUpToTheCap() {
+        assertEquals(Duration.ofMinutes(1), processor.backoff(1));
+        assertEquals(Duration.ofMinutes(2), processor.backoff(2));
+        assertEquals(Duration.ofMinutes(8), processor.backoff(4));
+        assertEquals(Duration.ofMinutes(10), processor.backoff(5));
+        assertEquals(Duration.ofMinutes(10), processor.backoff(30));
+    }
+
+    @Test
+    public void testPurgeFinishedMessages_deletesChunksUntilAShortOne() {
+        when(emailOutboxRepository.deleteFinishedBefore(any(), eq(2))).thenReturn(2, 2, 1);
+
+        LocalDateTime before = LocalDateTime.now().minusDays(30);
+        processor.purgeFinishedMessages();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(emailOutboxRepository, times(3)).deleteFinishedBefore(cutoff.capture(), eq(2));
+        assertTrue(!cutoff.getValue().isBefore(before));
+        assertTrue(cutoff.getValue().isBefore(LocalDateTime.now().minusDays(29)));
+    }
+
+    private static EmailOutboxMessage message(int attempts) {
+        return EmailOutboxMessage.builder()
+                .id(UUID.randomUUID())
+                .recipient("buyer@example.com")
+                .subject("Subject")
+                .body("<p>Body</p>")
+                .attempts(attempts)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,151 @@
+package dev.marketplace.marketplace.service;
+
+import dev.marketplace.marketplace.repository.ImageDerivativeRepository;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageDerivativeServiceTest {
+
+    @Test
+    void derivativeKeysSitNextToTheMarkedOriginal() {
+        String original = ImageDerivativeService.originalKey("listingstemp1700000000_photo.png");
+
+        assertEquals("listingstemp1700000000_photo__orig.png", original);
+        assertEquals("listingstemp1700000000_photo__thumb.jpg",
+                ImageDerivativeService.derivativeKey(original, ImageDerivativeService.Variant.THUMBNAIL, "jpg"));
+        assertEquals("listingstemp1700000000_photo__medium.jpg",
+                ImageDerivativeService.derivativeKey(original, ImageDerivativeService.Variant.MEDIUM, "jpg"));
+    }
+
+    @Test
+    void originalsWithoutMarkerHaveNoDerivatives() {
+        assertNull(ImageDerivativeService.derivativeKey("listingstemp1700000000_photo.png",
+                ImageDerivativeService.Variant.THUMBNAIL, "jpg"));
+        assertNull(ImageDerivativeService.derivativeKey("my__original.photo.png",
+                ImageDerivativeService.Variant.THUMBNAIL, "jpg"));
+    }
+
+    @Test
+    void originalKeyWithoutExtensionGetsTrailingMarker() {
+        String original = ImageDerivativeService.originalKey("listings/temp/photo");
+
+        assertEquals("listings/temp/photo__orig", original);
+        assertEquals("listings/temp/photo__thumb.jpg",
+                ImageDerivativeService.derivativeKey(original, ImageDerivativeService.Variant.THUMBNAIL, "jpg"));
+    }
+
+    @Test
+    void thumbnailIsAFixedSizeCentreCrop() {
+        BufferedImage wide = new BufferedImage(1600, 900, BufferedImage.TYPE_INT_ARGB);
+
+        BufferedImage thumbnail = ImageDerivativeService.resize(wide, ImageDerivativeService.Variant.THUMBNAIL);
+
+        assertEquals(320, thumbnail.getWidth());
+        assertEquals(320, thumbnail.getHeight());
+    }
+
+    @Test
+    void mediumKeepsAspectRatioAndNeverUpscales() {
+        BufferedImage tall = new BufferedImage(1200, 2400, BufferedImage.TYPE_INT_RGB);
+        BufferedImage small = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+
+        BufferedImage mediumTall = ImageDerivativeService.resize(tall, ImageDerivativeService.Variant.MEDIUM);
+        BufferedImage mediumSmall = ImageDerivativeService.resize(small, ImageDerivativeService.Variant.MEDIUM);
+
+        assertEquals(480, mediumTall.getWidth());
+        assertEquals(960, mediumTall.getHeight());
+        assertEquals(400, mediumSmall.getWidth());
+        assertEquals(300, mediumSmall.getHeight());
+    }
+
+    @Test
+    void transparencyIsFlattenedOntoWhiteAndEncodesAsJpeg() throws Exception {
+        BufferedImage transparent = new BufferedImage(640, 640, BufferedImage.TYPE_INT_ARGB);
+
+        byte[] encoded = new JpegImageEncoder().encode(
+                ImageDerivativeService.resize(transparent, ImageDerivativeService.Variant.THUMBNAIL));
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(encoded));
+        assertNotNull(decoded);
+        Color centre = new Color(decoded.getRGB(160, 160));
+        assertEquals(255, centre.getRed(), 2);
+        assertEquals(255, centre.getGreen(), 2);
+        assertEquals(255, centre.getBlue(), 2);
+    }
+
+    @Test
+    void largeSourcesAreDecodedSubsampled() throws Exception {
+        assertEquals(1, ImageDerivativeService.subsampling(1600, 1200));
+        assertEquals(3, ImageDerivativeService.subsampling(8000, 6000));
+        assertTrue(ImageDerivativeService.withinDecodeLimit(8000, 6000));
+        // Too long to subsample below the limit
+        assertFalse(ImageDerivativeService.withinDecodeLimit(40000, 1000));
+
+        Path source = Files.createTempFile("derivative-test-", ".png");
+        try {
+            ImageIO.write(new BufferedImage(4000, 4000, BufferedImage.TYPE_INT_RGB), "png", source.toFile());
+
+            BufferedImage decoded = ImageDerivativeService.read(source);
+
+            assertEquals(2000, decoded.getWidth());
+            assertEquals(2000, decoded.getHeight());
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Test
+    void onlyRecordedOriginalsServeVariantsAndLookupsAreCached() {
+        ImageDerivativeRepository repository = mock(ImageDerivativeRepository.class);
+        ImageDerivativeService service = new ImageDerivativeService(mock(B2StorageService.class), new JpegImageEncoder(),
+                repository, 1, 1, 10, Duration.ofMinutes(1));
+        try {
+            String derived = "listings/a/photo__orig.png";
+            String pending = "listings/a/other__orig.png";
+            when(repository.findDerivedKeys(Set.of(derived, pending))).thenReturn(Set.of(derived));
+
+            assertEquals(Set.of(derived), service.derivedOriginals(List.of(derived, pending, "listings/a/legacy.png")));
+            assertEquals(Set.of(derived), service.derivedOriginals(List.of(derived, pending)));
+
+            verify(repository, times(1)).findDerivedKeys(anyCollection());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void pendingOriginalsAreLookedUpAgainOnceTheirTtlPasses() {
+        ImageDerivativeRepository repository = mock(ImageDerivativeRepository.class);
+        ImageDerivativeService service = new ImageDerivativeService(mock(B2StorageService.class), new JpegImageEncoder(),
+                repository, 1, 1, 10, Duration.ZERO);
+        try {
+            String pending = "listings/a/other__orig.png";
+            when(repository.findDerivedKeys(Set.of(pending))).thenReturn(Set.of(), Set.of(pending));
+
+            assertEquals(Set.of(), service.derivedOriginals(List.of(pending)));
+            assertEquals(Set.of(pending), service.derivedOriginals(List.of(pending)));
+        } finally {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package dev.marketplace.marketplace.service;
+
+import com.backblaze.b2.client.exceptions.B2Exception;
+import com.backblaze.b2.client.exceptions.B2LocalException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ListingCleanupServiceTest {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+    private final B2StorageService b2StorageService = mock(B2StorageService.class);
+    private final ImageDerivativeService imageDerivativeService = mock(ImageDerivativeService.class);
+    private ListingCleanupService service;
+
+    @BeforeEach
+    public void setUp() {
+        service = new ListingCleanupService(jdbcTemplate, mock(PlatformTransactionManager.class), b2StorageService,
+                imageDerivativeService, 2, 2);
+        when(jdbcTemplate.update(anyString(), any(SqlParameterSource.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0, String.class).startsWith("DELETE FROM listing ")
+                        ? ((List<?>) invocation.getArgument(1, SqlParameterSource.class).getValue("ids")).size()
+                        : 0);
+    }
+
+    @Test
+    public void deletesChunksUntilAShortChunkIsReached() throws Exception {
+        when(jdbcTemplate.queryForList(argThat(sql -> sql.contains("SELECT id FROM listing")), any(SqlParameterSource.class), eq(UUID.class)))
+                .thenReturn(List.of(UUID.randomUUID(), UUID.randomUUID()))
+                .thenReturn(List.of(UUID.randomUUID()))
+                .thenReturn(List.of());
+        when(jdbcTemplate.queryForList(argThat(sql -> sql.contains("FROM listing_image")), any(SqlParameterSource.class), eq(String.class)))
+                .thenReturn(List.of());
+
+        service.deleteOldArchivedListings();
+
+        verify(jdbcTemplate, times(2)).queryForList(argThat(sql -> sql.contains("SELECT id FROM listing")),
+                any(SqlParameterSource.class), eq(UUID.class));
+        assertEquals(3, service.getCleanupStats().listingsDeleted());
+        assertEquals(3, service.getCleanupStats().lastRunListingsDeleted());
+        verify(b2StorageService, never()).deleteImage(anyString());
+    }
+
+    @Test
+    public void deletesOriginalsWithTheirVariantsAndCountsFailures() throws Exception {
+        when(jdbcTemplate.queryForList(argThat(sql -> sql.contains("SELECT id FROM listing")), any(SqlParameterSource.class), eq(UUID.class)))
+                .thenReturn(List.of(UUID.randomUUID()));
+        when(jdbcTemplate.queryForList(argThat(sql -> sql.contains("FROM listing_image")), any(SqlParameterSource.class), eq(String.class)))
+                .thenReturn(List.of("listings/a/photo__orig.png", "listings/a/legacy.png", "https://example.com/seed.jpg"));
+        when(imageDerivativeService.derivativeKey("listings/a/photo__orig.png", ImageDerivativeService.Variant.THUMBNAIL))
+                .thenReturn("listings/a/photo__thumb.jpg");
+        when(imageDerivativeService.derivativeKey("listings/a/photo__orig.png", ImageDerivativeService.Variant.MEDIUM))
+                .thenReturn("listings/a/photo__medium.jpg");
+        when(b2StorageService.deleteImage("listings/a/photo__orig.png")).thenReturn(true);
+        when(b2StorageService.deleteImage("listings/a/photo__thumb.jpg")).thenReturn(true);
+        // The medium variant was never generated
+        when(b2StorageService.deleteImage("listings/a/photo__medium.jpg")).thenReturn(false);
+        when(b2StorageService.deleteImage("listings/a/legacy.png")).thenThrow(failure());
+
+        service.deleteOldArchivedListings();
+
+        verify(b2StorageService, times(4)).deleteImage(anyString());
+        verify(b2StorageService, never()).deleteImage("https://example.com/seed.jpg");
+        ListingCleanupService.CleanupStats stats = service.getCleanupStats();
+        assertEquals(2, stats.imagesDeleted());
+        assertEquals(1, stats.imageDeleteFailures());
+    }
+
+    private static B2Exception failure() {
+        return new B2LocalException("test", "B2 unavailable");
+    }
+}
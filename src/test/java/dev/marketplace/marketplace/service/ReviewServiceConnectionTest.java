@@ -0,0 +1,122 @@
+package dev.marketplace.marketplace.service;
+
+import dev.marketplace.marketplace.dto.ReviewConnection;
+import dev.marketplace.marketplace.dto.ReviewCursor;
+import dev.marketplace.marketplace.model.Review;
+import dev.marketplace.marketplace.repository.ListingRepository;
+import dev.marketplace.marketplace.repository.ReviewRepository;
+import dev.marketplace.marketplace.repository.ReviewSummaryRepository;
+import dev.marketplace.marketplace.repository.TransactionRepository;
+import dev.marketplace.marketplace.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReviewServiceConnectionTest {
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ReviewSummaryRepository reviewSummaryRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ReviewService reviewService;
+
+    private final UUID userId = UUID.randomUUID();
+    private final LocalDateTime now = LocalDateTime.of(2025, 1, 10, 12, 0);
+
+    @Test
+    public void firstPageFetchesOneExtraRowToDetectNextPage() {
+        List<Review> rows = List.of(review(0), review(1), review(2));
+        when(reviewRepository.findUserReviewsFirst(eq(userId), eq(false), argThat(limit -> limit.max() == 3))).thenReturn(rows);
+
+        ReviewConnection page = reviewService.getUserReviewsConnection(userId, false, 2, null);
+
+        assertEquals(2, page.edges().size());
+        assertTrue(page.pageInfo().hasNextPage());
+        ReviewCursor endCursor = ReviewCursor.decode(page.pageInfo().endCursor());
+        assertEquals(rows.get(1).getCreatedAt(), endCursor.createdAt());
+        assertEquals(rows.get(1).getId(), endCursor.id());
+    }
+
+    @Test
+    public void recentReviewsLimitIsCappedAtTheMaximumPageSize() {
+        List<Review> rows = List.of(review(0));
+        when(reviewRepository.findUserReviewsFirst(eq(userId), eq(false), argThat(limit -> limit.max() == 100))).thenReturn(rows);
+
+        assertEquals(rows, reviewService.getRecentUserReviews(userId, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void nextPageSeeksPastTheCursor() {
+        Review last = review(1);
+        String after = new ReviewCursor(last.getCreatedAt(), last.getId()).encode();
+        when(reviewRepository.findUserReviewsAfter(eq(userId), eq(true), eq(last.getCreatedAt()), eq(last.getId()),
+                argThat(limit -> limit.max() == 3)))
+                .thenReturn(List.of(review(2)));
+
+        ReviewConnection page = reviewService.getUserReviewsConnection(userId, true, 2, after);
+
+        assertEquals(1, page.edges().size());
+        assertFalse(page.pageInfo().hasNextPage());
+    }
+
+    @Test
+    public void emptyPageHasNoEndCursor() {
+        when(reviewRepository.findReviewsByMinimumRatingFirst(any(), any())).thenReturn(List.of());
+
+        ReviewConnection page = reviewService.getReviewsByMinimumRatingConnection(BigDecimal.valueOf(4), 10, null);
+
+        assertTrue(page.edges().isEmpty());
+        assertFalse(page.pageInfo().hasNextPage());
+        assertNull(page.pageInfo().endCursor());
+    }
+
+    @Test
+    public void rejectsInvalidPageSizeAndCursor() {
+        assertThrows(IllegalArgumentException.class, () -> reviewService.getUserReviewsConnection(userId, false, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> reviewService.getUserReviewsConnection(userId, false, 101, null));
+        assertThrows(IllegalArgumentException.class, () -> reviewService.getUserReviewsConnection(userId, false, 10, "not-a-cursor"));
+        verifyNoInteractions(reviewRepository);
+    }
+
+    private Review review(int ageInHours) {
+        Review review = new Review();
+        review.setId(UUID.randomUUID());
+        review.setCreatedAt(now.minusHours(ageInHours));
+        return review;
+    }
+}
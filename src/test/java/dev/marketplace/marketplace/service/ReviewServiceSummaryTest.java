@@ -0,0 +1,163 @@
+package dev.marketplace.marketplace.service;
+
+import dev.marketplace.marketplace.model.Review;
+import dev.marketplace.marketplace.model.ReviewSummary;
+import dev.marketplace.marketplace.model.User;
+import dev.marketplace.marketplace.repository.ListingRepository;
+import dev.marketplace.marketplace.repository.ReviewRepository;
+import dev.marketplace.marketplace.repository.ReviewSummaryRepository;
+import dev.marketplace.marketplace.repository.TransactionRepository;
+import dev.marketplace.marketplace.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReviewServiceSummaryTest {
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ReviewSummaryRepository reviewSummaryRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ReviewService reviewService;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @Test
+    public void updateAppliesRatingChangeToLockedSummary() {
+        Review review = review(new BigDecimal("2.0"));
+        ReviewSummary summary = summary(3, "9.0", 2);
+        when(reviewRepository.findById(review.getId())).thenReturn(Optional.of(review));
+        when(reviewRepository.save(any(Review.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(reviewSummaryRepository.findForUpdate(ReviewSummary.SubjectType.USER, userId)).thenReturn(Optional.of(summary));
+
+        reviewService.updateReview(review.getId(), new BigDecimal("5.0"), "Better than expected");
+
+        verify(reviewSummaryRepository).save(summary);
+        assertEquals(3, summary.getReviewCount());
+        assertEquals(new BigDecimal("12.0"), summary.getRatingSum());
+        assertEquals(3, summary.getPositiveCount());
+        assertEquals(new BigDecimal("4.00"), summary.getAverageRating());
+    }
+
+    @Test
+    public void deleteRemovesReviewFromSummary() {
+        Review review = review(new BigDecimal("4.0"));
+        ReviewSummary summary = summary(2, "7.0", 1);
+        when(reviewRepository.findById(review.getId())).thenReturn(Optional.of(review));
+        when(reviewSummaryRepository.findForUpdate(ReviewSummary.SubjectType.USER, userId)).thenReturn(Optional.of(summary));
+
+        reviewService.deleteReview(review.getId());
+
+        assertEquals(1, summary.getReviewCount());
+        assertEquals(new BigDecimal("3.0"), summary.getRatingSum());
+        assertEquals(0, summary.getPositiveCount());
+    }
+
+    @Test
+    public void missingSummaryIsCreatedLockedAndSeededFromReviewTable() {
+        Review review = review(new BigDecimal("4.0"));
+        ReviewSummary created = ReviewSummary.empty(ReviewSummary.SubjectType.USER, userId);
+        when(reviewRepository.findById(review.getId())).thenReturn(Optional.of(review));
+        when(reviewRepository.save(any(Review.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(reviewSummaryRepository.insertIfAbsent("USER", userId)).thenReturn(1);
+        when(reviewSummaryRepository.findForUpdate(ReviewSummary.SubjectType.USER, userId)).thenReturn(Optional.of(created));
+        when(reviewRepository.countReviewsByUserId(userId)).thenReturn(3L);
+        when(reviewRepository.sumRatingByUserId(userId)).thenReturn(new BigDecimal("11.5"));
+        when(reviewRepository.countPositiveReviewsByUserId(userId)).thenReturn(2L);
+
+        reviewService.updateReview(review.getId(), new BigDecimal("4.0"), "Unchanged");
+
+        InOrder order = inOrder(reviewSummaryRepository);
+        order.verify(reviewSummaryRepository).insertIfAbsent("USER", userId);
+        order.verify(reviewSummaryRepository).findForUpdate(ReviewSummary.SubjectType.USER, userId);
+        order.verify(reviewSummaryRepository).save(created);
+        assertEquals(3, created.getReviewCount());
+        assertEquals(new BigDecimal("11.5"), created.getRatingSum());
+        assertEquals(2, created.getPositiveCount());
+    }
+
+    @Test
+    public void reconcileRecountsADriftedSummaryUnderItsLock() {
+        // Two reviews were deleted by cascade since the summary was last updated
+        ReviewSummary summary = summary(3, "10.0", 2);
+        when(reviewSummaryRepository.findForUpdate(ReviewSummary.SubjectType.USER, userId)).thenReturn(Optional.of(summary));
+        when(reviewRepository.countReviewsByUserId(userId)).thenReturn(1L);
+        when(reviewRepository.sumRatingByUserId(userId)).thenReturn(new BigDecimal("2.5"));
+        when(reviewRepository.countPositiveReviewsByUserId(userId)).thenReturn(0L);
+
+        reviewService.reconcileReviewSummary(ReviewSummary.SubjectType.USER, userId);
+
+        verify(reviewSummaryRepository).save(summary);
+        assertEquals(1, summary.getReviewCount());
+        assertEquals(new BigDecimal("2.5"), summary.getRatingSum());
+        assertEquals(0, summary.getPositiveCount());
+    }
+
+    @Test
+    public void readsServeTheSummaryWithoutAggregating() {
+        when(reviewSummaryRepository.findById(new ReviewSummary.Key(ReviewSummary.SubjectType.USER, userId)))
+                .thenReturn(Optional.of(summary(3, "10.0", 2)));
+
+        assertEquals(new BigDecimal("3.33"), reviewService.getUserAverageRating(userId));
+        assertEquals(3L, reviewService.getUserReviewCount(userId));
+        assertEquals(2L, reviewService.getUserPositiveReviewCount(userId));
+        verifyNoInteractions(reviewRepository);
+    }
+
+    @Test
+    public void userWithoutSummaryHasNoReviews() {
+        when(reviewSummaryRepository.findById(any())).thenReturn(Optional.empty());
+
+        assertEquals(BigDecimal.ZERO, reviewService.getUserAverageRating(userId));
+        assertEquals(0L, reviewService.getUserReviewCount(userId));
+    }
+
+    private Review review(BigDecimal rating) {
+        User reviewedUser = new User();
+        reviewedUser.setId(userId);
+        Review review = new Review();
+        review.setId(UUID.randomUUID());
+        review.setReviewedUser(reviewedUser);
+        review.setRating(rating);
+        return review;
+    }
+
+    private ReviewSummary summary(long count, String ratingSum, long positive) {
+        ReviewSummary summary = ReviewSummary.empty(ReviewSummary.SubjectType.USER, userId);
+        summary.setReviewCount(count);
+        summary.setRatingSum(new BigDecimal(ratingSum));
+        summary.setPositiveCount(positive);
+        return summary;
+    }
+}
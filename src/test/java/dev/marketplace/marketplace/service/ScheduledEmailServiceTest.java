@@ -0,0 +1,112 @@
+package dev.marketplace.marketplace.service;
+
+import dev.marketplace.marketplace.model.Subscription;
+import dev.marketplace.marketplace.model.User;
+import dev.marketplace.marketplace.repository.SubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ScheduledEmailServiceTest {
+
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ScheduledEmailService scheduledEmailService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(scheduledEmailService, "chunkSize", 2);
+    }
+
+    @Test
+    public void testCheckSubscriptionExpirations_seeksPastTheLastPeriodEndAndIdOfEachChunk() throws Exception {
+        LocalDateTime periodEnd = LocalDateTime.now().plusDays(3);
+        Subscription first = subscription(periodEnd, null);
+        Subscription second = subscription(periodEnd, null);
+        // Already warned for this period by an earlier run
+        Subscription warned = subscription(periodEnd.plusDays(1), periodEnd.plusDays(1));
+        when(subscriptionRepository.findExpiringSubscriptionsAfter(any(), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(warned))
+                .thenReturn(List.of());
+
+        scheduledEmailService.checkSubscriptionExpirations();
+
+        verify(subscriptionRepository).findExpiringSubscriptionsAfter(eq(periodEnd), eq(second.getId()), any(), any(Pageable.class));
+        // Two pages for the warning window, one empty page for the recently expired window
+        verify(subscriptionRepository, times(3)).findExpiringSubscriptionsAfter(any(), any(), any(), any(Pageable.class));
+
+        verify(emailService, times(2)).sendSubscriptionExpirationWarningEmail(anyString(), anyString(), anyString(),
+                anyString(), anyString(), anyBoolean());
+        verify(emailService, never()).sendSubscriptionExpirationWarningEmail(eq("warned@example.com"), anyString(),
+                anyString(), anyString(), anyString(), anyBoolean());
+        assertEquals(periodEnd, first.getExpirationWarningSentFor());
+        assertEquals(periodEnd, second.getExpirationWarningSentFor());
+    }
+
+    @Test
+    public void testCheckSubscriptionExpirations_secondRunSendsNothing() throws Exception {
+        LocalDateTime periodEnd = LocalDateTime.now().plusDays(3);
+        Subscription subscription = subscription(periodEnd, null);
+        when(subscriptionRepository.findExpiringSubscriptionsAfter(any(), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(subscription))
+                .thenReturn(List.of())
+                .thenReturn(List.of(subscription))
+                .thenReturn(List.of());
+
+        scheduledEmailService.checkSubscriptionExpirations();
+        scheduledEmailService.checkSubscriptionExpirations();
+
+        verify(emailService, times(1)).sendSubscriptionExpirationWarningEmail(anyString(), anyString(), anyString(),
+                anyString(), anyString(), anyBoolean());
+        assertEquals(periodEnd, subscription.getExpirationWarningSentFor());
+    }
+
+    private static Subscription subscription(LocalDateTime periodEnd, LocalDateTime warnedFor) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail(warnedFor != null ? "warned@example.com" : "subscriber@example.com");
+        user.setUsername("subscriber");
+        return Subscription.builder()
+                .id(UUID.randomUUID())
+                .user(user)
+                .planType(Subscription.PlanType.SELLER_PLUS)
+                .status(Subscription.SubscriptionStatus.ACTIVE)
+                .currentPeriodEnd(periodEnd)
+                .expirationWarningSentFor(warnedFor)
+                .build();
+    }
+}
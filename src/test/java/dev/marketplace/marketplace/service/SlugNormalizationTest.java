@@ -0,0 +1,37 @@
+package dev.marketplace.marketplace.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SlugNormalizationTest {
+
+    @Test
+    void normalizesCommonInput() {
+        assertEquals("my-brand", SlugValidationService.normalizeSlug("My Brand"));
+        assertEquals("cafe-store", SlugValidationService.normalizeSlug("café-store"));
+        assertEquals("my-brand-123", SlugValidationService.normalizeSlug("--my-brand@@123--"));
+        assertEquals("", SlugValidationService.normalizeSlug("@@@"));
+    }
+
+    @Test
+    void matchesRegexBasedNormalization() {
+        for (String input : List.of("Hello World", "  spaced   out  ", "Crème Brûlée", "São Paulo Shop", "A_B_C",
+                "ÅNGSTRÖM", "naïve--café", "日本-shop", "straße", "áb", "x-́-y", "UPPER-lower-123", "")) {
+            assertEquals(regexNormalize(input), SlugValidationService.normalizeSlug(input), input);
+        }
+    }
+
+    // The previous multi-pass implementation, kept as the reference behaviour
+    private static String regexNormalize(String input) {
+        String normalized = Normalizer.normalize(input, Normalizer.Form.NFD);
+        normalized = normalized.replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+        normalized = normalized.replaceAll("[^\\p{Alnum}]+", "-");
+        normalized = normalized.replaceAll("-+", "-");
+        normalized = normalized.replaceAll("^-|-$", "");
+        return normalized.toLowerCase();
+    }
+}
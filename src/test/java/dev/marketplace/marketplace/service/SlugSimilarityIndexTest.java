@@ -0,0 +1,94 @@
+package dev.marketplace.marketplace.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlugSimilarityIndexTest {
+
+    private static final double THRESHOLD = 0.85;
+
+    private static final List<String> RESERVED = List.of(
+            "google", "takealot", "amazon", "admin", "checkers", "woolworths", "pick-n-pay",
+            "shoprite", "vodacom", "microsoft", "facebook", "instagram", "support", "marketplace");
+
+    private final SlugSimilarityIndex index = SlugSimilarityIndex.build(RESERVED);
+
+    @Test
+    void findsCloseMisspellings() {
+        Optional<SlugSimilarityIndex.Match> match = index.findMostSimilar("takealott", THRESHOLD);
+
+        assertTrue(match.isPresent());
+        assertEquals("takealot", match.get().slug());
+        assertTrue(match.get().similarity() >= THRESHOLD);
+    }
+
+    @Test
+    void ignoresUnrelatedSlugs() {
+        assertFalse(index.findMostSimilar("my-brand-123", THRESHOLD).isPresent());
+        assertFalse(index.findMostSimilar("cafe-store", THRESHOLD).isPresent());
+    }
+
+    @Test
+    void agreesWithComparingEveryReservedSlug() {
+        for (String candidate : List.of("googel", "amazonn", "woolworth", "pick-n-pey", "microsofts",
+                "instagran", "suport", "market-place", "vodacon", "shop-rite", "checker", "a", "gogle")) {
+            Optional<SlugSimilarityIndex.Match> expected = bruteForce(candidate);
+            Optional<SlugSimilarityIndex.Match> actual = index.findMostSimilar(candidate, THRESHOLD);
+
+            assertEquals(expected.map(SlugSimilarityIndex.Match::slug), actual.map(SlugSimilarityIndex.Match::slug), candidate);
+        }
+    }
+
+    @Test
+    void boundedDistanceMatchesFullMatrixWithinLimit() {
+        List<String> words = List.of("", "a", "google", "goggle", "takealot", "takealott", "kitten", "sitting",
+                "pick-n-pay", "pick-n-save", "woolworths", "marketplace", "market-place", "abcdefghij", "jihgfedcba");
+        for (String a : words) {
+            for (String b : words) {
+                int expected = matrixDistance(a, b);
+                assertEquals(expected, SlugSimilarityIndex.distance(a, b), a + " / " + b);
+                for (int limit = 0; limit <= 4; limit++) {
+                    int bounded = SlugSimilarityIndex.boundedDistance(a, b, limit);
+                    assertEquals(expected <= limit ? expected : limit + 1, bounded, a + " / " + b + " limit " + limit);
+                }
+            }
+        }
+    }
+
+    // Straightforward full-matrix Levenshtein used as the reference implementation
+    private static int matrixDistance(String s1, String s2) {
+        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
+        for (int i = 0; i <= s1.length(); i++) {
+            dp[i][0] = i;
+        }
+        for (int j = 0; j <= s2.length(); j++) {
+            dp[0][j] = j;
+        }
+        for (int i = 1; i <= s1.length(); i++) {
+            for (int j = 1; j <= s2.length(); j++) {
+                int cost = s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1;
+                dp[i][j] = Math.min(Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1), dp[i - 1][j - 1] + cost);
+            }
+        }
+        return dp[s1.length()][s2.length()];
+    }
+
+    private Optional<SlugSimilarityIndex.Match> bruteForce(String candidate) {
+        SlugSimilarityIndex.Match best = null;
+        for (String reserved : RESERVED) {
+            double similarity = SlugSimilarityIndex.similarity(
+                    SlugSimilarityIndex.distance(candidate, reserved), candidate.length(), reserved.length());
+            if (similarity >= THRESHOLD && (best == null || similarity > best.similarity()
+                    || (similarity == best.similarity() && reserved.compareTo(best.slug()) < 0))) {
+                best = new SlugSimilarityIndex.Match(reserved, similarity);
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+}
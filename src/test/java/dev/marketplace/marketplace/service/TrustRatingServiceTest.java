@@ -1,21 +1,32 @@
 package dev.marketplace.marketplace.service;
 
+import dev.marketplace.marketplace.model.Business;
+import dev.marketplace.marketplace.model.BusinessTrustRating;
 import dev.marketplace.marketplace.model.Transaction;
+import dev.marketplace.marketplace.model.TrustRating;
 import dev.marketplace.marketplace.model.User;
 import dev.marketplace.marketplace.repository.*;
 import dev.marketplace.marketplace.service.dto.TrustComponentsDTO;
+import dev.marketplace.marketplace.service.event.ReviewChangedEvent;
+import dev.marketplace.marketplace.service.event.TransactionStatusChangedEvent;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +44,15 @@ public class TrustRatingServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private BusinessRepository businessRepository;
+
+    @Mock
+    private BusinessTrustRatingRepository businessTrustRatingRepository;
+
+    @Mock
+    private VerificationDocumentRepository verificationDocumentRepository;
+
     @InjectMocks
     private TrustRatingService trustRatingService;
 
@@ -67,7 +87,7 @@ public class TrustRatingServiceTest {
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(trustRatingRepository.findByUserId(userId)).thenReturn(Optional.empty());
         when(reviewRepository.countReviewsByUserId(userId)).thenReturn(1L);
-        when(reviewRepository.getAverageRatingByUserId(userId)).thenReturn(BigDecimal.valueOf(5.0));
+        when(reviewRepository.sumRatingByUserId(userId)).thenReturn(BigDecimal.valueOf(5.0));
         when(reviewRepository.getGlobalAverageRating()).thenReturn(BigDecimal.valueOf(4.2));
         when(transactionRepository.countBySellerId(userId)).thenReturn(0L);
         when(transactionRepository.countByBuyerId(userId)).thenReturn(0L);
@@ -104,4 +124,114 @@ public class TrustRatingServiceTest {
         // total transaction score = 54 + 15 = 69.00
         assertEquals(BigDecimal.valueOf(69.00).setScale(2, RoundingMode.HALF_UP), components.getTransactionScore());
     }
+
+    @Test
+    public void testReviewEvent_updatesStoredAggregatesWithoutRecounting() {
+        UUID userId = UUID.randomUUID();
+        User user = new User();
+        user.setId(userId);
+
+        // Seeded aggregates: no reviews yet, 20 transactions of which 18 completed
+        TrustRating existing = TrustRating.builder()
+                .user(user)
+                .aggregatesInitialized(true)
+                .totalTransactions(20)
+                .successfulTransactions(18)
+                .build();
+        when(trustRatingRepository.findByUserIdForUpdate(userId)).thenReturn(Optional.of(existing));
+        when(reviewRepository.getGlobalAverageRating()).thenReturn(BigDecimal.valueOf(4.2));
+
+        trustRatingService.onReviewChanged(ReviewChangedEvent.created(userId, null, BigDecimal.valueOf(5.0)));
+
+        assertEquals(1, existing.getTotalReviews().intValue());
+        assertEquals(1, existing.getPositiveReviews().intValue());
+        // Same scores as the full calculation for 1 review of 5.0 and 18/20 transactions
+        assertEquals(BigDecimal.valueOf(85.45).setScale(2, RoundingMode.HALF_UP), existing.getReviewScore());
+        assertEquals(BigDecimal.valueOf(69.00).setScale(2, RoundingMode.HALF_UP), existing.getTransactionScore());
+        verify(reviewRepository, never()).countReviewsByUserId(any());
+        verify(transactionRepository, never()).countBySellerId(any());
+    }
+
+    @Test
+    public void testBusinessRecalculation_countsTransactionsByStatusOnBusinessId() {
+        UUID businessId = UUID.randomUUID();
+        Business business = new Business();
+        business.setId(businessId);
+
+        when(businessRepository.findById(businessId)).thenReturn(Optional.of(business));
+        when(reviewRepository.countReviewsByBusinessId(businessId)).thenReturn(0L);
+        when(reviewRepository.getGlobalAverageRating()).thenReturn(BigDecimal.valueOf(4.2));
+        when(transactionRepository.countByBusinessIdGroupByStatus(businessId)).thenReturn(List.of(
+                statusCount(Transaction.TransactionStatus.COMPLETED, 18),
+                statusCount(Transaction.TransactionStatus.CANCELLED, 2)));
+        when(businessTrustRatingRepository.save(any(BusinessTrustRating.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BusinessTrustRating rating = trustRatingService.calculateAndUpdateBusinessTrustRating(businessId);
+
+        assertEquals(20, rating.getTotalTransactions());
+        assertEquals(18, rating.getSuccessfulTransactions());
+        assertEquals(BigDecimal.valueOf(69.00).setScale(2, RoundingMode.HALF_UP), rating.getTransactionScore());
+    }
+
+    @Test
+    public void testRecalculation_seedsRatingSumFromExactSum() {
+        UUID userId = UUID.randomUUID();
+        User user = new User();
+        user.setId(userId);
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(trustRatingRepository.findByUserId(userId)).thenReturn(Optional.empty());
+        when(reviewRepository.countReviewsByUserId(userId)).thenReturn(3L);
+        // AVG would be 4.2333..., which times 3 only approximates the stored sum
+        when(reviewRepository.sumRatingByUserId(userId)).thenReturn(new BigDecimal("12.7"));
+        when(reviewRepository.countPositiveReviewsByUserId(userId)).thenReturn(3L);
+        when(reviewRepository.getGlobalAverageRating()).thenReturn(BigDecimal.valueOf(4.2));
+        when(trustRatingRepository.save(any(TrustRating.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TrustRating rating = trustRatingService.calculateAndUpdateTrustRating(userId);
+
+        assertEquals(new BigDecimal("12.7"), rating.getReviewRatingSum());
+        assertEquals(3, rating.getTotalReviews().intValue());
+    }
+
+    @Test
+    public void testTransactionEvent_locksPartiesInIdOrder() {
+        UUID lowId = new UUID(0, 1);
+        UUID highId = new UUID(0, 2);
+        TrustRating low = seededRating(lowId);
+        TrustRating high = seededRating(highId);
+        when(trustRatingRepository.findByUserIdForUpdate(lowId)).thenReturn(Optional.of(low));
+        when(trustRatingRepository.findByUserIdForUpdate(highId)).thenReturn(Optional.of(high));
+        when(reviewRepository.getGlobalAverageRating()).thenReturn(BigDecimal.valueOf(4.2));
+
+        // Seller has the higher id, so locking in event order would take high before low
+        trustRatingService.onTransactionStatusChanged(new TransactionStatusChangedEvent(highId, lowId, null,
+                null, Transaction.TransactionStatus.COMPLETED));
+
+        InOrder locks = inOrder(trustRatingRepository);
+        locks.verify(trustRatingRepository).findByUserIdForUpdate(lowId);
+        locks.verify(trustRatingRepository).findByUserIdForUpdate(highId);
+        assertEquals(1, low.getSuccessfulTransactions().intValue());
+        assertEquals(1, high.getTotalTransactions().intValue());
+    }
+
+    private static TrustRating seededRating(UUID userId) {
+        User user = new User();
+        user.setId(userId);
+        return TrustRating.builder().user(user).aggregatesInitialized(true).build();
+    }
+
+    private static TransactionRepository.StatusCount statusCount(Transaction.TransactionStatus status, long count) {
+        return new TransactionRepository.StatusCount() {
+            @Override
+            public Transaction.TransactionStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public long getCount() {
+                return count;
+            }
+        };
+    }
 }
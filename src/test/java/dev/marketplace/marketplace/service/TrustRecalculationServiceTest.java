@@ -0,0 +1,144 @@
+package dev.marketplace.marketplace.service;
+
+import dev.marketplace.marketplace.dto.TrustRecalculationStatus;
+import dev.marketplace.marketplace.service.dto.TrustComponentsDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TrustRecalculationServiceTest {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+    private final TrustRatingService trustRatingService = mock(TrustRatingService.class);
+    private TrustRecalculationService service;
+
+    @BeforeEach
+    public void setUp() {
+        service = new TrustRecalculationService(jdbcTemplate, mock(PlatformTransactionManager.class),
+                trustRatingService, 2, 2);
+        BigDecimal score = BigDecimal.TEN;
+        when(trustRatingService.calculateComponents(any(), any(), any()))
+                .thenReturn(new TrustComponentsDTO(score, score, score, score, score));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void userChunkLocksRatingsBeforeCountingAndOnlyUpdatesLockedRows() throws Exception {
+        UUID ratedUser = UUID.randomUUID();
+        UUID ratedUserRating = UUID.randomUUID();
+        UUID newUser = UUID.randomUUID();
+        // A rating row that appeared after the lock was taken must not be overwritten
+        UUID lateUser = UUID.randomUUID();
+        when(jdbcTemplate.queryForList(argThat(sql -> sql.contains("FOR UPDATE")), any(SqlParameterSource.class), eq(UUID.class)))
+                .thenReturn(List.of(ratedUserRating));
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject("id", UUID.class)).thenReturn(ratedUser, newUser, lateUser);
+        when(rs.getObject("rating_id", UUID.class)).thenReturn(ratedUserRating, null, UUID.randomUUID());
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            for (int row = 0; row < 3; row++) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(argThat(sql -> sql.contains("FROM users u")), any(SqlParameterSource.class),
+                any(RowCallbackHandler.class));
+
+        int written = service.recalculateUserChunk(List.of(ratedUser, newUser, lateUser));
+
+        assertEquals(3, written);
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).queryForList(argThat(sql -> sql.contains("FOR UPDATE")), any(SqlParameterSource.class), eq(UUID.class));
+        order.verify(jdbcTemplate).query(argThat(sql -> sql.contains("FROM review")), any(SqlParameterSource.class),
+                any(RowCallbackHandler.class));
+
+        ArgumentCaptor<MapSqlParameterSource[]> updates = ArgumentCaptor.forClass(MapSqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(argThat(sql -> sql.startsWith("UPDATE trust_rating")), updates.capture());
+        assertEquals(1, updates.getValue().length);
+        assertEquals(ratedUser, updates.getValue()[0].getValue("ownerId"));
+
+        ArgumentCaptor<MapSqlParameterSource[]> inserts = ArgumentCaptor.forClass(MapSqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(argThat(sql -> sql.contains("ON CONFLICT (user_id) DO NOTHING")), inserts.capture());
+        assertEquals(List.of(newUser, lateUser), List.of(inserts.getValue()[0].getValue("ownerId"),
+                inserts.getValue()[1].getValue("ownerId")));
+    }
+
+    @Test
+    public void startRecalculationReturnsWhileTheRunContinuesInTheBackground() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(trustRatingService).refreshGlobalAverageRating();
+        when(jdbcTemplate.queryForList(any(String.class), any(SqlParameterSource.class), eq(UUID.class)))
+                .thenAnswer(invocation -> {
+                    if (((String) invocation.getArgument(0)).contains("FROM business")) {
+                        finished.countDown();
+                    }
+                    return List.of();
+                });
+
+        TrustRecalculationStatus first = service.startRecalculation();
+        TrustRecalculationStatus second = service.startRecalculation();
+
+        assertTrue(first.started());
+        assertFalse(second.started());
+        assertTrue(second.running());
+
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        waitUntilIdle();
+        assertNotNull(service.getStatus().lastResult());
+        assertTrue(service.startRecalculation().started());
+    }
+
+    @Test
+    public void failedChunkFailsTheRunAndReleasesTheGuard() {
+        when(jdbcTemplate.queryForList(argThat(sql -> sql.startsWith("SELECT id FROM users")), any(SqlParameterSource.class), eq(UUID.class)))
+                .thenReturn(List.of(UUID.randomUUID()));
+        when(jdbcTemplate.queryForList(argThat(sql -> sql.contains("FOR UPDATE")), any(SqlParameterSource.class), eq(UUID.class)))
+                .thenThrow(new IllegalStateException("lock timeout"));
+
+        assertThrows(IllegalStateException.class, () -> service.recalculateAll());
+        assertFalse(service.getStatus().running());
+    }
+
+    private void waitUntilIdle() throws InterruptedException {
+        for (int i = 0; i < 100 && service.getStatus().running(); i++) {
+            Thread.sleep(50);
+        }
+        assertFalse(service.getStatus().running());
+    }
+}
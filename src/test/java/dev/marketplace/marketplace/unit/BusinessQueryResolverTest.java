@@ -5,6 +5,7 @@ import dev.marketplace.marketplace.model.Business;
 import dev.marketplace.marketplace.model.BusinessTrustRating;
 import dev.marketplace.marketplace.resolvers.BusinessQueryResolver;
 import dev.marketplace.marketplace.service.BusinessService;
+import dev.marketplace.marketplace.service.TransactionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,9 +14,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +30,9 @@ class BusinessQueryResolverTest {
     @Mock
     private BusinessService businessService;
 
+    @Mock
+    private TransactionService transactionService;
+
     @InjectMocks
     private BusinessQueryResolver resolver;
 
@@ -49,5 +58,23 @@ class BusinessQueryResolverTest {
 
         assertTrue(dto.isVerifiedWithThirdParty());
     }
-}
 
+    @Test
+    void businessTransactions_withoutPagingArgumentsReturnsEveryTransaction() {
+        when(transactionService.getBusinessTransactions(businessId)).thenReturn(List.of());
+
+        resolver.getBusinessTransactions(businessId, null, null);
+
+        verify(transactionService).getBusinessTransactions(businessId);
+        verify(transactionService, never()).getBusinessTransactions(eq(businessId), anyInt(), anyInt());
+    }
+
+    @Test
+    void businessTransactions_withOnlyAnOffsetUsesTheDefaultLimit() {
+        when(transactionService.getBusinessTransactions(businessId, 50, 20)).thenReturn(List.of());
+
+        resolver.getBusinessTransactions(businessId, null, 20);
+
+        verify(transactionService).getBusinessTransactions(businessId, 50, 20);
+    }
+}
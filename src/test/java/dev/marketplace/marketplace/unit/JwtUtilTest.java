@@ -0,0 +1,82 @@
+package dev.marketplace.marketplace.unit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import dev.marketplace.marketplace.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "dGVzdC1zZWNyZXQtZm9yLWp3dC10b2tlbi1nZW5lcmF0aW9uLWFuZC12ZXJpZmljYXRpb24=";
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        jwtUtil.init();
+    }
+
+    @Test
+    void parseVerifiedClaims_returnsAllClaimsFromOneParse() {
+        UUID userId = UUID.randomUUID();
+        String token = jwtUtil.generateToken("user@example.com", "HAS_ACCOUNT", userId);
+
+        Claims claims = jwtUtil.parseVerifiedClaims(token);
+
+        assertEquals("user@example.com", claims.getSubject());
+        assertEquals("HAS_ACCOUNT", JwtUtil.roleOf(claims));
+        assertEquals(userId, JwtUtil.userIdOf(claims));
+        assertEquals(userId, jwtUtil.extractUserId(token));
+    }
+
+    @Test
+    void parseVerifiedClaims_servesRepeatTokensFromCache() {
+        String token = jwtUtil.generateToken("user@example.com", "HAS_ACCOUNT", UUID.randomUUID());
+
+        Claims first = jwtUtil.parseVerifiedClaims(token);
+        Claims second = jwtUtil.parseVerifiedClaims(token);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void claimsCache_staysWithinMaxSize() {
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxSize", 2);
+        jwtUtil.init();
+
+        for (int i = 0; i < 5; i++) {
+            jwtUtil.parseVerifiedClaims(jwtUtil.generateToken("user" + i + "@example.com", "HAS_ACCOUNT", UUID.randomUUID()));
+        }
+
+        Cache<?, ?> cache = (Cache<?, ?>) ReflectionTestUtils.getField(jwtUtil, "verifiedClaims");
+        cache.cleanUp();
+        assertTrue(cache.estimatedSize() <= 2);
+    }
+
+    @Test
+    void tamperedToken_isRejected() {
+        String token = jwtUtil.generateToken("user@example.com", "HAS_ACCOUNT", UUID.randomUUID());
+        // Verify the genuine token first so a cache keyed loosely would wrongly accept the forgery
+        assertTrue(jwtUtil.validateToken(token));
+
+        String[] parts = token.split("\\.");
+        // Change the first signature character; the last one partly encodes padding bits
+        char first = parts[2].charAt(0);
+        String tampered = parts[0] + "." + parts[1] + "." + (first == 'A' ? 'B' : 'A') + parts[2].substring(1);
+
+        assertFalse(jwtUtil.validateToken(tampered));
+        assertThrows(Exception.class, () -> jwtUtil.parseVerifiedClaims(tampered));
+    }
+}
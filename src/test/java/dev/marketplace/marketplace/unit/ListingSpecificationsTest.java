@@ -0,0 +1,100 @@
+package dev.marketplace.marketplace.unit;
+
+import dev.marketplace.marketplace.model.Listing;
+import dev.marketplace.marketplace.repository.ListingSpecifications;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+class ListingSpecificationsTest {
+
+    private final Root<Listing> root = mock(Root.class);
+    private final CriteriaQuery<Object> query = mock(CriteriaQuery.class);
+    private final CriteriaBuilder cb = mock(CriteriaBuilder.class);
+
+    private final Path<Object> title = mock(Path.class);
+    private final Path<Object> description = mock(Path.class);
+    private final Path<Object> id = mock(Path.class);
+    private final Expression<String> term = mock(Expression.class);
+    private final Expression<String> lowerTitle = mock(Expression.class);
+    private final Expression<String> lowerDescription = mock(Expression.class);
+    private final Expression<Boolean> matches = mock(Expression.class);
+    private final Expression<Float> rank = mock(Expression.class);
+    private final Order rankDesc = mock(Order.class);
+    private final Order idDesc = mock(Order.class);
+    private final Predicate fullText = mock(Predicate.class);
+    private final Predicate titleLike = mock(Predicate.class);
+    private final Predicate descriptionLike = mock(Predicate.class);
+    private final Predicate either = mock(Predicate.class);
+
+    @BeforeEach
+    void setUp() {
+        when(root.get("title")).thenReturn(title);
+        when(root.get("description")).thenReturn(description);
+        when(root.get("id")).thenReturn(id);
+        doReturn(term).when(cb).literal("red 50%_bike");
+        doReturn(lowerTitle).when(cb).lower(argThat(arg -> (Object) arg == title));
+        doReturn(lowerDescription).when(cb).lower(argThat(arg -> (Object) arg == description));
+        doReturn(matches).when(cb).function("listing_search_matches", Boolean.class, title, description, term);
+        doReturn(rank).when(cb).function("listing_search_rank", Float.class, title, description, term);
+        when(cb.isTrue(matches)).thenReturn(fullText);
+        when(cb.like(lowerTitle, "%red 50\\%\\_bike%", '\\')).thenReturn(titleLike);
+        when(cb.like(lowerDescription, "%red 50\\%\\_bike%", '\\')).thenReturn(descriptionLike);
+        when(cb.or(fullText, titleLike, descriptionLike)).thenReturn(either);
+        when(cb.desc(rank)).thenReturn(rankDesc);
+        when(cb.desc(id)).thenReturn(idDesc);
+    }
+
+    @Test
+    void blankSearchTermAddsNoRestriction() {
+        assertNull(ListingSpecifications.matchesSearchTerm(null, true));
+        assertNull(ListingSpecifications.matchesSearchTerm("  ", true));
+    }
+
+    @Test
+    void matchesTheSearchDocumentOrAnEscapedTitleOrDescriptionSubstring() {
+        doReturn(Listing.class).when(query).getResultType();
+
+        Predicate predicate = ListingSpecifications.matchesSearchTerm("  red 50%_bike ", false).toPredicate(root, query, cb);
+
+        assertSame(either, predicate);
+        verify(query, never()).orderBy(any(Order[].class));
+    }
+
+    @Test
+    void relevanceOrdersByRankThenId() {
+        doReturn(Listing.class).when(query).getResultType();
+
+        Specification<Listing> spec = ListingSpecifications.matchesSearchTerm("red 50%_bike", true);
+        assertSame(either, spec.toPredicate(root, query, cb));
+
+        verify(query).orderBy(rankDesc, idDesc);
+    }
+
+    @Test
+    void relevanceIsNotAppliedToCountQueries() {
+        doReturn(Long.class).when(query).getResultType();
+
+        ListingSpecifications.matchesSearchTerm("red 50%_bike", true).toPredicate(root, query, cb);
+
+        verify(query, never()).orderBy(any(Order[].class));
+    }
+}
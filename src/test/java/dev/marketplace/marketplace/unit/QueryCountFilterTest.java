@@ -0,0 +1,55 @@
+package dev.marketplace.marketplace.unit;
+
+import dev.marketplace.marketplace.config.QueryCountFilter;
+import dev.marketplace.marketplace.config.SqlStatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class QueryCountFilterTest {
+
+    private final SqlStatementCounter statementCounter = new SqlStatementCounter();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final QueryCountFilter filter = new QueryCountFilter(statementCounter, meterRegistry);
+
+    @Test
+    void recordsStatementsIssuedDuringTheRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/graphql");
+            statementCounter.inspect("select 1");
+            statementCounter.inspect("select 2");
+            statementCounter.inspect("select 3");
+        });
+
+        DistributionSummary summary = meterRegistry.get("marketplace.request.queries")
+                .tag("method", "POST").tag("uri", "/graphql").summary();
+        assertEquals(1, summary.count());
+        assertEquals(3.0, summary.totalAmount());
+    }
+
+    @Test
+    void statementsOutsideARequestAreNotCounted() throws Exception {
+        statementCounter.inspect("select 1");
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/health"), new MockHttpServletResponse(), (req, res) -> {
+        });
+
+        assertEquals(0.0, meterRegistry.get("marketplace.request.queries").tag("uri", "UNKNOWN").summary().totalAmount());
+    }
+
+    @Test
+    void actuatorRequestsAreSkipped() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/prometheus"), new MockHttpServletResponse(),
+                (req, res) -> statementCounter.inspect("select 1"));
+
+        assertNull(meterRegistry.find("marketplace.request.queries").summary());
+    }
+}
@@ -0,0 +1,72 @@
+package dev.marketplace.marketplace.unit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import dev.marketplace.marketplace.model.User;
+import dev.marketplace.marketplace.security.UserDetailsCache;
+import dev.marketplace.marketplace.security.UserDetailsImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserDetailsCacheTest {
+
+    @Test
+    void keysOnTheExactSubject() {
+        UserDetailsCache cache = new UserDetailsCache(60_000, 10);
+        UserDetailsImpl alice = principal("Alice@example.com");
+        cache.put("Alice@example.com", alice);
+
+        assertSame(alice, cache.get("Alice@example.com"));
+        assertNull(cache.get("alice@example.com"));
+    }
+
+    @Test
+    void staysWithinMaxSize() {
+        UserDetailsCache cache = new UserDetailsCache(60_000, 2);
+        for (int i = 0; i < 5; i++) {
+            cache.put("user" + i + "@example.com", principal("user" + i + "@example.com"));
+        }
+
+        Cache<?, ?> entries = (Cache<?, ?>) ReflectionTestUtils.getField(cache, "entries");
+        entries.cleanUp();
+        assertTrue(entries.estimatedSize() <= 2);
+    }
+
+    @Test
+    void evictDropsEveryNameTheUserIsCachedUnder() {
+        UserDetailsCache cache = new UserDetailsCache(60_000, 10);
+        UserDetailsImpl user = principal("user@example.com");
+        UserDetailsImpl other = principal("other@example.com");
+        cache.put("user@example.com", user);
+        cache.put("user-name", user);
+        cache.put("other@example.com", other);
+
+        cache.evict(user.getId());
+
+        assertNull(cache.get("user@example.com"));
+        assertNull(cache.get("user-name"));
+        assertEquals(other.getId(), cache.getUserId("other@example.com"));
+    }
+
+    @Test
+    void expiredEntriesAreNotServed() {
+        UserDetailsCache cache = new UserDetailsCache(0, 10);
+        cache.put("user@example.com", principal("user@example.com"));
+
+        assertNull(cache.get("user@example.com"));
+    }
+
+    private static UserDetailsImpl principal(String email) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail(email);
+        user.setPassword("encoded-password");
+        return new UserDetailsImpl(user);
+    }
+}
@@ -5,6 +5,7 @@ import dev.marketplace.marketplace.model.User;
 import dev.marketplace.marketplace.repository.UserRepository;
 import dev.marketplace.marketplace.repository.CityRepository;
 import dev.marketplace.marketplace.repository.SubscriptionRepository;
+import dev.marketplace.marketplace.security.UserDetailsCache;
 import dev.marketplace.marketplace.service.B2StorageService;
 import dev.marketplace.marketplace.service.TrustRatingService;
 import dev.marketplace.marketplace.service.UserService;
@@ -14,6 +15,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -85,6 +87,44 @@ class UserServiceTest {
         verify(trustRatingService, times(1)).calculateAndUpdateTrustRating(id);
     }
 
+    @Test
+    void loadUserByUsername_cachesPrincipalForLaterLookups() {
+        ReflectionTestUtils.setField(userService, "userDetailsCache", new UserDetailsCache(60_000, 100));
+        User user = new User();
+        UUID id = UUID.randomUUID();
+        user.setId(id);
+        user.setEmail("cached@example.com");
+        user.setPassword("encoded-password");
+        when(userRepository.findByEmail("cached@example.com")).thenReturn(Optional.of(user));
+
+        userService.loadUserByUsername("cached@example.com");
+        UserDetails second = userService.loadUserByUsername("cached@example.com");
+        UUID resolvedId = userService.getUserIdByUsername("cached@example.com");
+
+        assertEquals("cached@example.com", second.getUsername());
+        assertEquals(id, resolvedId);
+        verify(userRepository, times(1)).findByEmail("cached@example.com");
+    }
+
+    @Test
+    void getUserIdByUsername_ignoresPrincipalCachedUnderAUsername() {
+        ReflectionTestUtils.setField(userService, "userDetailsCache", new UserDetailsCache(60_000, 100));
+        User byUsername = new User();
+        byUsername.setId(UUID.randomUUID());
+        byUsername.setEmail("other@example.com");
+        byUsername.setUsername("shared-name");
+        byUsername.setPassword("encoded-password");
+        when(userRepository.findByEmail("shared-name")).thenReturn(Optional.empty());
+        when(userRepository.findByUsername("shared-name")).thenReturn(Optional.of(byUsername));
+
+        // Cached under the username, not under byUsername's own email
+        userService.loadUserByUsername("shared-name");
+        UUID resolvedId = userService.getUserIdByUsername("shared-name");
+
+        assertEquals(byUsername.getId(), resolvedId);
+        verify(userRepository, times(2)).findByUsername("shared-name");
+    }
+
     @Test
     void registerUser_invalidEmail_throwsValidation() {
         assertThrows(ValidationException.class, () -> userService.registerUser("u", "invalid-email", "pwd"));